@@ -0,0 +1,555 @@
+/*
+ * BellmanFord.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BellmanFord
+ *
+ * Caminhos mínimos de uma origem com pesos negativos, e detecção de
+ * ciclos negativos. Uma aresta não direcionada vale nos dois sentidos,
+ * de modo que uma aresta não direcionada de peso negativo já é um
+ * ciclo negativo.
+ *
+ * Há dois algoritmos:
+ *
+ * - QUEUE: o SPFA, um Bellman-Ford com uma fila FIFO dos vértices cuja
+ *   distância diminuiu, que só relaxa os arcos de saída deles. As
+ *   passadas pela fila fazem o papel das rodadas do Bellman-Ford.
+ *
+ * - PARALLEL: rodadas sincronizadas, em paralelo. À cada rodada, os
+ *   arcos de saída dos vértices que mudaram na rodada anterior são
+ *   relaxados pelas threads sobre uma cópia das distâncias, com um
+ *   compare-and-set de mínimo, e os vértices melhorados são
+ *   reivindicados em um bitmap, como no ParallelBFS. As distâncias
+ *   novas só dependem das da rodada anterior, e o pai de cada vértice
+ *   é o primeiro arco de entrada que realiza a nova distância, de modo
+ *   que o resultado não depende da ordem das threads. As rodadas param
+ *   assim que nenhuma distância muda.
+ *
+ * Em ambos, caso ainda haja mudanças na rodada V, existe um ciclo
+ * negativo alcançável, e ele é achado voltando V vezes pelos pais à
+ * partir de um vértice que mudou. Além disso, à cada V distâncias
+ * diminuídas, o grafo dos pais é examinado em tempo linear (à moda de
+ * Cherkassky e Goldberg): todo ciclo nele é negativo, e a execução
+ * para logo que um aparece, sem esperar V rodadas.
+ *
+ * runPotentials() calcula as distâncias à partir de uma origem
+ * virtual ligada à todos os vértices por arcos de peso 0, que servem
+ * de potenciais para o algoritmo de Johnson: os pesos reduzidos
+ * w(u,v) + h(u) - h(v) são não negativos, e o Dijkstra sobre eles
+ * acha os mesmos caminhos mínimos que os pesos originais.
+ *
+ * @author Giuliano Vilela
+ */
+public class BellmanFord {
+    public static final int QUEUE = 0;
+    public static final int PARALLEL = 1;
+
+    /**
+     * Distância dos vértices não alcançados.
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public BellmanFord(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada bloco de
+     * vértices processados. Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula os caminhos mínimos à partir de source, com o SPFA.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public BellmanFord run(int source) {
+        return run(source, QUEUE);
+    }
+
+    /**
+     * Calcula os caminhos mínimos à partir de source, com o
+     * algoritmo dado (QUEUE ou PARALLEL).
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public BellmanFord run(int source, int algorithm) {
+        return run(new int[] {source}, algorithm);
+    }
+
+    /**
+     * Calcula os potenciais de Johnson com o SPFA.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public BellmanFord runPotentials() {
+        return runPotentials(QUEUE);
+    }
+
+    /**
+     * Calcula os potenciais de Johnson, com o algoritmo dado: as
+     * distâncias à partir de uma origem virtual com arcos de peso 0
+     * para todos os vértices.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public BellmanFord runPotentials(int algorithm) {
+        int n = graph.num_vertex;
+        int[] sources = new int[n];
+
+        for (int v = 0; v < n; ++v)
+            sources[v] = v;
+
+        return run(sources, algorithm);
+    }
+
+    private BellmanFord run(int[] sources, int algorithm) {
+        int n = graph.num_vertex;
+
+        if (algorithm != QUEUE && algorithm != PARALLEL)
+            throw new IllegalArgumentException("Unknown algorithm.");
+
+        dist = new long[n];
+        parent = new int[n];
+        parent_edge = new int[n];
+        cycle = null;
+        num_rounds = 0;
+        num_relaxations = 0;
+        since_check = 0;
+
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(parent, -1);
+        Arrays.fill(parent_edge, -1);
+
+        for (int s : sources)
+            dist[s] = 0;
+
+        if (algorithm == QUEUE)
+            queue(sources);
+        else
+            parallel(sources);
+
+        return this;
+    }
+
+    /**
+     * SPFA. A fila é circular, com cada vértice no máximo uma vez.
+     */
+    private void queue(int[] sources) {
+        final int n = graph.num_vertex;
+        final int[] out_start = graph.out_start, out_target = graph.out_target;
+        final int[] out_edge = graph.out_edge, out_weight = graph.out_weight;
+
+        int[] queue = new int[n];
+        boolean[] in_queue = new boolean[n];
+        int head = 0, size = 0;
+
+        for (int s : sources) {
+            queue[size++] = s;
+            in_queue[s] = true;
+        }
+
+        int pass_left = 0;
+        long pops = 0, arcs = 0;
+
+        while (size > 0) {
+            if (pass_left == 0) {
+                if (num_rounds == n) {
+                    findCycle(walkBack(queue[head]));
+                    return;
+                }
+
+                ++num_rounds;
+                pass_left = size;
+            }
+
+            int u = queue[head];
+            head = (head + 1 == n) ? 0 : head + 1;
+            --size;
+            --pass_left;
+            in_queue[u] = false;
+
+            long du = dist[u];
+
+            for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                int v = out_target[a];
+                long d = du + out_weight[a];
+
+                if (d >= dist[v])
+                    continue;
+
+                dist[v] = d;
+                parent[v] = u;
+                parent_edge[v] = out_edge[a];
+                ++num_relaxations;
+                ++since_check;
+
+                if (!in_queue[v]) {
+                    int tail = head + size;
+                    queue[tail >= n ? tail - n : tail] = v;
+                    in_queue[v] = true;
+                    ++size;
+                }
+            }
+
+            arcs += out_start[u+1] - out_start[u];
+
+            if (since_check >= n && checkCycle())
+                return;
+
+            if (control != null && ++pops == CHECK_PERIOD) {
+                control.check(pops, arcs);
+                pops = arcs = 0;
+            }
+        }
+    }
+
+    /**
+     * Rodadas paralelas. changed marca os vértices que mudaram na
+     * rodada anterior, e next guarda as distâncias da rodada atual,
+     * que são iguais às de dist entre as rodadas.
+     */
+    private void parallel(int[] sources) {
+        final int n = graph.num_vertex;
+
+        changed = new boolean[n];
+        next = new AtomicLongArray(n);
+        claimed = new AtomicLongArray((n + 63) >>> 6);
+        buffers = new IntList[Parallel.getNumChunks(n, GRAIN)];
+
+        for (int v = 0; v < n; ++v)
+            next.set(v, dist[v]);
+
+        for (int i = 0; i < buffers.length; ++i)
+            buffers[i] = new IntList();
+
+        int[] frontier = sources.clone();
+        for (int s : frontier)
+            changed[s] = true;
+
+        while (frontier.length > 0) {
+            if (num_rounds == n) {
+                findCycle(walkBack(frontier[0]));
+                break;
+            }
+
+            ++num_rounds;
+
+            final int[] improved = push(frontier);
+            final int[] old = frontier;
+
+            link(improved);
+
+            Parallel.forRange(old.length, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    for (int i = from; i < to; ++i)
+                        changed[old[i]] = false;
+                }
+            });
+
+            Parallel.forRange(improved.length, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    for (int i = from; i < to; ++i) {
+                        int v = improved[i];
+                        dist[v] = next.get(v);
+                        changed[v] = true;
+                        claimed.set(v >>> 6, 0);
+                    }
+                }
+            });
+
+            num_relaxations += improved.length;
+            since_check += improved.length;
+
+            if (since_check >= n && checkCycle())
+                break;
+
+            frontier = improved;
+        }
+
+        changed = null;
+        next = null;
+        claimed = null;
+        buffers = null;
+    }
+
+    /**
+     * Relaxa em next os arcos de saída da fronteira, com um
+     * compare-and-set de mínimo. Cada vértice cuja distância diminuiu
+     * é reivindicado no bitmap claimed, para entrar uma vez só na lista.
+     * @return Os vértices cuja distância diminuiu.
+     */
+    private int[] push(final int[] frontier) {
+        final int[] out_start = graph.out_start, out_target = graph.out_target;
+        final int[] out_weight = graph.out_weight;
+
+        Parallel.forRange(frontier.length, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                IntList local = buffers[worker];
+                local.clear();
+                long arcs = 0;
+
+                for (int i = from; i < to; ++i) {
+                    int u = frontier[i];
+                    long du = dist[u];
+
+                    for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                        int v = out_target[a];
+                        long d = du + out_weight[a];
+                        long cur = next.get(v);
+
+                        while (d < cur && !next.compareAndSet(v, cur, d))
+                            cur = next.get(v);
+
+                        if (d < cur && claim(v))
+                            local.add(v);
+                    }
+
+                    arcs += out_start[u+1] - out_start[u];
+                }
+
+                if (control != null)
+                    control.check(to - from, arcs);
+            }
+        });
+
+        return gather(Parallel.getNumChunks(frontier.length, GRAIN));
+    }
+
+    /**
+     * Tenta marcar v no bitmap claimed.
+     * @return true somente para a thread que conseguiu marcá-lo.
+     */
+    private boolean claim(int v) {
+        int w = v >>> 6;
+        long bit = 1L << v;
+        long old = claimed.get(w);
+
+        while ((old & bit) == 0) {
+            if (claimed.compareAndSet(w, old, old | bit))
+                return true;
+            old = claimed.get(w);
+        }
+
+        return false;
+    }
+
+    /**
+     * Escolhe o pai de cada vértice melhorado: o primeiro arco de
+     * entrada, vindo de um vértice que mudou, que realiza a nova
+     * distância. Assim, o resultado não depende da ordem das threads.
+     */
+    private void link(final int[] improved) {
+        final int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        final int[] edge_weight = graph.edge_weight;
+
+        Parallel.forRange(improved.length, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int i = from; i < to; ++i) {
+                    int v = improved[i];
+                    long d = next.get(v);
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a) {
+                        int u = in_source[a];
+
+                        if (changed[u] && dist[u] + edge_weight[in_edge[a]] == d) {
+                            parent[v] = u;
+                            parent_edge[v] = in_edge[a];
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Junta os buffers dos primeiros chunks blocos em um vetor.
+     */
+    private int[] gather(int chunks) {
+        int total = 0;
+        for (int c = 0; c < chunks; ++c)
+            total += buffers[c].size();
+
+        int[] r = new int[total];
+        int pos = 0;
+
+        for (int c = 0; c < chunks; ++c) {
+            buffers[c].copyTo(r, pos);
+            pos += buffers[c].size();
+        }
+
+        return r;
+    }
+
+    /**
+     * Volta V vezes pelos pais à partir de v, que mudou na rodada V.
+     * @return Um vértice de um ciclo do grafo dos pais.
+     */
+    private int walkBack(int v) {
+        for (int i = 0; i < graph.num_vertex; ++i)
+            v = parent[v];
+        return v;
+    }
+
+    /**
+     * Procura um ciclo no grafo dos pais, seguindo os pais de cada
+     * vértice até chegar em um vértice já visto.
+     * @return true caso um ciclo tenha sido achado.
+     */
+    private boolean checkCycle() {
+        int n = graph.num_vertex;
+        int[] mark = new int[n];
+
+        since_check = 0;
+
+        for (int v = 0; v < n; ++v) {
+            int x = v;
+
+            while (x != -1 && mark[x] == 0) {
+                mark[x] = v + 1;
+                x = parent[x];
+            }
+
+            if (x != -1 && mark[x] == v + 1) {
+                findCycle(x);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Guarda as arestas do ciclo dos pais que passa por x,
+     * no sentido dos arcos.
+     */
+    private void findCycle(int x) {
+        int len = 0, y = x;
+
+        do {
+            ++len;
+            y = parent[y];
+        } while (y != x);
+
+        cycle = new int[len];
+        cycle_vertices = new int[len];
+
+        for (int i = len - 1; i >= 0; --i) {
+            cycle[i] = parent_edge[y];
+            cycle_vertices[i] = parent[y];
+            y = parent[y];
+        }
+    }
+
+    /**
+     * Indica se a última execução achou um ciclo negativo.
+     * Nesse caso, as distâncias não são válidas.
+     */
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    /**
+     * Retorna as arestas de um ciclo negativo, na ordem em que
+     * são percorridas, ou null caso não haja ciclo.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getNegativeCycle() {
+        return cycle;
+    }
+
+    /**
+     * Retorna os vértices do ciclo negativo: o i-ésimo é o início da
+     * i-ésima aresta de getNegativeCycle(). Retorna null caso não haja ciclo.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getNegativeCycleVertices() {
+        return cycle_vertices;
+    }
+
+    /**
+     * Retorna a distância até v, ou UNREACHABLE caso
+     * ele não tenha sido alcançado.
+     */
+    public long getDistance(int v) {
+        return dist[v];
+    }
+
+    /**
+     * Retorna o vetor de distâncias de todos os vértices.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public long[] getDistances() {
+        return dist;
+    }
+
+    /**
+     * Retorna o pai de v na árvore de caminhos mínimos, ou -1
+     * caso v seja uma origem ou não tenha sido alcançado.
+     */
+    public int getParent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Retorna a aresta que liga v ao seu pai, ou -1 caso v não tenha pai.
+     */
+    public int getParentEdge(int v) {
+        return parent_edge[v];
+    }
+
+    /**
+     * Retorna o peso reduzido de Johnson da aresta e, percorrida à
+     * partir do vértice from. Só faz sentido depois de runPotentials()
+     * sem ciclo negativo, quando ele é sempre não negativo.
+     */
+    public long getReducedWeight(int e, int from) {
+        int to = (graph.edge_start[e] == from) ? graph.edge_end[e] : graph.edge_start[e];
+        return graph.edge_weight[e] + dist[from] - dist[to];
+    }
+
+    /**
+     * Retorna o número de rodadas (no SPFA, de passadas pela fila).
+     */
+    public int getNumRounds() {
+        return num_rounds;
+    }
+
+    /**
+     * Retorna quantas vezes alguma distância diminuiu.
+     */
+    public long getNumRelaxations() {
+        return num_relaxations;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+
+    private long[] dist;
+    private int[] parent, parent_edge;
+    private int[] cycle, cycle_vertices;
+    private int num_rounds;
+    private long num_relaxations, since_check;
+
+    /* Estado das rodadas paralelas. */
+    private boolean[] changed;
+    private AtomicLongArray next, claimed;
+    private IntList[] buffers;
+
+    private static final int GRAIN = 1 << 10;
+    private static final int CHECK_PERIOD = 1 << 10;
+}
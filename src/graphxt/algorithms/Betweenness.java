@@ -0,0 +1,363 @@
+/*
+ * Betweenness.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Betweenness
+ *
+ * Centralidade de intermediação (betweenness) pelo algoritmo de
+ * Brandes. Para cada origem s é feita uma busca de caminhos mínimos
+ * (em largura, ou Dijkstra caso os pesos sejam usados) que conta o
+ * número de caminhos mínimos até cada vértice, seguida de uma passada
+ * em ordem reversa que acumula as dependências de s em cada vértice.
+ *
+ * As origens são independentes e são distribuídas dinamicamente entre
+ * as threads, cada uma com o seu próprio espaço de trabalho e o seu
+ * próprio vetor de acumulação, somados somente no fim. Os predecessores
+ * não são guardados: na passada reversa, cada vértice olha os seus
+ * arcos de saída e reconhece os sucessores pela distância.
+ *
+ * No modo aproximado (Brandes e Pich), somente k origens sorteadas
+ * são processadas, e o resultado é escalado por n/k. Pela desigualdade
+ * de Hoeffding, com getSampleSize(n, epsilon, delta) origens o erro de
+ * todos os vértices fica abaixo de epsilon·n·(n-2) com probabilidade
+ * pelo menos 1-delta.
+ *
+ * Em grafos sem arestas direcionadas cada caminho é contado nos dois
+ * sentidos, e os valores são divididos por 2.
+ *
+ * @author Giuliano Vilela
+ */
+public class Betweenness {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public Betweenness(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Indica se os pesos das arestas devem ser usados como
+     * comprimentos. Por padrão, todas as arestas têm comprimento 1.
+     * @throws IllegalArgumentException Caso alguma aresta não tenha peso
+     *         positivo; com arestas de peso 0 a contagem de caminhos
+     *         mínimos dependeria da ordem dos empates.
+     */
+    public void setWeighted(boolean w) {
+        if (w) {
+            for (int x : graph.edge_weight)
+                if (x <= 0)
+                    throw new IllegalArgumentException("Edge weights must be positive.");
+        }
+        weighted = w;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado depois de cada
+     * origem. Com null (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula a betweenness exata, usando todos os vértices como origem.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public Betweenness run() {
+        int n = graph.num_vertex;
+        int[] sources = new int[n];
+
+        for (int v = 0; v < n; ++v)
+            sources[v] = v;
+
+        return run(sources, 1.0);
+    }
+
+    /**
+     * Calcula uma aproximação da betweenness à partir de k
+     * origens sorteadas com a semente seed.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public Betweenness run(int k, long seed) {
+        int n = graph.num_vertex;
+
+        if (k >= n)
+            return run();
+        if (k < 1)
+            throw new IllegalArgumentException("At least one source is needed.");
+
+        int[] perm = new int[n];
+        for (int v = 0; v < n; ++v)
+            perm[v] = v;
+
+        Random random = new Random(seed);
+
+        for (int i = 0; i < k; ++i) {
+            int j = i + random.nextInt(n - i);
+            int t = perm[i]; perm[i] = perm[j]; perm[j] = t;
+        }
+
+        return run(Arrays.copyOf(perm, k), (double)n / k);
+    }
+
+    /**
+     * Retorna quantas origens sortear para que, com probabilidade pelo
+     * menos 1-delta, o erro em todos os n vértices fique abaixo de
+     * epsilon·n·(n-2).
+     */
+    public static int getSampleSize(int n, double epsilon, double delta) {
+        double k = Math.log(2.0 * n / delta) / (2 * epsilon * epsilon);
+        return (int)Math.min(n, Math.ceil(k));
+    }
+
+    private Betweenness run(int[] sources, double scale) {
+        int n = graph.num_vertex;
+        int workers = Math.min(Parallel.getParallelism(), Math.max(sources.length, 1));
+        AtomicInteger next = new AtomicInteger();
+        ArrayList<Worker> jobs = new ArrayList<Worker>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Worker(sources, next));
+
+        centrality = new double[n];
+        num_sources = sources.length;
+
+        for (double[] local : Parallel.invokeAll(jobs))
+            for (int v = 0; v < n; ++v)
+                centrality[v] += local[v];
+
+        if (!graph.directed)
+            scale /= 2;
+
+        for (int v = 0; v < n; ++v)
+            centrality[v] *= scale;
+
+        return this;
+    }
+
+    /**
+     * Processa origens até elas acabarem, acumulando as dependências
+     * em um vetor próprio.
+     */
+    private class Worker implements Callable<double[]> {
+        Worker(int[] sources, AtomicInteger next) {
+            int n = graph.num_vertex;
+
+            this.sources = sources;
+            this.next = next;
+            bc = new double[n];
+            sigma = new double[n];
+            delta = new double[n];
+            order = new int[n];
+
+            if (weighted) {
+                dist = new long[n];
+                heap = new IndexedHeap(n);
+                Arrays.fill(dist, -1);
+            }
+            else {
+                level = new int[n];
+                Arrays.fill(level, -1);
+            }
+        }
+
+        public double[] call() {
+            int i;
+            while ((i = next.getAndIncrement()) < sources.length) {
+                int s = sources[i];
+                int reached = weighted ? dijkstra(s) : bfs(s);
+                accumulate(s, reached);
+
+                if (control != null)
+                    control.check(reached, arcs(reached));
+            }
+            return bc;
+        }
+
+        /**
+         * Número de arcos saindo dos primeiros reached vértices de order.
+         */
+        private long arcs(int reached) {
+            int[] out_start = graph.out_start;
+            long sum = 0;
+
+            for (int i = 0; i < reached; ++i)
+                sum += out_start[order[i]+1] - out_start[order[i]];
+
+            return sum;
+        }
+
+        /**
+         * Busca em largura contando caminhos mínimos.
+         * @return O número de vértices alcançados, em order.
+         */
+        private int bfs(int s) {
+            int[] out_start = graph.out_start, out_target = graph.out_target;
+            int head = 0, tail = 0;
+
+            level[s] = 0;
+            sigma[s] = 1;
+            order[tail++] = s;
+
+            while (head < tail) {
+                int u = order[head++];
+                int lu = level[u] + 1;
+
+                for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                    int v = out_target[a];
+
+                    if (level[v] == -1) {
+                        level[v] = lu;
+                        order[tail++] = v;
+                    }
+                    if (level[v] == lu)
+                        sigma[v] += sigma[u];
+                }
+            }
+
+            return tail;
+        }
+
+        /**
+         * Dijkstra contando caminhos mínimos. Os vértices entram em
+         * order na ordem em que são fixados.
+         * @return O número de vértices alcançados, em order.
+         */
+        private int dijkstra(int s) {
+            int[] out_start = graph.out_start, out_target = graph.out_target, out_weight = graph.out_weight;
+            int count = 0;
+
+            dist[s] = 0;
+            sigma[s] = 1;
+            heap.push(s, 0);
+
+            while (!heap.isEmpty()) {
+                int u = heap.pop();
+                long du = dist[u];
+
+                order[count++] = u;
+
+                for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                    int v = out_target[a];
+                    long d = du + out_weight[a];
+
+                    if (dist[v] == -1 || d < dist[v]) {
+                        dist[v] = d;
+                        sigma[v] = 0;
+                        heap.push(v, d);
+                    }
+                    if (d == dist[v])
+                        sigma[v] += sigma[u];
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Acumula as dependências de s em ordem reversa de distância
+         * e limpa o espaço de trabalho dos vértices alcançados.
+         */
+        private void accumulate(int s, int reached) {
+            int[] out_start = graph.out_start, out_target = graph.out_target, out_weight = graph.out_weight;
+
+            for (int i = reached - 1; i >= 0; --i) {
+                int v = order[i];
+                double sum = 0;
+
+                for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+                    int w = out_target[a];
+
+                    if (isSuccessor(v, w, weighted ? out_weight[a] : 1))
+                        sum += (1 + delta[w]) / sigma[w];
+                }
+
+                delta[v] = sigma[v] * sum;
+                if (v != s)
+                    bc[v] += delta[v];
+            }
+
+            for (int i = 0; i < reached; ++i) {
+                int v = order[i];
+                sigma[v] = 0;
+                delta[v] = 0;
+                if (weighted)
+                    dist[v] = -1;
+                else
+                    level[v] = -1;
+            }
+        }
+
+        /**
+         * Indica se o arco v->w, de comprimento len, está em algum
+         * caminho mínimo da origem atual.
+         */
+        private boolean isSuccessor(int v, int w, int len) {
+            if (weighted)
+                return dist[w] == dist[v] + len;
+            return level[w] == level[v] + 1;
+        }
+
+        private int[] sources;
+        private AtomicInteger next;
+        private double[] bc, sigma, delta;
+        private int[] order, level;
+        private long[] dist;
+        private IndexedHeap heap;
+    }
+
+    /**
+     * Retorna a betweenness do vértice v.
+     */
+    public double getCentrality(int v) {
+        return centrality[v];
+    }
+
+    /**
+     * Retorna a betweenness de v normalizada para [0,1], dividindo
+     * pelo número de pares de outros vértices.
+     */
+    public double getNormalizedCentrality(int v) {
+        double n = graph.num_vertex;
+        double pairs = (n - 1) * (n - 2);
+
+        if (!graph.directed)
+            pairs /= 2;
+
+        return (pairs <= 0) ? 0.0 : centrality[v] / pairs;
+    }
+
+    /**
+     * Retorna o vetor de betweenness de todos os vértices.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public double[] getCentralities() {
+        return centrality;
+    }
+
+    /**
+     * Retorna o número de origens processadas na última execução.
+     */
+    public int getNumSources() {
+        return num_sources;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private boolean weighted;
+    private double[] centrality;
+    private int num_sources;
+}
@@ -0,0 +1,408 @@
+/*
+ * BipartiteMatching.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * BipartiteMatching
+ *
+ * Emparelhamento máximo em grafos bipartidos, pelo algoritmo de
+ * Hopcroft-Karp, em O(E·√V). O sentido das arestas é ignorado.
+ *
+ * Primeiro o grafo é bicolorido por uma busca em largura; os vértices
+ * de cor 0 formam o lado esquerdo e os de cor 1 o direito. Caso alguma
+ * aresta ligue dois vértices da mesma cor, o grafo não é bipartido e
+ * nenhum emparelhamento é calculado.
+ *
+ * O emparelhamento começa guloso e, à cada fase, uma busca em largura
+ * à partir dos vértices livres da esquerda separa o grafo em camadas,
+ * e buscas em profundidade (iterativas) encontram um conjunto maximal
+ * de caminhos aumentantes mínimos disjuntos, andando somente de uma
+ * camada para a seguinte. São necessárias no máximo O(√V) fases.
+ *
+ * @author Giuliano Vilela
+ */
+public class BipartiteMatching {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public BipartiteMatching(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada fase de
+     * caminhos aumentantes. Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula um emparelhamento máximo, caso o grafo seja bipartido.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public BipartiteMatching run() {
+        int n = graph.num_vertex;
+
+        mate = new int[n];
+        mate_edge = new int[n];
+        Arrays.fill(mate, -1);
+        Arrays.fill(mate_edge, -1);
+        size = 0;
+        phases = 0;
+
+        bipartite = color();
+        if (!bipartite)
+            return this;
+
+        build();
+        greedy();
+
+        dist = new int[n];
+        queue = new int[n];
+        stack = new int[n];
+        iter = new int[n];
+
+        while (layer()) {
+            ++phases;
+
+            for (int i = 0; i < num_left; ++i) {
+                int u = left[i];
+                iter[u] = adj_start[u];
+            }
+
+            for (int i = 0; i < num_left; ++i) {
+                int u = left[i];
+                if (mate[u] == -1 && augment(u))
+                    ++size;
+            }
+
+            if (control != null)
+                control.check(num_left, adj.length);
+        }
+
+        adj_start = adj = adj_edge = null;
+        dist = queue = stack = iter = null;
+        return this;
+    }
+
+    /**
+     * Bicolore o grafo por busca em largura, começando cada
+     * componente pela cor 0.
+     * @return true se o grafo é bipartido.
+     */
+    private boolean color() {
+        int n = graph.num_vertex;
+        int[] out_start = graph.out_start, out_target = graph.out_target;
+        int[] in_start = graph.in_start, in_source = graph.in_source;
+        int[] fifo = new int[n];
+
+        side = new byte[n];
+        Arrays.fill(side, (byte)-1);
+        num_left = 0;
+
+        for (int s = 0; s < n; ++s) {
+            if (side[s] != -1)
+                continue;
+
+            int head = 0, tail = 0;
+            side[s] = 0;
+            fifo[tail++] = s;
+
+            while (head < tail) {
+                int u = fifo[head++];
+                byte other = (byte)(1 - side[u]);
+
+                if (side[u] == 0)
+                    ++num_left;
+
+                for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                    int v = out_target[a];
+                    if (side[v] == -1) {
+                        side[v] = other;
+                        fifo[tail++] = v;
+                    }
+                    else if (side[v] != other) {
+                        return false;
+                    }
+                }
+
+                for (int a = in_start[u]; a < in_start[u+1]; ++a) {
+                    int v = in_source[a];
+                    if (side[v] == -1) {
+                        side[v] = other;
+                        fifo[tail++] = v;
+                    }
+                    else if (side[v] != other) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Monta, em formato CSR, a lista de vizinhos (e das arestas que
+     * levam à eles) de cada vértice da esquerda, e o vetor left com
+     * os vértices da esquerda.
+     */
+    private void build() {
+        int n = graph.num_vertex;
+        int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        boolean[] edge_directed = graph.edge_directed;
+
+        left = new int[num_left];
+        adj_start = new int[n+1];
+
+        for (int v = 0, k = 0; v < n; ++v) {
+            int deg = 0;
+
+            if (side[v] == 0) {
+                left[k++] = v;
+                deg = out_start[v+1] - out_start[v];
+
+                for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                    if (edge_directed[in_edge[a]])
+                        ++deg;
+            }
+
+            adj_start[v+1] = adj_start[v] + deg;
+        }
+
+        adj = new int[adj_start[n]];
+        adj_edge = new int[adj_start[n]];
+
+        for (int i = 0; i < num_left; ++i) {
+            int u = left[i];
+            int k = adj_start[u];
+
+            for (int a = out_start[u]; a < out_start[u+1]; ++a, ++k) {
+                adj[k] = out_target[a];
+                adj_edge[k] = out_edge[a];
+            }
+
+            for (int a = in_start[u]; a < in_start[u+1]; ++a) {
+                if (!edge_directed[in_edge[a]])
+                    continue;
+
+                adj[k] = in_source[a];
+                adj_edge[k++] = in_edge[a];
+            }
+        }
+    }
+
+    /**
+     * Emparelha cada vértice da esquerda com o primeiro vizinho
+     * livre, o que normalmente já resolve a maior parte do problema.
+     */
+    private void greedy() {
+        for (int i = 0; i < num_left; ++i) {
+            int u = left[i];
+
+            for (int k = adj_start[u]; k < adj_start[u+1]; ++k) {
+                int w = adj[k];
+                if (mate[w] == -1) {
+                    match(u, w, adj_edge[k]);
+                    ++size;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca em largura à partir dos vértices livres da esquerda,
+     * alternando arestas livres e emparelhadas. A camada de cada
+     * vértice da esquerda fica em dist, e a primeira camada com um
+     * vizinho livre na direita fica em limit: a busca não passa dela,
+     * para que a fase só use caminhos aumentantes mínimos.
+     * @return true se algum vértice livre da direita foi alcançado,
+     *         ou seja, se ainda existe um caminho aumentante.
+     */
+    private boolean layer() {
+        int head = 0, tail = 0;
+        boolean found = false;
+        limit = INF;
+
+        for (int i = 0; i < num_left; ++i) {
+            int u = left[i];
+
+            if (mate[u] == -1) {
+                dist[u] = 0;
+                queue[tail++] = u;
+            }
+            else {
+                dist[u] = INF;
+            }
+        }
+
+        while (head < tail) {
+            int u = queue[head++];
+
+            if (dist[u] >= limit)
+                continue;
+
+            for (int k = adj_start[u]; k < adj_start[u+1]; ++k) {
+                int x = mate[adj[k]];
+
+                if (x == -1) {
+                    found = true;
+                    limit = dist[u] + 1;
+                }
+                else if (dist[x] == INF && dist[u] + 1 < limit) {
+                    dist[x] = dist[u] + 1;
+                    queue[tail++] = x;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Procura um caminho aumentante à partir do vértice livre s,
+     * descendo pelas camadas com uma pilha explícita, e inverte o
+     * caminho caso encontre. Um vértice livre da direita só termina o
+     * caminho à partir da última camada (limit - 1). Vértices sem
+     * saída têm a camada anulada, para que não sejam visitados de novo
+     * na mesma fase.
+     * @return true se o emparelhamento aumentou.
+     */
+    private boolean augment(int s) {
+        int top = 0;
+        stack[top++] = s;
+
+        while (top > 0) {
+            int u = stack[top-1];
+
+            if (iter[u] == adj_start[u+1]) {
+                dist[u] = INF;
+                if (--top > 0)
+                    ++iter[stack[top-1]];
+                continue;
+            }
+
+            int x = mate[adj[iter[u]]];
+
+            if (x == -1) {
+                if (dist[u] + 1 != limit) {
+                    ++iter[u];
+                    continue;
+                }
+
+                for (int i = top - 1; i >= 0; --i) {
+                    int v = stack[i];
+                    int k = iter[v]++;
+                    match(v, adj[k], adj_edge[k]);
+                }
+                return true;
+            }
+
+            if (dist[x] == dist[u] + 1 && dist[x] < limit)
+                stack[top++] = x;
+            else
+                ++iter[u];
+        }
+
+        return false;
+    }
+
+    private void match(int u, int w, int e) {
+        mate[u] = w;
+        mate[w] = u;
+        mate_edge[u] = mate_edge[w] = e;
+    }
+
+    /**
+     * Indica se o grafo é bipartido. Caso não seja,
+     * o emparelhamento calculado é vazio.
+     */
+    public boolean isBipartite() {
+        return bipartite;
+    }
+
+    /**
+     * Retorna o lado de v na bicoloração (0 para a esquerda e 1
+     * para a direita), ou -1 caso o grafo não seja bipartido.
+     */
+    public int getSide(int v) {
+        return bipartite ? side[v] : -1;
+    }
+
+    /**
+     * Retorna o número de arestas do emparelhamento.
+     */
+    public int getMatchingSize() {
+        return size;
+    }
+
+    /**
+     * Retorna o vértice emparelhado com v, ou -1 caso v esteja livre.
+     */
+    public int getMate(int v) {
+        return mate[v];
+    }
+
+    /**
+     * Retorna a aresta que emparelha v, ou -1 caso v esteja livre.
+     */
+    public int getMateEdge(int v) {
+        return mate_edge[v];
+    }
+
+    /**
+     * Indica se a aresta e faz parte do emparelhamento.
+     */
+    public boolean isMatched(int e) {
+        int u = graph.edge_start[e];
+        return mate_edge[u] == e;
+    }
+
+    /**
+     * Retorna as arestas do emparelhamento, em ordem
+     * do seu vértice da esquerda.
+     */
+    public int[] getMatching() {
+        int[] r = new int[size];
+        int k = 0;
+
+        for (int v = 0; v < graph.num_vertex; ++v)
+            if (mate[v] != -1 && side[v] == 0)
+                r[k++] = mate_edge[v];
+
+        return r;
+    }
+
+    /**
+     * Retorna o número de fases de Hopcroft-Karp feitas
+     * depois do emparelhamento guloso.
+     */
+    public int getNumPhases() {
+        return phases;
+    }
+
+    private IndexedGraph<?> graph;
+    private boolean bipartite;
+    private byte[] side;
+    private int[] left;
+    private int num_left;
+    private int[] mate, mate_edge;
+    private int size, phases, limit;
+    private RunControl control;
+
+    private int[] adj_start, adj, adj_edge;
+    private int[] dist, queue, stack, iter;
+
+    private static final int INF = Integer.MAX_VALUE;
+}
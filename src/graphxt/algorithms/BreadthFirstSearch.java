@@ -0,0 +1,309 @@
+/*
+ * BreadthFirstSearch.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * BreadthFirstSearch
+ *
+ * Busca em largura direction-optimizing (Beamer et al.).
+ *
+ * Os conjuntos de vértices visitados e da fronteira são guardados
+ * como bitsets (vetores de long). À cada nível, a busca escolhe
+ * entre dois modos de expansão:
+ *
+ * - top-down: percorre os arcos de saída dos vértices da fronteira,
+ *   marcando os vizinhos ainda não visitados. É o modo clássico, e
+ *   é o mais barato quando a fronteira é pequena.
+ *
+ * - bottom-up: percorre os vértices ainda não visitados, procurando
+ *   entre os seus arcos de entrada algum que venha da fronteira, e
+ *   para no primeiro que encontrar. Quando a fronteira é grande, como
+ *   nos níveis do meio de grafos sociais de diâmetro pequeno, a maior
+ *   parte dos arcos nunca chega a ser examinada.
+ *
+ * A troca para bottom-up acontece quando o número de arcos saindo da
+ * fronteira passa de 1/ALPHA dos arcos saindo de vértices não visitados,
+ * e a volta para top-down quando a fronteira tem menos de 1/BETA
+ * dos vértices.
+ *
+ * Os vetores internos são alocados uma única vez, e reaproveitados
+ * por chamadas sucessivas de run(). Somente as posições dos vértices
+ * alcançados pela busca anterior são limpas, de modo que uma busca
+ * custa proporcional à parte do grafo que ela alcança, o que importa
+ * quando muitas buscas pequenas são feitas no mesmo grafo.
+ *
+ * @author Giuliano Vilela
+ */
+public class BreadthFirstSearch {
+    /**
+     * Prepara a busca para rodar sobre o grafo graph.
+     */
+    public BreadthFirstSearch(IndexedGraph<?> graph) {
+        int n = graph.num_vertex;
+
+        this.graph = graph;
+        parent = new int[n];
+        parent_edge = new int[n];
+        level = new int[n];
+        order = new int[n];
+        visited = new long[(n + 63) >>> 6];
+        frontier = new long[visited.length];
+
+        Arrays.fill(parent, -1);
+        Arrays.fill(parent_edge, -1);
+        Arrays.fill(level, -1);
+    }
+
+    /**
+     * Modifica o controle da execução, verificado ao fim de cada
+     * nível. Com null (o padrão), a busca não é controlada.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Executa a busca à partir do vértice source.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public BreadthFirstSearch run(int source) {
+        return run(source, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Executa a busca à partir do vértice source, parando
+     * depois de atingir o nível max_level.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public BreadthFirstSearch run(int source, int max_level) {
+        int n = graph.num_vertex;
+        int[] out_start = graph.out_start;
+
+        for (int i = 0; i < num_reached; ++i) {
+            int v = order[i];
+            parent[v] = -1;
+            parent_edge[v] = -1;
+            level[v] = -1;
+            visited[v >>> 6] = 0;
+        }
+
+        this.source = source;
+        bottom_up_steps = 0;
+
+        level[source] = 0;
+        order[0] = source;
+        visited[source >>> 6] |= 1L << source;
+        num_reached = 1;
+
+        int lo = 0, hi = 1;
+        long unexplored = graph.out_target.length - (out_start[source+1] - out_start[source]);
+        long frontier_arcs = out_start[source+1] - out_start[source];
+        boolean top_down = true;
+
+        for (int depth = 0; lo < hi && depth < max_level; ++depth) {
+            if (top_down && frontier_arcs > unexplored / ALPHA)
+                top_down = false;
+            else if (!top_down && (hi - lo) < n / BETA)
+                top_down = true;
+
+            long scanned = top_down ? topDown(lo, hi) : bottomUp(lo, hi);
+            int end = num_reached;
+
+            if (!top_down)
+                ++bottom_up_steps;
+
+            if (control != null)
+                control.check(hi - lo, scanned);
+
+            frontier_arcs = 0;
+            for (int i = hi; i < end; ++i) {
+                int v = order[i];
+                frontier_arcs += out_start[v+1] - out_start[v];
+            }
+            unexplored -= frontier_arcs;
+
+            lo = hi;
+            hi = end;
+        }
+
+        num_reached = hi;
+        return this;
+    }
+
+    /**
+     * Expande a fronteira order[lo,hi) pelos arcos de saída. O fim
+     * do próximo nível em order fica em num_reached.
+     * @return O número de arcos examinados.
+     */
+    private long topDown(int lo, int hi) {
+        int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        int end = hi;
+        long scanned = 0;
+
+        for (int i = lo; i < hi; ++i) {
+            int u = order[i];
+            int next_level = level[u] + 1;
+            scanned += out_start[u+1] - out_start[u];
+
+            for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                int v = out_target[a];
+                long bit = 1L << v;
+
+                if ((visited[v >>> 6] & bit) != 0)
+                    continue;
+
+                visited[v >>> 6] |= bit;
+                parent[v] = u;
+                parent_edge[v] = out_edge[a];
+                level[v] = next_level;
+                order[end++] = v;
+            }
+        }
+
+        num_reached = end;
+        return scanned;
+    }
+
+    /**
+     * Expande a fronteira order[lo,hi) procurando, para cada vértice
+     * não visitado, um arco de entrada vindo da fronteira. O fim do
+     * próximo nível em order fica em num_reached.
+     * @return O número de arcos examinados.
+     */
+    private long bottomUp(int lo, int hi) {
+        int n = graph.num_vertex;
+        int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        int next_level = level[order[lo]] + 1;
+        int end = hi;
+        long scanned = 0;
+
+        Arrays.fill(frontier, 0);
+        for (int i = lo; i < hi; ++i)
+            frontier[order[i] >>> 6] |= 1L << order[i];
+
+        for (int w = 0; w < visited.length; ++w) {
+            long free = ~visited[w];
+
+            while (free != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(free);
+                free &= free - 1;
+
+                if (v >= n)
+                    break;
+
+                for (int a = in_start[v]; a < in_start[v+1]; ++a) {
+                    int u = in_source[a];
+                    ++scanned;
+
+                    if ((frontier[u >>> 6] & (1L << u)) != 0) {
+                        visited[w] |= 1L << v;
+                        parent[v] = u;
+                        parent_edge[v] = in_edge[a];
+                        level[v] = next_level;
+                        order[end++] = v;
+                        break;
+                    }
+                }
+            }
+        }
+
+        num_reached = end;
+        return scanned;
+    }
+
+    /**
+     * Retorna o vértice de onde a última busca começou.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o pai de v na árvore da busca, ou -1 caso v
+     * seja a origem ou não tenha sido alcançado.
+     */
+    public int getParent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Retorna a aresta que liga v ao seu pai na árvore
+     * da busca, ou -1 caso v não tenha pai.
+     */
+    public int getParentEdge(int v) {
+        return parent_edge[v];
+    }
+
+    /**
+     * Retorna o nível (distância em arestas até a origem) do
+     * vértice v, ou -1 caso ele não tenha sido alcançado.
+     */
+    public int getLevel(int v) {
+        return level[v];
+    }
+
+    /**
+     * Retorna o vetor de pais de todos os vértices.
+     * O vetor é interno à busca e não deve ser modificado.
+     */
+    public int[] getParents() {
+        return parent;
+    }
+
+    /**
+     * Retorna o vetor de níveis de todos os vértices.
+     * O vetor é interno à busca e não deve ser modificado.
+     */
+    public int[] getLevels() {
+        return level;
+    }
+
+    /**
+     * Retorna os vértices alcançados, na ordem da busca
+     * (agrupados por nível).
+     */
+    public int[] getOrder() {
+        int[] r = new int[num_reached];
+        System.arraycopy(order, 0, r, 0, num_reached);
+        return r;
+    }
+
+    /**
+     * Retorna o número de vértices alcançados.
+     */
+    public int getNumReached() {
+        return num_reached;
+    }
+
+    /**
+     * Retorna o número de níveis da árvore da busca, ou seja,
+     * a excentricidade da origem mais 1.
+     */
+    public int getNumLevels() {
+        int last = (num_reached == 0) ? -1 : level[order[num_reached-1]];
+        return last + 1;
+    }
+
+    /**
+     * Retorna quantos níveis foram expandidos no modo bottom-up.
+     */
+    public int getNumBottomUpSteps() {
+        return bottom_up_steps;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private int[] parent, parent_edge, level, order;
+    private long[] visited, frontier;
+    private int source, num_reached, bottom_up_steps;
+
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+}
@@ -0,0 +1,321 @@
+/*
+ * ConnectedComponents.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * ConnectedComponents
+ *
+ * Componentes conexas em paralelo, pelo algoritmo Afforest
+ * (Sutton et al.). Arestas direcionadas são tratadas como não
+ * direcionadas, ou seja, são calculadas as componentes fracamente
+ * conexas.
+ *
+ * As threads compartilham uma floresta de union-find sem locks: cada
+ * vértice aponta para um pai de índice menor, e uma união é um único
+ * compare-and-set que pendura a raiz maior na menor. O Afforest evita
+ * percorrer a maior parte das arestas:
+ *
+ * 1. Une cada vértice somente aos seus NEIGHBOR_ROUNDS primeiros
+ *    vizinhos, o que normalmente já forma a componente gigante.
+ * 2. Estima, por amostragem, qual é a maior componente até agora.
+ * 3. Percorre o restante das arestas somente dos vértices que não
+ *    estão nela, já que arestas internas à ela não mudam nada.
+ *
+ * No fim, as componentes são renumeradas de 0 à getNumComponents()-1,
+ * em ordem do menor vértice de cada uma.
+ *
+ * @author Giuliano Vilela
+ */
+public class ConnectedComponents {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public ConnectedComponents(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado depois de cada
+     * rodada de vizinhos e por cada thread ao fim do seu bloco na
+     * passada final. Com null (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula as componentes conexas.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public ConnectedComponents run() {
+        final int n = graph.num_vertex;
+        final int[] out_start = graph.out_start, out_target = graph.out_target;
+
+        parent = new AtomicIntegerArray(n);
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v)
+                    parent.set(v, v);
+            }
+        });
+
+        for (int r = 0; r < NEIGHBOR_ROUNDS; ++r) {
+            final int round = r;
+
+            Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    for (int v = from; v < to; ++v) {
+                        int a = out_start[v] + round;
+                        if (a < out_start[v+1])
+                            link(v, out_target[a]);
+                    }
+                }
+            });
+
+            compress();
+
+            if (control != null)
+                control.check(0, n);
+        }
+
+        final int giant = sampleLargest();
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                int[] in_start = graph.in_start, in_source = graph.in_source;
+                long arcs = 0;
+
+                for (int v = from; v < to; ++v) {
+                    if (parent.get(v) == giant)
+                        continue;
+
+                    arcs += out_start[v+1] - out_start[v];
+                    if (graph.directed)
+                        arcs += in_start[v+1] - in_start[v];
+
+                    for (int a = out_start[v] + NEIGHBOR_ROUNDS; a < out_start[v+1]; ++a)
+                        link(v, out_target[a]);
+
+                    /*
+                     * Num grafo direcionado, a aresta v->u com v na maior
+                     * componente só aparece nas adjacências de saída de v,
+                     * que foi pulado; u a vê pela entrada.
+                     */
+                    if (graph.directed) {
+                        for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                            link(v, in_source[a]);
+                    }
+                }
+
+                if (control != null)
+                    control.check(to - from, arcs);
+            }
+        });
+
+        compress();
+        label();
+
+        parent = null;
+        return this;
+    }
+
+    /**
+     * Une as árvores de u e v, pendurando a raiz de maior índice
+     * na de menor com um compare-and-set. Caso outra thread mude
+     * a raiz no meio do caminho, a operação é refeita.
+     */
+    private void link(int u, int v) {
+        int p1 = parent.get(u);
+        int p2 = parent.get(v);
+
+        while (p1 != p2) {
+            int high = Math.max(p1, p2);
+            int low = Math.min(p1, p2);
+            int p_high = parent.get(high);
+
+            if (p_high == low)
+                return;
+            if (p_high == high && parent.compareAndSet(high, high, low))
+                return;
+
+            p1 = parent.get(parent.get(high));
+            p2 = parent.get(low);
+        }
+    }
+
+    /**
+     * Faz cada vértice apontar diretamente para a sua raiz.
+     */
+    private void compress() {
+        Parallel.forRange(graph.num_vertex, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int p = parent.get(v);
+                    int pp = parent.get(p);
+
+                    while (p != pp) {
+                        parent.set(v, pp);
+                        p = pp;
+                        pp = parent.get(p);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Estima a raiz da maior componente, sorteando alguns
+     * vértices e escolhendo a raiz mais frequente entre eles.
+     */
+    private int sampleLargest() {
+        int n = graph.num_vertex;
+
+        if (n == 0)
+            return -1;
+
+        Random random = new Random(SEED);
+        int[] roots = new int[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; ++i)
+            roots[i] = parent.get(random.nextInt(n));
+
+        Arrays.sort(roots);
+
+        int best = roots[0], best_count = 0;
+
+        for (int i = 0, j; i < SAMPLES; i = j) {
+            for (j = i; j < SAMPLES && roots[j] == roots[i]; ++j);
+            if (j - i > best_count) {
+                best = roots[i];
+                best_count = j - i;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Renumera as raízes de 0 em diante, em ordem de índice, e
+     * conta o tamanho de cada componente. Os números de cada bloco
+     * de vértices começam na soma de prefixos das raízes dos
+     * blocos anteriores.
+     */
+    private void label() {
+        final int n = graph.num_vertex;
+        final int chunks = Parallel.getNumChunks(n, GRAIN);
+        final int[] roots = new int[chunks+1];
+
+        component = new int[n];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                int count = 0;
+                for (int v = from; v < to; ++v)
+                    if (parent.get(v) == v)
+                        ++count;
+                roots[worker+1] = count;
+            }
+        });
+
+        for (int c = 0; c < chunks; ++c)
+            roots[c+1] += roots[c];
+
+        num_components = roots[chunks];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                int id = roots[worker];
+                for (int v = from; v < to; ++v)
+                    if (parent.get(v) == v)
+                        component[v] = id++;
+            }
+        });
+
+        /*
+         * Depois da compressão, todo vértice aponta diretamente
+         * para a sua raiz, que já tem o número da componente.
+         */
+        size = new int[num_components];
+        for (int v = 0; v < n; ++v) {
+            component[v] = component[parent.get(v)];
+            ++size[component[v]];
+        }
+    }
+
+    /**
+     * Retorna a componente do vértice v.
+     */
+    public int getComponent(int v) {
+        return component[v];
+    }
+
+    /**
+     * Retorna o vetor de componentes de todos os vértices.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getComponents() {
+        return component;
+    }
+
+    /**
+     * Retorna o número de componentes conexas.
+     */
+    public int getNumComponents() {
+        return num_components;
+    }
+
+    /**
+     * Retorna o número de vértices da componente c.
+     */
+    public int getComponentSize(int c) {
+        return size[c];
+    }
+
+    /**
+     * Retorna o vetor de tamanhos de todas as componentes.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getComponentSizes() {
+        return size;
+    }
+
+    /**
+     * Retorna a componente com mais vértices, ou -1
+     * caso o grafo não tenha vértices.
+     */
+    public int getLargestComponent() {
+        int best = -1;
+        for (int c = 0; c < num_components; ++c)
+            if (best == -1 || size[c] > size[best])
+                best = c;
+        return best;
+    }
+
+    /**
+     * Indica se u e v estão na mesma componente.
+     */
+    public boolean connected(int u, int v) {
+        return component[u] == component[v];
+    }
+
+    private IndexedGraph<?> graph;
+    private AtomicIntegerArray parent;
+    private int[] component, size;
+    private int num_components;
+    private RunControl control;
+
+    private static final int NEIGHBOR_ROUNDS = 2;
+    private static final int SAMPLES = 1024;
+    private static final long SEED = 0x5eed;
+    private static final int GRAIN = 1 << 12;
+}
@@ -0,0 +1,428 @@
+/*
+ * DepthFirstSearch.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * DepthFirstSearch
+ *
+ * Busca em profundidade iterativa, com pilha explícita, sobre as
+ * adjacências indexadas do grafo. Como não usa recursão, não estoura
+ * a pilha da JVM em grafos profundos (caminhos com milhões de vértices).
+ *
+ * Cada vértice da pilha guarda um cursor para o próximo arco à ser
+ * examinado, e a mesma varredura calcula:
+ *
+ * - os tempos de descoberta e de término de cada vértice;
+ * - as componentes fortemente conexas, pelo algoritmo de Tarjan
+ *   (arestas não direcionadas valem nos dois sentidos);
+ * - os pontos de articulação e as pontes do grafo, considerando
+ *   todas as arestas como não direcionadas.
+ *
+ * Quando o grafo não tem arestas direcionadas, tudo é calculado numa
+ * única passada linear. Quando tem, os pontos de articulação e as pontes
+ * precisam de uma segunda passada, também linear, que percorre os
+ * arcos de entrada e de saída de cada vértice.
+ *
+ * @author Giuliano Vilela
+ */
+public class DepthFirstSearch {
+    /**
+     * Prepara a busca para rodar sobre o grafo graph.
+     */
+    public DepthFirstSearch(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada bloco de
+     * vértices terminados nas passadas. Com null (o padrão), a busca
+     * não é controlada.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Executa a busca à partir de todos os vértices, em ordem
+     * de índice, formando uma floresta de busca.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public DepthFirstSearch run() {
+        init();
+
+        for (int v = 0; v < graph.num_vertex; ++v)
+            if (discovery[v] == -1)
+                directedPass(v);
+
+        if (graph.directed) {
+            for (int v = 0; v < graph.num_vertex; ++v)
+                if (discovery2[v] == -1)
+                    undirectedPass(v);
+        }
+
+        return this;
+    }
+
+    /**
+     * Executa a busca somente à partir do vértice source.
+     * As componentes fortemente conexas são calculadas para os
+     * vértices alcançados, e os pontos de articulação e pontes
+     * para a componente (fracamente) conexa de source.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public DepthFirstSearch run(int source) {
+        init();
+        directedPass(source);
+
+        if (graph.directed)
+            undirectedPass(source);
+
+        return this;
+    }
+
+    private void init() {
+        int n = graph.num_vertex;
+
+        discovery = new int[n];
+        finish = new int[n];
+        parent = new int[n];
+        parent_edge = new int[n];
+        component = new int[n];
+        order = new int[n];
+        low = new int[n];
+        low2 = new int[n];
+        articulation = new boolean[n];
+        bridge = new boolean[graph.edge_start.length];
+
+        Arrays.fill(discovery, -1);
+        Arrays.fill(finish, -1);
+        Arrays.fill(parent, -1);
+        Arrays.fill(parent_edge, -1);
+        Arrays.fill(component, -1);
+
+        stack = new int[n];
+        cursor = new int[n];
+        scc_stack = new int[n];
+        on_stack = new boolean[n];
+
+        if (graph.directed) {
+            discovery2 = new int[n];
+            tree_edge = new int[n];
+            tree_parent = new int[n];
+            Arrays.fill(discovery2, -1);
+        }
+
+        clock = 0;
+        clock2 = 0;
+        num_reached = 0;
+        num_components = 0;
+        num_finished = 0;
+        finished_arcs = 0;
+    }
+
+    /**
+     * Busca à partir de root seguindo os arcos de saída. Calcula os
+     * tempos, as componentes fortemente conexas e, caso o grafo seja
+     * não direcionado, as articulações e pontes.
+     */
+    private void directedPass(int root) {
+        int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        boolean bicon = !graph.directed;
+        int sp = 0, scc_sp = 0, root_children = 0;
+
+        discovery[root] = low[root] = low2[root] = clock++;
+        order[num_reached++] = root;
+        cursor[root] = out_start[root];
+        stack[sp++] = root;
+        scc_stack[scc_sp++] = root;
+        on_stack[root] = true;
+
+        while (sp > 0) {
+            int v = stack[sp-1];
+
+            if (cursor[v] < out_start[v+1]) {
+                int a = cursor[v]++;
+                int w = out_target[a];
+                int e = out_edge[a];
+
+                if (discovery[w] == -1) {
+                    parent[w] = v;
+                    parent_edge[w] = e;
+                    discovery[w] = low[w] = low2[w] = clock++;
+                    order[num_reached++] = w;
+                    cursor[w] = out_start[w];
+                    stack[sp++] = w;
+                    scc_stack[scc_sp++] = w;
+                    on_stack[w] = true;
+                }
+                else {
+                    if (on_stack[w] && discovery[w] < low[v])
+                        low[v] = discovery[w];
+                    if (bicon && e != parent_edge[v] && discovery[w] < low2[v])
+                        low2[v] = discovery[w];
+                }
+                continue;
+            }
+
+            --sp;
+            finish[v] = clock++;
+            finished(cursor[v] - out_start[v]);
+
+            if (low[v] == discovery[v]) {
+                int w;
+                do {
+                    w = scc_stack[--scc_sp];
+                    on_stack[w] = false;
+                    component[w] = num_components;
+                } while (w != v);
+                ++num_components;
+            }
+
+            int p = parent[v];
+            if (p == -1)
+                continue;
+
+            if (low[v] < low[p])
+                low[p] = low[v];
+
+            if (bicon) {
+                finishBicon(v, p, p == root);
+                if (p == root)
+                    ++root_children;
+            }
+        }
+
+        if (bicon && root_children >= 2)
+            articulation[root] = true;
+    }
+
+    /**
+     * Busca à partir de root seguindo as arestas nos dois sentidos,
+     * calculando somente as articulações e pontes. Usada quando o
+     * grafo tem arestas direcionadas.
+     */
+    private void undirectedPass(int root) {
+        int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        boolean[] edge_directed = graph.edge_directed;
+        int sp = 0, root_children = 0;
+
+        discovery2[root] = low2[root] = clock2++;
+        tree_edge[root] = -1;
+        tree_parent[root] = -1;
+        cursor[root] = 0;
+        stack[sp++] = root;
+
+        while (sp > 0) {
+            int v = stack[sp-1];
+            int out_deg = out_start[v+1] - out_start[v];
+            int deg = out_deg + in_start[v+1] - in_start[v];
+
+            if (cursor[v] < deg) {
+                int c = cursor[v]++;
+                int w, e;
+
+                if (c < out_deg) {
+                    w = out_target[out_start[v] + c];
+                    e = out_edge[out_start[v] + c];
+                }
+                else {
+                    e = in_edge[in_start[v] + c - out_deg];
+                    if (!edge_directed[e])
+                        continue;
+                    w = in_source[in_start[v] + c - out_deg];
+                }
+
+                if (discovery2[w] == -1) {
+                    tree_edge[w] = e;
+                    tree_parent[w] = v;
+                    discovery2[w] = low2[w] = clock2++;
+                    cursor[w] = 0;
+                    stack[sp++] = w;
+                }
+                else if (e != tree_edge[v] && discovery2[w] < low2[v]) {
+                    low2[v] = discovery2[w];
+                }
+                continue;
+            }
+
+            --sp;
+            finished(deg);
+
+            int p = tree_parent[v];
+            if (p == -1)
+                continue;
+
+            if (low2[v] < low2[p])
+                low2[p] = low2[v];
+
+            if (low2[v] > discovery2[p])
+                bridge[tree_edge[v]] = true;
+
+            if (p == root)
+                ++root_children;
+            else if (low2[v] >= discovery2[p])
+                articulation[p] = true;
+        }
+
+        if (root_children >= 2)
+            articulation[root] = true;
+    }
+
+    /**
+     * Conta um vértice terminado com arcs arcos examinados, verificando
+     * o controle à cada CHECK_PERIOD vértices.
+     */
+    private void finished(int arcs) {
+        if (control == null)
+            return;
+
+        finished_arcs += arcs;
+        if (++num_finished == CHECK_PERIOD) {
+            control.check(num_finished, finished_arcs);
+            num_finished = 0;
+            finished_arcs = 0;
+        }
+    }
+
+    /**
+     * Atualiza as articulações e pontes quando o filho v de p termina,
+     * na passada única usada por grafos não direcionados.
+     */
+    private void finishBicon(int v, int p, boolean p_is_root) {
+        if (low2[v] < low2[p])
+            low2[p] = low2[v];
+
+        if (low2[v] > discovery[p])
+            bridge[parent_edge[v]] = true;
+
+        if (!p_is_root && low2[v] >= discovery[p])
+            articulation[p] = true;
+    }
+
+    /**
+     * Retorna o tempo de descoberta do vértice v, ou -1
+     * caso ele não tenha sido alcançado.
+     */
+    public int getDiscovery(int v) {
+        return discovery[v];
+    }
+
+    /**
+     * Retorna o tempo de término do vértice v, ou -1
+     * caso ele não tenha sido alcançado.
+     */
+    public int getFinish(int v) {
+        return finish[v];
+    }
+
+    /**
+     * Retorna o pai de v na floresta da busca, ou -1 caso
+     * v seja uma raiz ou não tenha sido alcançado.
+     */
+    public int getParent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Retorna a aresta que liga v ao seu pai na floresta
+     * da busca, ou -1 caso v não tenha pai.
+     */
+    public int getParentEdge(int v) {
+        return parent_edge[v];
+    }
+
+    /**
+     * Retorna os vértices alcançados, em ordem de descoberta.
+     */
+    public int[] getOrder() {
+        int[] r = new int[num_reached];
+        System.arraycopy(order, 0, r, 0, num_reached);
+        return r;
+    }
+
+    /**
+     * Retorna o número de vértices alcançados.
+     */
+    public int getNumReached() {
+        return num_reached;
+    }
+
+    /**
+     * Retorna o número de componentes fortemente conexas encontradas.
+     */
+    public int getNumComponents() {
+        return num_components;
+    }
+
+    /**
+     * Retorna a componente fortemente conexa de v, ou -1 caso
+     * ele não tenha sido alcançado. As componentes são numeradas
+     * em ordem topológica reversa do grafo de componentes.
+     */
+    public int getComponent(int v) {
+        return component[v];
+    }
+
+    /**
+     * Indica se v é um ponto de articulação.
+     */
+    public boolean isArticulation(int v) {
+        return articulation[v];
+    }
+
+    /**
+     * Retorna todos os pontos de articulação, em ordem de índice.
+     */
+    public int[] getArticulations() {
+        IntList r = new IntList();
+        for (int v = 0; v < articulation.length; ++v)
+            if (articulation[v])
+                r.add(v);
+        return r.toArray();
+    }
+
+    /**
+     * Indica se a aresta e é uma ponte.
+     */
+    public boolean isBridge(int e) {
+        return bridge[e];
+    }
+
+    /**
+     * Retorna todas as pontes, em ordem de índice.
+     */
+    public int[] getBridges() {
+        IntList r = new IntList();
+        for (int e = 0; e < bridge.length; ++e)
+            if (bridge[e])
+                r.add(e);
+        return r.toArray();
+    }
+
+    private IndexedGraph<?> graph;
+    private int[] discovery, finish, parent, parent_edge, component, order;
+    private int[] low, low2, discovery2;
+    private boolean[] articulation, bridge;
+    private int clock, clock2, num_reached, num_components;
+
+    /*
+     * Espaço de trabalho das passadas, reaproveitado por todas as raízes.
+     */
+    private int[] stack, cursor, scc_stack, tree_edge, tree_parent;
+    private boolean[] on_stack;
+
+    private RunControl control;
+    private int num_finished;
+    private long finished_arcs;
+
+    private static final int CHECK_PERIOD = 1 << 10;
+}
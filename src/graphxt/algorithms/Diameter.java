@@ -0,0 +1,307 @@
+/*
+ * Diameter.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Diameter
+ *
+ * Diâmetro e raio exatos, em número de arestas, com poucas buscas em
+ * largura. O sentido das arestas é ignorado. Em um grafo desconexo, o
+ * diâmetro é a maior distância finita (o maior diâmetro entre as
+ * componentes), e o raio é o da maior componente.
+ *
+ * O diâmetro de cada componente é calculado pelo iFUB (Crescenzi et
+ * al.). Duas varreduras duplas dão um limite inferior lb e um vértice
+ * central u: cada uma acha dois vértices a e b distantes, e a próxima
+ * começa no vértice de menor limite inferior de excentricidade (veja
+ * abaixo) depois das buscas à partir de a e de b. Em grafos como
+ * grades, ele fica bem mais no centro do que o meio de um caminho
+ * mínimo qualquer entre a e b. Com e = ecc(u), os vértices à distância i de
+ * u (a franja F_i) são percorridos de i = e para baixo, calculando as
+ * suas excentricidades. Depois de F_i, nenhum vértice mais perto de u
+ * tem excentricidade maior que 2(i-1), então o limite superior cai para
+ * 2(i-1), e o algoritmo para assim que lb o alcança. Em grafos reais,
+ * poucas franjas costumam bastar.
+ *
+ * Cada busca à partir de v atualiza os limites das excentricidades
+ * dos vértices da componente, à moda de Takes e Kosters:
+ *
+ *   max(d(v,w), ecc(v) - d(v,w)) <= ecc(w) <= ecc(v) + d(v,w)
+ *
+ * Componentes com menos vértices do que o diâmetro já achado mais 2
+ * não são visitadas. Para o raio, as buscas continuam enquanto algum
+ * vértice da maior componente pode ter excentricidade menor que o
+ * melhor raio achado.
+ *
+ * Todas as buscas usam o BreadthFirstSearch.
+ *
+ * @author Giuliano Vilela
+ */
+public class Diameter {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public Diameter(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, repassado para as buscas em
+     * largura. Com null (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula o diâmetro e o raio.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public Diameter run() {
+        final int n = graph.num_vertex;
+
+        view = graph.directed
+             ? new IndexedGraph<Object>(n, graph.edge_start, graph.edge_end, null, false)
+             : graph;
+        bfs = new BreadthFirstSearch(view);
+        bfs.setRunControl(control);
+
+        diameter = 0;
+        radius = 0;
+        center = -1;
+        endpoints = new int[] {-1, -1};
+        num_bfs = 0;
+
+        if (n == 0)
+            return this;
+
+        ConnectedComponents cc = new ConnectedComponents(view).run();
+        int k = cc.getNumComponents();
+        int[] comp = cc.getComponents();
+
+        first = new int[k+1];
+        members = new int[n];
+
+        for (int v = 0; v < n; ++v)
+            ++first[comp[v]+1];
+        for (int c = 0; c < k; ++c)
+            first[c+1] += first[c];
+
+        int[] pos = Arrays.copyOf(first, k);
+        for (int v = 0; v < n; ++v)
+            members[pos[comp[v]]++] = v;
+
+        long[] by_size = new long[k];
+        for (int c = 0; c < k; ++c)
+            by_size[c] = ((long)(n - cc.getComponentSize(c)) << 32) | c;
+        Arrays.sort(by_size);
+
+        largest = (int)by_size[0];
+        lower = new int[n];
+        upper = new int[n];
+        Arrays.fill(upper, Integer.MAX_VALUE);
+        radius = Integer.MAX_VALUE;
+
+        for (long key : by_size) {
+            int c = (int)key;
+            int size = first[c+1] - first[c];
+
+            if (c != largest && size - 1 <= diameter)
+                break;
+
+            fringeUpperBound(c);
+        }
+
+        shrinkRadius();
+
+        view = null;
+        bfs = null;
+        first = members = lower = upper = null;
+        return this;
+    }
+
+    /**
+     * iFUB sobre a componente c.
+     */
+    private void fringeUpperBound(int c) {
+        int r = members[first[c]];
+
+        for (int i = first[c]; i < first[c+1]; ++i) {
+            int v = members[i];
+            if (degree(v) > degree(r))
+                r = v;
+        }
+
+        int lb = 0;
+
+        for (int sweep = 0; sweep < 2; ++sweep) {
+            eccentricity(r, c);
+            lb = Math.max(lb, eccentricity(far, c));
+            eccentricity(far, c);
+
+            for (int i = first[c]; i < first[c+1]; ++i) {
+                int v = members[i];
+                if (lower[v] < lower[r] || lower[v] == lower[r] && degree(v) > degree(r))
+                    r = v;
+            }
+        }
+
+        int u = r;
+        int e = eccentricity(u, c);
+        lb = Math.max(lb, e);
+
+        int[] order = bfs.getOrder();
+        int[] fringe_start = new int[e+2];
+
+        for (int v : order)
+            ++fringe_start[bfs.getLevel(v)+1];
+        for (int i = 0; i <= e; ++i)
+            fringe_start[i+1] += fringe_start[i];
+
+        int ub = 2 * e;
+
+        for (int i = e; i > 0 && lb < ub; --i) {
+            for (int j = fringe_start[i]; j < fringe_start[i+1] && lb < ub; ++j)
+                lb = Math.max(lb, eccentricity(order[j], c));
+
+            if (lb > 2 * (i - 1))
+                break;
+
+            ub = 2 * (i - 1);
+        }
+    }
+
+    /**
+     * Busca à partir de x, na componente c. Guarda em far o vértice
+     * mais distante e atualiza o diâmetro, o raio e os limites
+     * inferiores das excentricidades.
+     * @return A excentricidade de x.
+     */
+    private int eccentricity(int x, int c) {
+        bfs.run(x);
+        ++num_bfs;
+
+        int[] level = bfs.getLevels();
+        int ecc = 0;
+        far = x;
+
+        for (int i = first[c]; i < first[c+1]; ++i) {
+            int w = members[i];
+            if (level[w] > ecc) {
+                ecc = level[w];
+                far = w;
+            }
+        }
+
+        if (ecc > diameter) {
+            diameter = ecc;
+            endpoints[0] = x;
+            endpoints[1] = far;
+        }
+
+        if (c == largest && ecc < radius) {
+            radius = ecc;
+            center = x;
+        }
+
+        for (int i = first[c]; i < first[c+1]; ++i) {
+            int w = members[i];
+            lower[w] = Math.max(lower[w], Math.max(level[w], ecc - level[w]));
+            upper[w] = Math.min(upper[w], ecc + level[w]);
+        }
+
+        return ecc;
+    }
+
+    /**
+     * Testa os vértices da maior componente que ainda podem ter
+     * excentricidade menor que o raio atual. As buscas alternam entre
+     * o candidato de menor limite inferior e o vértice de maior limite
+     * superior ainda não exato, que tende a estar na periferia e a dar
+     * limites inferiores justos para os outros.
+     */
+    private void shrinkRadius() {
+        int c = largest;
+        boolean periphery = false;
+
+        while (true) {
+            int w = -1, p = -1;
+
+            for (int i = first[c]; i < first[c+1]; ++i) {
+                int v = members[i];
+
+                if (lower[v] < radius && (w == -1 || lower[v] < lower[w]
+                        || lower[v] == lower[w] && degree(v) > degree(w)))
+                    w = v;
+
+                if (lower[v] < upper[v] && (p == -1 || upper[v] > upper[p]))
+                    p = v;
+            }
+
+            if (w == -1)
+                return;
+
+            eccentricity(periphery && p != -1 ? p : w, c);
+            periphery = !periphery;
+        }
+    }
+
+    private int degree(int v) {
+        return view.out_start[v+1] - view.out_start[v];
+    }
+
+    /**
+     * Retorna o diâmetro: a maior distância finita entre dois vértices.
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * Retorna o raio da maior componente: a menor excentricidade.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Retorna um vértice de excentricidade igual ao raio,
+     * ou -1 caso o grafo não tenha vértices.
+     */
+    public int getCenter() {
+        return center;
+    }
+
+    /**
+     * Retorna dois vértices à distância igual ao diâmetro, ou
+     * {-1,-1} caso o grafo não tenha arestas entre vértices distintos.
+     */
+    public int[] getEndpoints() {
+        return endpoints.clone();
+    }
+
+    /**
+     * Retorna o número de buscas em largura feitas.
+     */
+    public int getNumBFS() {
+        return num_bfs;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private int diameter, radius, center;
+    private int[] endpoints;
+    private int num_bfs;
+
+    private IndexedGraph<?> view;
+    private BreadthFirstSearch bfs;
+    private int[] first, members, lower, upper;
+    private int largest, far;
+}
@@ -0,0 +1,126 @@
+/*
+ * DisjointSet.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * DisjointSet
+ *
+ * Estrutura union-find sobre os inteiros de 0 à n-1,
+ * com união por rank e compressão de caminho por halving.
+ * Cada operação custa tempo amortizado quase constante.
+ *
+ * @author Giuliano Vilela
+ */
+public class DisjointSet {
+    /**
+     * Cria n conjuntos unitários, {0}, {1}, ..., {n-1}.
+     */
+    public DisjointSet(int n) {
+        parent = new int[Math.max(n, 1)];
+        rank = new byte[parent.length];
+        num_elements = n;
+        num_sets = n;
+
+        for (int i = 0; i < n; ++i)
+            parent[i] = i;
+    }
+
+    /**
+     * Cria um novo conjunto unitário com o próximo inteiro,
+     * dobrando a capacidade interna quando necessário.
+     * @return O novo elemento, size()-1.
+     */
+    public int add() {
+        int x = num_elements;
+
+        if (x == parent.length) {
+            parent = Arrays.copyOf(parent, 2 * x);
+            rank = Arrays.copyOf(rank, 2 * x);
+        }
+
+        parent[x] = x;
+        rank[x] = 0;
+        ++num_elements;
+        ++num_sets;
+        return x;
+    }
+
+    /**
+     * Retorna o representante do conjunto que contém x.
+     */
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Retorna o representante do conjunto que contém x sem
+     * comprimir o caminho. Como não escreve na estrutura, pode
+     * ser chamado por várias threads ao mesmo tempo, desde que
+     * nenhuma união esteja acontecendo.
+     */
+    int root(int x) {
+        while (parent[x] != x)
+            x = parent[x];
+        return x;
+    }
+
+    /**
+     * Une os conjuntos que contêm x e y.
+     * @return false caso x e y já estivessem no mesmo conjunto.
+     */
+    public boolean union(int x, int y) {
+        x = find(x);
+        y = find(y);
+
+        if (x == y)
+            return false;
+
+        if (rank[x] < rank[y]) {
+            int tmp = x;
+            x = y;
+            y = tmp;
+        }
+
+        parent[y] = x;
+        if (rank[x] == rank[y])
+            ++rank[x];
+
+        --num_sets;
+        return true;
+    }
+
+    /**
+     * Indica se x e y estão no mesmo conjunto.
+     */
+    public boolean connected(int x, int y) {
+        return find(x) == find(y);
+    }
+
+    /**
+     * Retorna o número de conjuntos disjuntos.
+     */
+    public int getNumSets() {
+        return num_sets;
+    }
+
+    /**
+     * Retorna o número de elementos.
+     */
+    public int size() {
+        return num_elements;
+    }
+
+    private int[] parent;
+    private byte[] rank;
+    private int num_elements, num_sets;
+}
@@ -0,0 +1,482 @@
+/*
+ * DynamicShortestPaths.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import graphxt.model.Edge;
+import graphxt.model.Graph;
+import graphxt.model.GraphListener;
+import graphxt.model.Vertex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DynamicShortestPaths<T>
+ *
+ * Caminhos mínimos de uma origem mantidos incrementalmente, à moda de
+ * Ramalingam e Reps. Depois de run(), o objeto se registra como
+ * GraphListener do grafo e, à cada modificação, conserta somente a
+ * parte afetada da árvore de caminhos mínimos, sem refazer o Dijkstra
+ * inteiro. Os pesos das arestas (a informação guardada por elas)
+ * devem ser não negativos.
+ *
+ * Inserção de aresta ou diminuição de peso: caso o arco u->v passe a
+ * melhorar a distância de v, um Dijkstra à partir de v propaga as
+ * melhorias, parando nos vértices que não melhoram.
+ *
+ * Remoção de aresta ou aumento de peso: só importa se o arco u->v é o
+ * pai de v na árvore. Os descendentes de v são visitados em ordem de
+ * distância, e um vértice só é considerado afetado caso não tenha outro
+ * arco justo (que realiza a distância) vindo de um vértice não afetado
+ * de distância estritamente menor; caso tenha, esse arco vira o novo
+ * pai e a subárvore dele não é visitada. Os vértices afetados recebem
+ * a melhor distância dos seus vizinhos de entrada não afetados, e um
+ * Dijkstra restrito à eles termina o conserto.
+ *
+ * Os avisos do grafo chegam depois da modificação já feita, e não
+ * podem ser recusados. Caso uma aresta passe a ter peso negativo (ou
+ * nulo), os caminhos ficam inválidos (isValid() retorna false) e as
+ * atualizações são suspensas até que todas as arestas voltem a ter
+ * pesos válidos, quando os caminhos são recalculados do zero.
+ *
+ * @author Giuliano Vilela
+ */
+public class DynamicShortestPaths<T> implements GraphListener<T,Integer> {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph,
+     * à partir do vértice source.
+     */
+    public DynamicShortestPaths(Graph<T,Integer> graph, Vertex<T> source) {
+        this.graph = graph;
+        this.source = source;
+    }
+
+    /**
+     * Calcula os caminhos mínimos do zero e passa a acompanhar
+     * as modificações do grafo.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws IllegalArgumentException Caso alguma aresta tenha peso negativo.
+     */
+    public DynamicShortestPaths<T> run() {
+        graph.removeGraphListener(this);
+
+        invalid = Collections.newSetFromMap(new IdentityHashMap<Edge<T,Integer>,Boolean>());
+        num_updates = 0;
+        compute();
+
+        graph.addGraphListener(this);
+        return this;
+    }
+
+    /**
+     * Calcula os caminhos mínimos do zero, sobre o grafo atual.
+     */
+    private void compute() {
+        index = new HashMap<Vertex<T>,Integer>();
+        vertices = new ArrayList<Vertex<T>>();
+        parent = new ArrayList<Edge<T,Integer>>();
+        dist = new long[0];
+        stamp = new int[0];
+        cur_stamp = 0;
+
+        for (Vertex<T> v : graph.getVertexSet())
+            add(v);
+
+        for (Edge<T,Integer> e : graph.getEdgeSet())
+            weight(e);
+
+        Integer s = index.get(source);
+        num_affected = 0;
+
+        if (s != null) {
+            dist[s] = 0;
+            heap.push(s, 0);
+            propagate();
+        }
+    }
+
+    /**
+     * Deixa de acompanhar as modificações do grafo. As distâncias
+     * ficam congeladas no estado atual.
+     */
+    public void detach() {
+        graph.removeGraphListener(this);
+    }
+
+    public void vertexInserted(Vertex<T> vert) {
+        ++num_updates;
+        if (!isValid())
+            return;
+
+        int v = add(vert);
+
+        if (vert.equals(source)) {
+            dist[v] = 0;
+            parent.set(v, null);
+        }
+
+        num_affected = 1;
+    }
+
+    public void vertexRemoved(Vertex<T> vert) {
+        ++num_updates;
+        if (!isValid())
+            return;
+
+        Integer v = index.remove(vert);
+
+        if (v != null) {
+            vertices.set(v, null);
+            parent.set(v, null);
+            dist[v] = INF;
+        }
+
+        num_affected = 1;
+    }
+
+    public void edgeInserted(Edge<T,Integer> edge) {
+        ++num_updates;
+        if (track(edge, isValidWeight(edge.getData())))
+            return;
+
+        num_affected = 0;
+        decreased(edge);
+    }
+
+    public void edgeRemoved(Edge<T,Integer> edge) {
+        ++num_updates;
+        if (track(edge, true))
+            return;
+
+        num_affected = 0;
+        increased(edge);
+    }
+
+    public void edgeChanged(Edge<T,Integer> edge, Integer old) {
+        ++num_updates;
+        if (track(edge, isValidWeight(edge.getData())))
+            return;
+
+        int w = edge.getData();
+        num_affected = 0;
+
+        if (old == null || w < old)
+            decreased(edge);
+        else if (w > old)
+            increased(edge);
+    }
+
+    /**
+     * Marca edge como tendo peso válido ou não. Caso a última aresta
+     * inválida deixe de ser, os caminhos são recalculados do zero.
+     * @return true caso a atualização incremental deva ser pulada,
+     *         porque os caminhos estão inválidos ou foram recalculados.
+     */
+    private boolean track(Edge<T,Integer> edge, boolean valid) {
+        boolean was_valid = isValid();
+
+        if (valid)
+            invalid.remove(edge);
+        else
+            invalid.add(edge);
+
+        if (!isValid())
+            return true;
+
+        if (!was_valid) {
+            compute();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * O arco (ou os dois arcos, caso a aresta não seja direcionada)
+     * de edge ficou mais barato ou acabou de ser criado.
+     */
+    private void decreased(Edge<T,Integer> edge) {
+        relax(edge, edge.getStart(), edge.getEnd());
+        if (!edge.isDirected())
+            relax(edge, edge.getEnd(), edge.getStart());
+        propagate();
+    }
+
+    /**
+     * O arco (ou os dois arcos) de edge ficou mais caro ou foi removido.
+     * Somente o extremo que tem edge como pai na árvore é afetado.
+     */
+    private void increased(Edge<T,Integer> edge) {
+        Integer v = index.get(edge.getEnd());
+
+        if ((v == null || parent.get(v) != edge) && !edge.isDirected())
+            v = index.get(edge.getStart());
+
+        if (v != null && parent.get(v) == edge)
+            repair(v);
+    }
+
+    /**
+     * Tenta melhorar a distância de y pelo arco x->y da aresta edge.
+     */
+    private void relax(Edge<T,Integer> edge, Vertex<T> x, Vertex<T> y) {
+        Integer u = index.get(x), v = index.get(y);
+
+        if (u == null || v == null || dist[u] == INF)
+            return;
+
+        long d = dist[u] + edge.getData();
+
+        if (d < dist[v]) {
+            dist[v] = d;
+            parent.set(v, edge);
+            heap.push(v, d);
+        }
+    }
+
+    /**
+     * Dijkstra à partir dos vértices que estão no heap, com as
+     * suas distâncias já melhoradas.
+     */
+    private void propagate() {
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            Vertex<T> x = vertices.get(u);
+
+            ++num_affected;
+
+            for (Edge<T,Integer> e : graph.getConnectedEdges(x))
+                if (isOutgoing(e, x))
+                    relax(e, x, e.getOposite(x));
+        }
+    }
+
+    /**
+     * Conserta a subárvore de r, cujo arco pai ficou mais caro
+     * ou foi removido.
+     */
+    private void repair(int r) {
+        ArrayList<Integer> affected = new ArrayList<Integer>();
+        int mark = ++cur_stamp;
+
+        heap.push(r, dist[r]);
+
+        while (!heap.isEmpty()) {
+            int v = heap.pop();
+            Vertex<T> y = vertices.get(v);
+            Edge<T,Integer> alt = null;
+
+            ++num_affected;
+
+            for (Edge<T,Integer> e : graph.getConnectedEdges(y)) {
+                if (e == parent.get(v) || !isIncoming(e, y))
+                    continue;
+
+                Integer u = index.get(e.getOposite(y));
+
+                if (u != null && stamp[u] != mark && dist[u] < dist[v]
+                        && dist[u] + e.getData() == dist[v]) {
+                    alt = e;
+                    break;
+                }
+            }
+
+            if (alt != null) {
+                parent.set(v, alt);
+                continue;
+            }
+
+            stamp[v] = mark;
+            affected.add(v);
+
+            for (Edge<T,Integer> e : graph.getConnectedEdges(y)) {
+                if (!isOutgoing(e, y))
+                    continue;
+
+                Integer w = index.get(e.getOposite(y));
+                if (w != null && parent.get(w) == e && stamp[w] != mark)
+                    heap.push(w, dist[w]);
+            }
+        }
+
+        for (int v : affected) {
+            dist[v] = INF;
+            parent.set(v, null);
+        }
+
+        for (int v : affected) {
+            Vertex<T> y = vertices.get(v);
+
+            for (Edge<T,Integer> e : graph.getConnectedEdges(y))
+                if (isIncoming(e, y) && !isSelfLoop(e))
+                    relax(e, e.getOposite(y), y);
+        }
+
+        propagate();
+    }
+
+    /**
+     * Indica se e é um arco que sai de x.
+     */
+    private boolean isOutgoing(Edge<T,Integer> e, Vertex<T> x) {
+        return !e.isDirected() || e.getStart().equals(x);
+    }
+
+    /**
+     * Indica se e é um arco que chega em x.
+     */
+    private boolean isIncoming(Edge<T,Integer> e, Vertex<T> x) {
+        return !e.isDirected() || e.getEnd().equals(x);
+    }
+
+    private boolean isSelfLoop(Edge<T,Integer> e) {
+        return e.getStart().equals(e.getEnd());
+    }
+
+    /**
+     * Verifica se o peso da aresta e é válido.
+     */
+    private void weight(Edge<T,Integer> e) {
+        if (!isValidWeight(e.getData()))
+            throw new IllegalArgumentException("Edge weights must be non-negative.");
+    }
+
+    private static boolean isValidWeight(Integer w) {
+        return w != null && w >= 0;
+    }
+
+    /**
+     * Dá um índice para o vértice vert, caso ele ainda não tenha,
+     * aumentando os vetores internos quando necessário.
+     */
+    private int add(Vertex<T> vert) {
+        Integer id = index.get(vert);
+        if (id != null)
+            return id;
+
+        int v = vertices.size();
+
+        if (v == dist.length) {
+            int cap = Math.max(16, 2 * v);
+            int old = dist.length;
+
+            dist = Arrays.copyOf(dist, cap);
+            stamp = Arrays.copyOf(stamp, cap);
+            Arrays.fill(dist, old, cap, INF);
+            heap = new IndexedHeap(cap);
+        }
+
+        index.put(vert, v);
+        vertices.add(vert);
+        parent.add(null);
+        return v;
+    }
+
+    /**
+     * Indica se os caminhos correspondem ao grafo atual. Enquanto
+     * alguma aresta tiver peso negativo ou nulo, as consultas
+     * retornam os caminhos da última versão válida do grafo.
+     */
+    public boolean isValid() {
+        return invalid.isEmpty();
+    }
+
+    /**
+     * Retorna o número de modificações do grafo recebidas
+     * desde o último run().
+     */
+    public int getNumUpdates() {
+        return num_updates;
+    }
+
+    /**
+     * Indica se vert é alcançável à partir da origem.
+     */
+    public boolean isReachable(Vertex<T> vert) {
+        Integer v = index.get(vert);
+        return v != null && dist[v] != INF;
+    }
+
+    /**
+     * Retorna a distância da origem até vert, ou -1
+     * caso vert não seja alcançável.
+     */
+    public long getDistance(Vertex<T> vert) {
+        return isReachable(vert) ? dist[index.get(vert)] : -1;
+    }
+
+    /**
+     * Retorna a aresta pela qual vert é alcançado na árvore de
+     * caminhos mínimos, ou null caso vert seja a origem ou não
+     * seja alcançável.
+     */
+    public Edge<T,Integer> getParentEdge(Vertex<T> vert) {
+        Integer v = index.get(vert);
+        return (v == null) ? null : parent.get(v);
+    }
+
+    /**
+     * Retorna as arestas de um caminho mínimo da origem até vert,
+     * em ordem, ou uma lista vazia caso vert não seja alcançável.
+     */
+    public List<Edge<T,Integer>> getPath(Vertex<T> vert) {
+        ArrayList<Edge<T,Integer>> path = new ArrayList<Edge<T,Integer>>();
+
+        if (!isReachable(vert))
+            return path;
+
+        Edge<T,Integer> e;
+        while ((e = getParentEdge(vert)) != null) {
+            path.add(e);
+            vert = e.getOposite(vert);
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Retorna o grafo acompanhado.
+     */
+    public Graph<T,Integer> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Retorna a origem dos caminhos.
+     */
+    public Vertex<T> getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o número de vértices visitados pela última atualização
+     * (ou pelo run(), caso nenhuma modificação tenha ocorrido depois).
+     */
+    public int getNumAffected() {
+        return num_affected;
+    }
+
+    private Graph<T,Integer> graph;
+    private Vertex<T> source;
+
+    private HashMap<Vertex<T>,Integer> index;
+    private ArrayList<Vertex<T>> vertices;
+    private ArrayList<Edge<T,Integer>> parent;
+    private long[] dist;
+    private int[] stamp;
+    private int cur_stamp;
+    private IndexedHeap heap;
+    private int num_affected, num_updates;
+    private Set<Edge<T,Integer>> invalid;
+
+    private static final long INF = Long.MAX_VALUE;
+}
@@ -0,0 +1,269 @@
+/*
+ * FilterKruskal.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Random;
+
+/**
+ * FilterKruskal
+ *
+ * Implementação do algoritmo Filter-Kruskal para achar a floresta
+ * de espalhamento mínima de um grafo (o direcionamento das arestas
+ * é ignorado).
+ *
+ * As arestas são guardadas em um único vetor de long, onde cada
+ * posição contém o peso da aresta nos 32 bits mais altos e o seu
+ * índice nos 32 bits mais baixos, de modo que a ordem natural
+ * dos long's é a ordem por peso. O vetor é particionado em torno
+ * de um pivô, como no quicksort: a parte leve é resolvida primeiro
+ * e, antes de descer na parte pesada, são descartadas todas as
+ * arestas cujos extremos já estão no mesmo componente. Somente
+ * partições pequenas chegam a ser ordenadas, e em grafos densos a
+ * maior parte das arestas pesadas é descartada sem nunca ter sido
+ * ordenada.
+ *
+ * Com mais de uma thread, o caso base tem o dobro do tamanho mínimo
+ * que o Parallel.sort divide entre as threads, de modo que as partições
+ * que chegam nele são, em geral, ordenadas em paralelo. O filtro de
+ * intervalos grandes também é paralelo. Com uma única thread, o caso
+ * base volta a ser pequeno, como no Filter-Kruskal sequencial.
+ *
+ * @author Giuliano Vilela
+ */
+public class FilterKruskal {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public FilterKruskal(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado depois de cada caso
+     * base e de cada filtro. Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula a floresta de espalhamento mínima.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public FilterKruskal run() {
+        int n = graph.getNumVertex();
+        int m = graph.getNumEdges();
+
+        keys = new long[m];
+        int k = 0;
+
+        for (int e = 0; e < m; ++e) {
+            if (graph.edge_start[e] == graph.edge_end[e])
+                continue;
+            keys[k++] = ((long)graph.edge_weight[e] << 32) | e;
+        }
+
+        sets = new DisjointSet(n);
+        tree = new int[Math.max(n-1, 0)];
+        num_tree = 0;
+        total_weight = 0;
+        random = new Random(n * 31L + m);
+
+        filterKruskal(0, k);
+
+        keys = null;
+        return this;
+    }
+
+    /**
+     * Resolve as arestas em keys[lo,hi).
+     */
+    private void filterKruskal(int lo, int hi) {
+        if (treeComplete() || lo >= hi)
+            return;
+
+        if (hi - lo <= BASE_CASE) {
+            kruskal(lo, hi);
+            return;
+        }
+
+        long pivot = pickPivot(lo, hi);
+        int mid = partition(lo, hi, pivot);
+
+        // As chaves são distintas e o pivô é uma delas, então a parte
+        // pesada nunca fica vazia; a leve só fica caso o pivô sorteado
+        // seja a menor chave.
+        if (mid == lo) {
+            kruskal(lo, hi);
+            return;
+        }
+
+        filterKruskal(lo, mid);
+
+        if (treeComplete())
+            return;
+
+        int end = filter(mid, hi);
+
+        if (control != null)
+            control.check(0, hi - mid);
+
+        filterKruskal(mid, end);
+    }
+
+    /**
+     * Kruskal clássico: ordena keys[lo,hi) com o Parallel.sort e
+     * insere as arestas na ordem.
+     */
+    private void kruskal(int lo, int hi) {
+        int before = num_tree;
+        Parallel.sort(keys, lo, hi);
+
+        for (int i = lo; i < hi && !treeComplete(); ++i) {
+            int e = (int)keys[i];
+
+            if (sets.union(graph.edge_start[e], graph.edge_end[e])) {
+                tree[num_tree++] = e;
+                total_weight += graph.edge_weight[e];
+            }
+        }
+
+        if (control != null)
+            control.check(num_tree - before, hi - lo);
+    }
+
+    /**
+     * Escolhe como pivô a mediana de três chaves aleatórias de keys[lo,hi).
+     */
+    private long pickPivot(int lo, int hi) {
+        long a = keys[lo + random.nextInt(hi-lo)];
+        long b = keys[lo + random.nextInt(hi-lo)];
+        long c = keys[lo + random.nextInt(hi-lo)];
+
+        if (a > b) { long t = a; a = b; b = t; }
+        if (b > c) { b = c; }
+        return Math.max(a, b);
+    }
+
+    /**
+     * Particiona keys[lo,hi) em chaves menores que pivot, seguidas
+     * das chaves maiores ou iguais à pivot.
+     * @return O índice da primeira chave maior ou igual à pivot.
+     */
+    private int partition(int lo, int hi, long pivot) {
+        int i = lo, j = hi-1;
+
+        while (true) {
+            while (i <= j && keys[i] < pivot) ++i;
+            while (i <= j && keys[j] >= pivot) --j;
+
+            if (i >= j)
+                return i;
+
+            long t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+    }
+
+    /**
+     * Remove de keys[lo,hi) as arestas que ligam vértices de um
+     * mesmo componente, compactando as restantes no início do intervalo.
+     * Intervalos grandes são filtrados em paralelo, cada thread
+     * compactando o seu bloco com consultas somente de leitura.
+     *
+     * @return O fim do intervalo compactado.
+     */
+    private int filter(final int lo, int hi) {
+        final int n = hi - lo;
+
+        if (n < FILTER_GRAIN * 2) {
+            int k = lo;
+            for (int i = lo; i < hi; ++i) {
+                int e = (int)keys[i];
+                if (sets.find(graph.edge_start[e]) != sets.find(graph.edge_end[e]))
+                    keys[k++] = keys[i];
+            }
+            return k;
+        }
+
+        final int chunks = Parallel.getNumChunks(n, FILTER_GRAIN);
+        final int[] count = new int[chunks];
+
+        Parallel.forRange(n, FILTER_GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                int k = lo + from;
+                for (int i = lo + from; i < lo + to; ++i) {
+                    int e = (int)keys[i];
+                    if (sets.root(graph.edge_start[e]) != sets.root(graph.edge_end[e]))
+                        keys[k++] = keys[i];
+                }
+                count[worker] = k - (lo + from);
+            }
+        });
+
+        long size = n;
+        int k = lo;
+
+        for (int c = 0; c < chunks; ++c) {
+            int from = lo + (int)(size*c/chunks);
+            System.arraycopy(keys, from, keys, k, count[c]);
+            k += count[c];
+        }
+
+        return k;
+    }
+
+    private boolean treeComplete() {
+        return num_tree == tree.length;
+    }
+
+    /**
+     * Retorna o número de arestas na floresta mínima.
+     */
+    public int getNumTreeEdges() {
+        return num_tree;
+    }
+
+    /**
+     * Retorna os índices das arestas da floresta mínima,
+     * na ordem em que foram escolhidas (pesos não decrescentes).
+     */
+    public int[] getTreeEdges() {
+        int[] r = new int[num_tree];
+        System.arraycopy(tree, 0, r, 0, num_tree);
+        return r;
+    }
+
+    /**
+     * Retorna a soma dos pesos das arestas da floresta mínima.
+     */
+    public long getTotalWeight() {
+        return total_weight;
+    }
+
+    /**
+     * Retorna o número de componentes conexos do grafo.
+     */
+    public int getNumComponents() {
+        return sets.getNumSets();
+    }
+
+    private IndexedGraph<?> graph;
+    private long[] keys;
+    private DisjointSet sets;
+    private int[] tree;
+    private int num_tree;
+    private long total_weight;
+    private Random random;
+    private RunControl control;
+
+    private static final int BASE_CASE = (Parallel.getParallelism() > 1) ? 2 * Parallel.getSortThreshold() : 1 << 12;
+    private static final int FILTER_GRAIN = 1 << 14;
+}
@@ -0,0 +1,175 @@
+/*
+ * FlowNetwork.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+/**
+ * FlowNetwork
+ *
+ * Grafo residual usado pelos algoritmos de fluxo. Cada aresta do
+ * grafo original gera um par de arcos, um em cada sentido, e cada
+ * arco guarda o índice do seu par (rev), de modo que empurrar fluxo
+ * por um arco é somente subtrair da sua capacidade residual e somar
+ * à do seu par.
+ *
+ * Uma aresta direcionada u->v de capacidade c gera os arcos u->v
+ * (capacidade c) e v->u (capacidade 0). Uma aresta não direcionada
+ * gera os dois arcos com capacidade c. Laços são ignorados.
+ *
+ * Quando a rede é usada com custos, uma aresta não direcionada não pode
+ * ser representada por um único par (o custo do arco reverso dependeria
+ * do sentido do fluxo). Nesse caso ela é separada em duas arestas
+ * direcionadas independentes, u->v e v->u, cada uma com o seu par.
+ *
+ * Os arcos ficam agrupados pelo vértice de origem, em formato CSR.
+ *
+ * @author Giuliano Vilela
+ */
+class FlowNetwork {
+    /**
+     * Monta a rede residual do grafo graph, onde a capacidade de
+     * cada aresta é o seu peso.
+     */
+    FlowNetwork(IndexedGraph<?> graph) {
+        this(graph, graph.edge_weight, false);
+    }
+
+    /**
+     * Monta a rede residual do grafo graph com as capacidades em
+     * capacity (indexado por aresta). Caso split seja true, arestas
+     * não direcionadas são separadas em duas arestas direcionadas.
+     * @throws IllegalArgumentException Caso alguma capacidade seja negativa.
+     */
+    FlowNetwork(IndexedGraph<?> graph, int[] capacity, boolean split) {
+        int n = graph.num_vertex;
+        int m = graph.edge_start.length;
+
+        num_vertex = n;
+        start = new int[n+1];
+        edge_arc = new int[m];
+        edge_back = new int[m];
+
+        for (int e = 0; e < m; ++e) {
+            if (capacity[e] < 0)
+                throw new IllegalArgumentException("Edge " + e + " has a negative capacity.");
+
+            if (graph.edge_start[e] == graph.edge_end[e])
+                continue;
+
+            int pairs = (split && !graph.edge_directed[e]) ? 2 : 1;
+            start[graph.edge_start[e]+1] += pairs;
+            start[graph.edge_end[e]+1] += pairs;
+        }
+
+        for (int v = 0; v < n; ++v)
+            start[v+1] += start[v];
+
+        int arcs = start[n];
+        int[] pos = new int[n];
+        System.arraycopy(start, 0, pos, 0, n);
+
+        head = new int[arcs];
+        rev = new int[arcs];
+        cap = new long[arcs];
+        original = new long[arcs];
+        arc_edge = new int[arcs];
+
+        for (int e = 0; e < m; ++e) {
+            int u = graph.edge_start[e], v = graph.edge_end[e];
+            long c = capacity[e];
+
+            edge_arc[e] = edge_back[e] = -1;
+
+            if (u == v)
+                continue;
+
+            if (split && !graph.edge_directed[e]) {
+                edge_arc[e] = addPair(pos, e, u, v, c, 0);
+                edge_back[e] = addPair(pos, e, v, u, c, 0);
+            }
+            else {
+                edge_arc[e] = addPair(pos, e, u, v, c, graph.edge_directed[e] ? 0 : c);
+            }
+        }
+    }
+
+    /**
+     * Adiciona o arco u->v de capacidade c e o seu par v->u de
+     * capacidade c_rev, retornando o índice do primeiro.
+     */
+    private int addPair(int[] pos, int e, int u, int v, long c, long c_rev) {
+        int a = pos[u]++, b = pos[v]++;
+
+        head[a] = v;
+        head[b] = u;
+        rev[a] = b;
+        rev[b] = a;
+        original[a] = cap[a] = c;
+        original[b] = cap[b] = c_rev;
+        arc_edge[a] = arc_edge[b] = e;
+
+        return a;
+    }
+
+    /**
+     * Restaura todas as capacidades residuais para as originais.
+     */
+    void reset() {
+        System.arraycopy(original, 0, cap, 0, cap.length);
+    }
+
+    /**
+     * Retorna o vértice de origem do arco a.
+     */
+    int tail(int a) {
+        return head[rev[a]];
+    }
+
+    /**
+     * Retorna o fluxo líquido que passa pela aresta e, no sentido
+     * do seu vértice inicial para o final. Em arestas não direcionadas
+     * o valor é negativo quando o fluxo passa no sentido contrário.
+     */
+    long getFlow(int e) {
+        int a = edge_arc[e], b = edge_back[e];
+        long f = (a == -1) ? 0 : original[a] - cap[a];
+
+        if (b != -1)
+            f -= original[b] - cap[b];
+
+        return f;
+    }
+
+    /**
+     * Marca os vértices alcançáveis à partir de s por arcos
+     * com capacidade residual positiva.
+     */
+    boolean[] residualReach(int s) {
+        boolean[] seen = new boolean[num_vertex];
+        int[] queue = new int[num_vertex];
+        int qh = 0, qt = 0;
+
+        seen[s] = true;
+        queue[qt++] = s;
+
+        while (qh < qt) {
+            int u = queue[qh++];
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                int v = head[a];
+                if (cap[a] > 0 && !seen[v]) {
+                    seen[v] = true;
+                    queue[qt++] = v;
+                }
+            }
+        }
+
+        return seen;
+    }
+
+    int num_vertex;
+    int[] start, head, rev, arc_edge, edge_arc, edge_back;
+    long[] cap, original;
+}
@@ -0,0 +1,502 @@
+/*
+ * GraphColoring.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * GraphColoring
+ *
+ * Coloração gulosa e paralela dos vértices: vizinhos recebem cores
+ * diferentes, numeradas de 0 à getNumColors()-1, e cada vértice fica
+ * com a menor cor que os seus vizinhos de maior prioridade não usam.
+ * O sentido das arestas é ignorado e laços são descartados.
+ *
+ * A prioridade dos vértices vem de uma ordem, escolhida com
+ * setOrdering():
+ *
+ * - NATURAL: a ordem dos índices.
+ * - RANDOM: uma permutação aleatória (veja setSeed()).
+ * - LARGEST_FIRST: grau decrescente.
+ * - SMALLEST_LAST: o inverso da ordem de remoção do KCore, que usa
+ *   no máximo a degenerescência mais uma cores.
+ *
+ * E dois algoritmos estão disponíveis:
+ *
+ * - SPECULATIVE: em cada rodada, todos os vértices pendentes escolhem
+ *   uma cor em paralelo, olhando as cores que os vizinhos têm naquele
+ *   momento. Depois, os conflitos são detectados, também em paralelo,
+ *   e em cada aresta com os dois extremos da mesma cor o de menor
+ *   prioridade volta a ficar pendente. O de maior prioridade entre os
+ *   pendentes nunca perde, então toda rodada termina pelo menos um
+ *   vértice. Costuma precisar de poucas rodadas, mas o resultado
+ *   depende do escalonamento das threads.
+ * - JONES_PLASSMANN: cada vértice espera que todos os vizinhos de
+ *   maior prioridade estejam coloridos, contando-os em um contador
+ *   atômico. Cada rodada colore em paralelo os vértices sem espera, e
+ *   libera os vizinhos de menor prioridade. O resultado é exatamente
+ *   o da coloração gulosa sequencial na mesma ordem, e as rodadas são
+ *   o comprimento do maior caminho decrescente em prioridade.
+ *
+ * @author Giuliano Vilela
+ */
+public class GraphColoring {
+    public static final int SPECULATIVE = 0;
+    public static final int JONES_PLASSMANN = 1;
+
+    public static final int NATURAL = 0;
+    public static final int RANDOM = 1;
+    public static final int LARGEST_FIRST = 2;
+    public static final int SMALLEST_LAST = 3;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph,
+     * com a ordem LARGEST_FIRST.
+     */
+    public GraphColoring(IndexedGraph<?> graph) {
+        this.graph = graph;
+        ordering = LARGEST_FIRST;
+        seed = SEED;
+    }
+
+    /**
+     * Modifica a ordem que dá a prioridade dos vértices
+     * (NATURAL, RANDOM, LARGEST_FIRST ou SMALLEST_LAST).
+     */
+    public void setOrdering(int o) {
+        if (o < NATURAL || o > SMALLEST_LAST)
+            throw new IllegalArgumentException("Unknown ordering " + o + ".");
+        ordering = o;
+    }
+
+    /**
+     * Modifica a semente da ordem RANDOM.
+     */
+    public void setSeed(long s) {
+        seed = s;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado por cada thread à
+     * cada bloco de vértices processados. Com null (o padrão), a
+     * coloração não é controlada.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Colore o grafo com o algoritmo especulativo.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public GraphColoring run() {
+        return run(SPECULATIVE);
+    }
+
+    /**
+     * Colore o grafo com o algoritmo indicado
+     * (SPECULATIVE ou JONES_PLASSMANN).
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public GraphColoring run(int algorithm) {
+        if (algorithm != SPECULATIVE && algorithm != JONES_PLASSMANN)
+            throw new IllegalArgumentException("Unknown algorithm " + algorithm + ".");
+
+        final int n = graph.num_vertex;
+
+        out_start = graph.out_start;
+        out_target = graph.out_target;
+        in_source = graph.in_source;
+
+        /*
+         * Sem arestas direcionadas, os arcos de entrada só repetem os
+         * de saída, e listas de entrada vazias poupam uma passada.
+         */
+        in_start = graph.directed ? graph.in_start : new int[n+1];
+        in_edge = graph.in_edge;
+        edge_directed = graph.edge_directed;
+
+        color = new int[n];
+        rank = new int[n];
+        work = order();
+
+        for (int v = 0; v < n; ++v) {
+            color[v] = -1;
+            rank[work[v]] = v;
+        }
+
+        int workers = Math.min(Parallel.getParallelism(), Math.max(1, n / BLOCK));
+        jobs = new ArrayList<Worker>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Worker());
+
+        num_rounds = 0;
+
+        if (algorithm == SPECULATIVE)
+            speculative();
+        else
+            jonesPlassmann();
+
+        num_colors = 0;
+        for (int v = 0; v < n; ++v)
+            num_colors = Math.max(num_colors, color[v] + 1);
+
+        rank = work = null;
+        jobs = null;
+        wait = null;
+        return this;
+    }
+
+    /**
+     * Monta a ordem de prioridade dos vértices.
+     */
+    private int[] order() {
+        final int n = graph.num_vertex;
+        int[] ord = new int[n];
+
+        switch (ordering) {
+            case RANDOM: {
+                Random random = new Random(seed);
+
+                for (int v = 0; v < n; ++v) {
+                    int j = random.nextInt(v + 1);
+                    ord[v] = ord[j];
+                    ord[j] = v;
+                }
+                break;
+            }
+            case LARGEST_FIRST: {
+                final int[] deg = new int[n];
+
+                Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+                    public void run(int worker, int from, int to) {
+                        for (int v = from; v < to; ++v)
+                            deg[v] = degree(v);
+                    }
+                });
+
+                int max_degree = 0;
+                for (int v = 0; v < n; ++v)
+                    max_degree = Math.max(max_degree, deg[v]);
+
+                int[] first = new int[max_degree+2];
+                for (int v = 0; v < n; ++v)
+                    ++first[max_degree - deg[v] + 1];
+                for (int d = 0; d <= max_degree; ++d)
+                    first[d+1] += first[d];
+                for (int v = 0; v < n; ++v)
+                    ord[first[max_degree - deg[v]]++] = v;
+                break;
+            }
+            case SMALLEST_LAST: {
+                int[] removal = new KCore(graph).run().getOrder();
+
+                for (int i = 0; i < n; ++i)
+                    ord[i] = removal[n-1-i];
+                break;
+            }
+            default:
+                for (int v = 0; v < n; ++v)
+                    ord[v] = v;
+        }
+
+        return ord;
+    }
+
+    /**
+     * Rodadas de coloração especulativa e detecção de conflitos,
+     * até que work fique vazio.
+     */
+    private void speculative() {
+        int count = graph.num_vertex;
+
+        while (count > 0) {
+            ++num_rounds;
+
+            step = ASSIGN;
+            invoke(0, count);
+
+            step = DETECT;
+            invoke(0, count);
+            count = gather(0);
+        }
+    }
+
+    /**
+     * Rodadas do Jones-Plassmann: colore os vértices de work[lo,hi)
+     * e coloca logo depois deles os vizinhos liberados.
+     */
+    private void jonesPlassmann() {
+        final int n = graph.num_vertex;
+        final int[] initial = new int[n];
+
+        wait = new AtomicIntegerArray(n);
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int w = 0;
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                        if (rank[out_target[a]] < rank[v])
+                            ++w;
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                        if (edge_directed[in_edge[a]] && rank[in_source[a]] < rank[v])
+                            ++w;
+
+                    initial[v] = w;
+                    wait.set(v, w);
+                }
+            }
+        });
+
+        int[] priority = work;
+        work = new int[n];
+
+        int hi = 0;
+        for (int v : priority)
+            if (initial[v] == 0)
+                work[hi++] = v;
+
+        int lo = 0;
+        step = JP;
+
+        while (lo < hi) {
+            ++num_rounds;
+
+            invoke(lo, hi);
+            int end = gather(hi);
+            lo = hi;
+            hi = end;
+        }
+    }
+
+    /**
+     * Roda os workers sobre work[lo,hi), no passo atual.
+     */
+    private void invoke(int lo, int hi) {
+        cursor.set(lo);
+        limit = hi;
+        Parallel.invokeAll(jobs);
+    }
+
+    /**
+     * Copia as saídas dos workers para work, à partir de pos.
+     * @return O fim dos elementos copiados em work.
+     */
+    private int gather(int pos) {
+        for (Worker w : jobs) {
+            w.out.copyTo(work, pos);
+            pos += w.out.size();
+        }
+        return pos;
+    }
+
+    /**
+     * Grau não direcionado de v, sem laços.
+     */
+    private int degree(int v) {
+        int d = 0;
+
+        for (int a = out_start[v]; a < out_start[v+1]; ++a)
+            if (out_target[a] != v)
+                ++d;
+
+        for (int a = in_start[v]; a < in_start[v+1]; ++a)
+            if (in_source[a] != v && edge_directed[in_edge[a]])
+                ++d;
+
+        return d;
+    }
+
+    /**
+     * Processa blocos de work até eles acabarem, com um vetor de
+     * marcas próprio para achar a menor cor livre.
+     */
+    private class Worker implements Callable<Object> {
+        Worker() {
+            mark = new int[16];
+            out = new IntList();
+        }
+
+        public Object call() {
+            int lo;
+            out.clear();
+
+            while ((lo = cursor.getAndAdd(BLOCK)) < limit) {
+                int hi = Math.min(lo + BLOCK, limit);
+                long arcs = 0;
+
+                for (int i = lo; i < hi; ++i) {
+                    int v = work[i];
+                    arcs += out_start[v+1] - out_start[v] + in_start[v+1] - in_start[v];
+
+                    switch (step) {
+                        case ASSIGN:
+                            assign(v);
+                            break;
+                        case DETECT:
+                            if (conflicts(v))
+                                out.add(v);
+                            break;
+                        default:
+                            assign(v);
+                            release(v);
+                    }
+                }
+
+                if (control != null)
+                    control.check(hi - lo, arcs);
+            }
+
+            return null;
+        }
+
+        /**
+         * Dá à v a menor cor que nenhum vizinho colorido usa.
+         */
+        private void assign(int v) {
+            int d = out_start[v+1] - out_start[v] + in_start[v+1] - in_start[v];
+
+            if (mark.length < d + 1)
+                mark = new int[Math.max(2 * mark.length, d + 1)];
+
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                stamp = 1;
+            }
+
+            for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                if (out_target[a] != v)
+                    forbid(color[out_target[a]]);
+
+            for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                if (in_source[a] != v && edge_directed[in_edge[a]])
+                    forbid(color[in_source[a]]);
+
+            int c = 0;
+            while (mark[c] == stamp)
+                ++c;
+
+            color[v] = c;
+        }
+
+        private void forbid(int c) {
+            if (c >= 0 && c < mark.length)
+                mark[c] = stamp;
+        }
+
+        /**
+         * Indica se v tem a mesma cor que algum vizinho
+         * de maior prioridade.
+         */
+        private boolean conflicts(int v) {
+            int c = color[v], r = rank[v];
+
+            for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+                int u = out_target[a];
+                if (u != v && color[u] == c && rank[u] < r)
+                    return true;
+            }
+
+            for (int a = in_start[v]; a < in_start[v+1]; ++a) {
+                int u = in_source[a];
+                if (u != v && edge_directed[in_edge[a]] && color[u] == c && rank[u] < r)
+                    return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Avisa os vizinhos de menor prioridade que v já foi colorido,
+         * guardando os que não esperam mais ninguém.
+         */
+        private void release(int v) {
+            int r = rank[v];
+
+            for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+                int u = out_target[a];
+                if (rank[u] > r && wait.decrementAndGet(u) == 0)
+                    out.add(u);
+            }
+
+            for (int a = in_start[v]; a < in_start[v+1]; ++a) {
+                int u = in_source[a];
+                if (edge_directed[in_edge[a]] && rank[u] > r && wait.decrementAndGet(u) == 0)
+                    out.add(u);
+            }
+        }
+
+        private int[] mark;
+        private int stamp;
+        private IntList out;
+    }
+
+    /**
+     * Retorna a cor do vértice v.
+     */
+    public int getColor(int v) {
+        return color[v];
+    }
+
+    /**
+     * Retorna o vetor com a cor de cada vértice.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getColors() {
+        return color;
+    }
+
+    /**
+     * Retorna o número de cores usadas.
+     */
+    public int getNumColors() {
+        return num_colors;
+    }
+
+    /**
+     * Retorna o número de rodadas paralelas da última execução.
+     */
+    public int getNumRounds() {
+        return num_rounds;
+    }
+
+    private IndexedGraph<?> graph;
+    private int ordering;
+    private long seed;
+
+    private int[] color;
+    private int num_colors, num_rounds;
+    private RunControl control;
+
+    private int[] out_start, out_target, in_start, in_source, in_edge;
+    private boolean[] edge_directed;
+
+    /* Estado das rodadas. */
+    private int[] rank, work;
+    private AtomicIntegerArray wait;
+    private ArrayList<Worker> jobs;
+    private int step, limit;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private static final int ASSIGN = 0;
+    private static final int DETECT = 1;
+    private static final int JP = 2;
+
+    private static final long SEED = 0x5eed;
+    private static final int BLOCK = 256;
+    private static final int GRAIN = 1 << 12;
+}
@@ -0,0 +1,426 @@
+/*
+ * HyperANF.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * HyperANF
+ *
+ * Estimativa da função de vizinhança do grafo, à moda do HyperANF
+ * (Boldi, Rosa e Vigna). A função de vizinhança N(t) é o número de
+ * pares (x,y) com distância de x até y no máximo t, contando os pares
+ * (x,x), e dela saem a distância média e o diâmetro efetivo, sem
+ * nenhuma busca em largura.
+ *
+ * Cada vértice v guarda um contador HyperLogLog, que estima o tamanho
+ * da bola B(v,t) dos vértices à distância no máximo t de v, seguindo
+ * os arcos de saída. Como B(v,t+1) é a união de {v} com as bolas
+ * B(u,t) dos vizinhos u de v, cada iteração calcula, em paralelo, o
+ * máximo registrador à registrador do contador de v com os dos seus
+ * vizinhos. Somente os vizinhos cujo contador mudou na iteração
+ * anterior são olhados, e as iterações param quando nenhum contador
+ * muda. Os registradores ocupam um byte cada, e o máximo é feito oito
+ * registradores de uma vez, com operações sobre um long.
+ *
+ * A memória é de 2 * V * 2^log2m bytes, e o erro relativo de cada
+ * contador é de cerca de 1.04 / √(2^log2m). As somas sobre muitos
+ * vértices, como N(t), são bem mais precisas que um contador sozinho.
+ *
+ * @author Giuliano Vilela
+ */
+public class HyperANF {
+    public static final int DEFAULT_LOG2M = 6;
+    public static final int MIN_LOG2M = 4;
+    public static final int MAX_LOG2M = 16;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph,
+     * com 2^DEFAULT_LOG2M registradores por contador.
+     */
+    public HyperANF(IndexedGraph<?> graph) {
+        this.graph = graph;
+        log2m = DEFAULT_LOG2M;
+        seed = SEED;
+        max_iterations = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Modifica o logaritmo do número de registradores
+     * de cada contador, entre MIN_LOG2M e MAX_LOG2M.
+     */
+    public void setLog2m(int b) {
+        if (b < MIN_LOG2M || b > MAX_LOG2M)
+            throw new IllegalArgumentException("log2m must be between " + MIN_LOG2M + " and " + MAX_LOG2M + ".");
+        log2m = b;
+    }
+
+    /**
+     * Modifica a semente da função de hash dos vértices.
+     */
+    public void setSeed(long s) {
+        seed = s;
+    }
+
+    /**
+     * Modifica o número máximo de iterações. Por padrão, as
+     * iterações só param quando nenhum contador muda.
+     */
+    public void setMaxIterations(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("The number of iterations must be non-negative.");
+        max_iterations = k;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado ao fim de cada
+     * iteração. Com null (o padrão), as iterações não são controladas.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula a função de vizinhança.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     * @throws IllegalArgumentException Caso os contadores não caibam em um vetor.
+     */
+    public HyperANF run() {
+        final int n = graph.num_vertex;
+        final int words = (1 << log2m) >>> 3;
+
+        if ((long)n * words > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many registers; use a smaller log2m.");
+
+        cur = new long[n * words];
+        next = new long[n * words];
+        changed = new boolean[n];
+        next_changed = new boolean[n];
+        estimate = new double[n];
+        distance_sum = new double[n];
+        harmonic = new double[n];
+        this.words = words;
+
+        final int chunks = Parallel.getNumChunks(n, GRAIN);
+        final double[] sums = new double[chunks];
+        final int[] counts = new int[chunks];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                double sum = 0;
+
+                for (int v = from; v < to; ++v) {
+                    insert(v);
+                    changed[v] = true;
+                    estimate[v] = count(cur, v);
+                    sum += estimate[v];
+                }
+
+                sums[worker] = sum;
+            }
+        });
+
+        double[] nf = new double[16];
+        nf[0] = total(sums);
+        num_iterations = 0;
+
+        while (num_iterations < max_iterations) {
+            final int t = num_iterations + 1;
+
+            Arrays.fill(counts, 0);
+
+            Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    double sum = 0;
+                    int count = 0;
+
+                    for (int v = from; v < to; ++v) {
+                        if (iterate(v, t))
+                            ++count;
+                        sum += estimate[v];
+                    }
+
+                    sums[worker] = sum;
+                    counts[worker] = count;
+                }
+            });
+
+            int modified = 0;
+            for (int c : counts)
+                modified += c;
+
+            if (control != null)
+                control.check(n, graph.out_target.length);
+
+            if (modified == 0)
+                break;
+
+            long[] r = cur; cur = next; next = r;
+            boolean[] b = changed; changed = next_changed; next_changed = b;
+
+            num_iterations = t;
+
+            if (t == nf.length)
+                nf = Arrays.copyOf(nf, 2 * t);
+            nf[t] = total(sums);
+        }
+
+        neighbourhood = Arrays.copyOf(nf, num_iterations + 1);
+
+        cur = next = null;
+        changed = next_changed = null;
+        return this;
+    }
+
+    /**
+     * Soma as somas parciais dos blocos, sempre na mesma ordem.
+     */
+    private static double total(double[] sums) {
+        double s = 0;
+        for (double x : sums)
+            s += x;
+        return s;
+    }
+
+    /**
+     * Coloca o próprio v no seu contador.
+     */
+    private void insert(int v) {
+        long h = mix(v + seed);
+        int j = (int)(h >>> (64 - log2m));
+        long w = h << log2m;
+        int rho = Math.min(Long.numberOfLeadingZeros(w) + 1, 64 - log2m + 1);
+
+        int k = v * words + (j >>> 3);
+        cur[k] |= (long)rho << ((j & 7) << 3);
+    }
+
+    /**
+     * Finalizador do SplitMix64, usado como função de hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Calcula em next o contador de v na iteração t, unindo o
+     * contador atual com os dos vizinhos que mudaram, e atualiza
+     * as estimativas de v.
+     * @return true caso o contador de v tenha mudado.
+     */
+    private boolean iterate(int v, int t) {
+        final int[] out_start = graph.out_start, out_target = graph.out_target;
+        int base = v * words;
+
+        System.arraycopy(cur, base, next, base, words);
+
+        boolean modified = false;
+
+        for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+            int u = out_target[a];
+            if (u != v && changed[u] && union(base, u * words))
+                modified = true;
+        }
+
+        next_changed[v] = modified;
+
+        if (modified) {
+            double e = Math.max(count(next, v), estimate[v]);
+            double delta = e - estimate[v];
+
+            distance_sum[v] += t * delta;
+            harmonic[v] += delta / t;
+            estimate[v] = e;
+        }
+
+        return modified;
+    }
+
+    /**
+     * Faz, em next[dst...], o máximo byte à byte com cur[src...].
+     * Os registradores nunca passam de 0x7f, de modo que o bit alto de
+     * cada byte de (y | H) - x indica se y >= x sem empréstimo entre
+     * os bytes, e vira uma máscara de 0xff nos bytes onde y ganha.
+     * @return true caso algum registrador tenha aumentado.
+     */
+    private boolean union(int dst, int src) {
+        boolean modified = false;
+
+        for (int i = 0; i < words; ++i) {
+            long x = next[dst + i], y = cur[src + i];
+            long d = ((y | HIGH) - x) & HIGH;
+            long mask = d | (d - (d >>> 7));
+            long r = (y & mask) | (x & ~mask);
+
+            if (r != x) {
+                next[dst + i] = r;
+                modified = true;
+            }
+        }
+
+        return modified;
+    }
+
+    /**
+     * Estimativa HyperLogLog do tamanho do contador de v em regs,
+     * com a correção de contagem linear para valores pequenos.
+     */
+    private double count(long[] regs, int v) {
+        int m = 1 << log2m;
+        int base = v * words;
+        double sum = 0;
+        int zeros = 0;
+
+        for (int i = 0; i < words; ++i) {
+            long w = regs[base + i];
+
+            for (int s = 0; s < 64; s += 8) {
+                int r = (int)(w >>> s) & 0xff;
+                sum += POW[r];
+                if (r == 0)
+                    ++zeros;
+            }
+        }
+
+        double e = alpha(m) * m * m / sum;
+
+        if (e <= 2.5 * m && zeros > 0)
+            e = m * Math.log((double)m / zeros);
+
+        return e;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Retorna a função de vizinhança estimada: o elemento t é o número
+     * de pares (x,y) com distância no máximo t, para t de 0 até
+     * getNumIterations().
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public double[] getNeighbourhoodFunction() {
+        return neighbourhood;
+    }
+
+    /**
+     * Retorna o número de iterações em que algum contador mudou. É uma
+     * estimativa por baixo do diâmetro (da maior excentricidade finita).
+     */
+    public int getNumIterations() {
+        return num_iterations;
+    }
+
+    /**
+     * Retorna o diâmetro efetivo: a distância, interpolada entre
+     * dois inteiros, dentro da qual estão 90% dos pares alcançáveis.
+     */
+    public double getEffectiveDiameter() {
+        return getEffectiveDiameter(0.9);
+    }
+
+    /**
+     * Retorna a distância, interpolada entre dois inteiros,
+     * dentro da qual está a fração alpha dos pares alcançáveis.
+     */
+    public double getEffectiveDiameter(double alpha) {
+        if (!(alpha > 0 && alpha <= 1))
+            throw new IllegalArgumentException("alpha must be in (0,1].");
+
+        double target = alpha * neighbourhood[num_iterations];
+
+        if (neighbourhood[0] >= target)
+            return 0;
+
+        int t = 1;
+        while (neighbourhood[t] < target)
+            ++t;
+
+        double lo = neighbourhood[t-1], hi = neighbourhood[t];
+        return (t - 1) + (target - lo) / (hi - lo);
+    }
+
+    /**
+     * Retorna a distância média entre os pares (x,y) alcançáveis
+     * com x diferente de y.
+     */
+    public double getAverageDistance() {
+        double sum = 0;
+
+        for (int t = 1; t <= num_iterations; ++t)
+            sum += t * (neighbourhood[t] - neighbourhood[t-1]);
+
+        double pairs = neighbourhood[num_iterations] - neighbourhood[0];
+        return pairs > 0 ? sum / pairs : 0;
+    }
+
+    /**
+     * Retorna o número estimado de vértices alcançáveis à partir
+     * de v, incluindo o próprio v.
+     */
+    public double getReachable(int v) {
+        return estimate[v];
+    }
+
+    /**
+     * Retorna a proximidade (closeness) estimada de v: o inverso da
+     * soma das distâncias de v até os vértices que ele alcança, ou 0
+     * caso ele não alcance nenhum.
+     */
+    public double getCloseness(int v) {
+        return distance_sum[v] > 0 ? 1 / distance_sum[v] : 0;
+    }
+
+    /**
+     * Retorna a centralidade harmônica estimada de v: a soma dos
+     * inversos das distâncias de v até os vértices que ele alcança.
+     */
+    public double getHarmonicCentrality(int v) {
+        return harmonic[v];
+    }
+
+    /**
+     * Retorna o erro relativo típico de um contador.
+     */
+    public double getRelativeStandardDeviation() {
+        return 1.04 / Math.sqrt(1 << log2m);
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private int log2m, max_iterations;
+    private long seed;
+
+    private double[] neighbourhood;
+    private double[] estimate, distance_sum, harmonic;
+    private int num_iterations;
+
+    /* Contadores, com words longs por vértice. */
+    private long[] cur, next;
+    private boolean[] changed, next_changed;
+    private int words;
+
+    private static final double[] POW = new double[128];
+
+    static {
+        for (int r = 0; r < POW.length; ++r)
+            POW[r] = Math.scalb(1.0, -r);
+    }
+
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long SEED = 0x5eed;
+    private static final int GRAIN = 1 << 10;
+}
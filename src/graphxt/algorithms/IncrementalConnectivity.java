@@ -0,0 +1,173 @@
+/*
+ * IncrementalConnectivity.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import graphxt.model.Edge;
+import graphxt.model.Graph;
+import graphxt.model.GraphListener;
+import graphxt.model.Vertex;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * IncrementalConnectivity<T,V>
+ *
+ * Índice de conectividade mantido à medida que o grafo muda. Depois
+ * de run(), o objeto se registra como GraphListener do grafo, e a
+ * pergunta "u e v estão conectados?" custa tempo quase constante.
+ * O sentido das arestas é ignorado (conectividade fraca).
+ *
+ * Inserções de vértices e arestas (Graph.insertEdge(), connect())
+ * são aplicadas online em um DisjointSet. As arestas que uniram dois
+ * conjuntos formam uma floresta geradora, e somente elas importam
+ * para as remoções:
+ *
+ * - Remover uma aresta fora da floresta não muda nada.
+ * - Remover uma aresta da floresta que tem uma paralela fora da
+ *   floresta só troca uma pela outra.
+ * - Nos outros casos o índice é marcado como sujo, e é reconstruído
+ *   do zero na próxima consulta, de modo que uma sequência de
+ *   remoções custa uma única reconstrução.
+ *
+ * @author Giuliano Vilela
+ */
+public class IncrementalConnectivity<T,V> implements GraphListener<T,V> {
+    /**
+     * Prepara o índice para o grafo graph.
+     */
+    public IncrementalConnectivity(Graph<T,V> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Constrói o índice do zero e passa a acompanhar
+     * as modificações do grafo.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public IncrementalConnectivity<T,V> run() {
+        graph.removeGraphListener(this);
+        num_rebuilds = 0;
+        rebuild();
+        graph.addGraphListener(this);
+        return this;
+    }
+
+    /**
+     * Deixa de acompanhar as modificações do grafo.
+     */
+    public void detach() {
+        graph.removeGraphListener(this);
+    }
+
+    /**
+     * Reconstrói o índice à partir do estado atual do grafo.
+     */
+    private void rebuild() {
+        index = new HashMap<Vertex<T>,Integer>(2 * graph.getNumVertex());
+        forest = new IdentityHashMap<Edge<T,V>,Boolean>();
+        sets = new DisjointSet(graph.getNumVertex());
+        num_removed = 0;
+        dirty = false;
+
+        for (Vertex<T> v : graph.getVertexSet())
+            index.put(v, index.size());
+
+        for (Edge<T,V> e : graph.getEdgeSet())
+            link(e);
+
+        ++num_rebuilds;
+    }
+
+    /**
+     * Une os extremos de e, guardando e na floresta
+     * caso ela tenha unido dois conjuntos.
+     */
+    private void link(Edge<T,V> e) {
+        Integer u = index.get(e.getStart()), v = index.get(e.getEnd());
+
+        if (u != null && v != null && sets.union(u, v))
+            forest.put(e, Boolean.TRUE);
+    }
+
+    public void vertexInserted(Vertex<T> vert) {
+        if (!dirty && !index.containsKey(vert))
+            index.put(vert, sets.add());
+    }
+
+    public void vertexRemoved(Vertex<T> vert) {
+        /*
+         * Um vértice com alguma aresta da floresta já sujou o índice
+         * quando ela foi removida; sem nenhuma, ele estava sozinho.
+         */
+        if (!dirty && index.remove(vert) != null)
+            ++num_removed;
+    }
+
+    public void edgeInserted(Edge<T,V> edge) {
+        if (!dirty)
+            link(edge);
+    }
+
+    public void edgeRemoved(Edge<T,V> edge) {
+        if (dirty || forest.remove(edge) == null)
+            return;
+
+        Vertex<T> a = edge.getStart(), b = edge.getEnd();
+
+        for (Edge<T,V> e : graph.getConnectedEdges(a)) {
+            boolean parallel = (e.getStart().equals(a) && e.getEnd().equals(b))
+                            || (e.getStart().equals(b) && e.getEnd().equals(a));
+
+            if (parallel && !forest.containsKey(e)) {
+                forest.put(e, Boolean.TRUE);
+                return;
+            }
+        }
+
+        dirty = true;
+    }
+
+    public void edgeChanged(Edge<T,V> edge, V old) {
+    }
+
+    /**
+     * Indica se u e v estão na mesma componente conexa. Vértices
+     * que não estão no grafo não estão conectados à nada.
+     */
+    public boolean connected(Vertex<T> u, Vertex<T> v) {
+        if (dirty)
+            rebuild();
+
+        Integer x = index.get(u), y = index.get(v);
+        return x != null && y != null && sets.connected(x, y);
+    }
+
+    /**
+     * Retorna o número de componentes conexas do grafo.
+     */
+    public int getNumComponents() {
+        if (dirty)
+            rebuild();
+
+        return sets.getNumSets() - num_removed;
+    }
+
+    /**
+     * Retorna quantas vezes o índice foi construído do zero,
+     * contando a construção inicial.
+     */
+    public int getNumRebuilds() {
+        return num_rebuilds;
+    }
+
+    private Graph<T,V> graph;
+    private HashMap<Vertex<T>,Integer> index;
+    private IdentityHashMap<Edge<T,V>,Boolean> forest;
+    private DisjointSet sets;
+    private int num_removed, num_rebuilds;
+    private boolean dirty;
+}
@@ -0,0 +1,312 @@
+/*
+ * IndexedGraph.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import graphxt.model.Edge;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * IndexedGraph<T>
+ *
+ * Fotografia imutável de um Graph<T,Integer>, onde cada vértice
+ * recebe um índice inteiro entre 0 e getNumVertex()-1 e cada
+ * aresta um índice entre 0 e getNumEdges()-1.
+ *
+ * As adjacências são guardadas em formato CSR (compressed sparse
+ * row), em vetores primitivos, tanto no sentido de saída quanto
+ * no de entrada. Uma aresta não direcionada gera um arco em cada
+ * sentido. É a representação utilizada por todos os algoritmos
+ * do pacote graphxt.algorithms, que nunca percorrem diretamente
+ * os conjuntos de arestas do Graph.
+ *
+ * Arestas sem informação (peso null) são tratadas como arestas
+ * de peso 1.
+ *
+ * @author Giuliano Vilela
+ */
+public class IndexedGraph<T> {
+    /**
+     * Cria a fotografia indexada do grafo graph.
+     */
+    public IndexedGraph(Graph<T,Integer> graph) {
+        int n = graph.getNumVertex();
+
+        vertices = new ArrayList<Vertex<T>>(n);
+        index = new HashMap<Vertex<T>,Integer>(n*2);
+
+        for (Vertex<T> v : graph.getVertexSet()) {
+            index.put(v, vertices.size());
+            vertices.add(v);
+        }
+
+        edges = new ArrayList<Edge<T,Integer>>();
+
+        for (Vertex<T> v : vertices) {
+            for (Edge<T,Integer> ed : graph.getConnectedEdges(v)) {
+                if (ed.getStart().equals(v))
+                    edges.add(ed);
+            }
+        }
+
+        int m = edges.size();
+        int[] st = new int[m], end = new int[m], w = new int[m];
+        boolean[] dir = new boolean[m];
+
+        for (int e = 0; e < m; ++e) {
+            Edge<T,Integer> ed = edges.get(e);
+            st[e] = index.get(ed.getStart());
+            end[e] = index.get(ed.getEnd());
+            w[e] = (ed.getData() == null) ? 1 : ed.getData();
+            dir[e] = ed.isDirected();
+        }
+
+        build(n, st, end, w, dir);
+    }
+
+    /**
+     * Cria um grafo indexado diretamente à partir de vetores de arestas,
+     * sem vértices ou arestas do modelo associados. É a forma de montar
+     * grafos grandes demais para o modelo baseado em objetos.
+     *
+     * @param n Número de vértices
+     * @param start Vértice inicial de cada aresta
+     * @param end Vértice final de cada aresta
+     * @param weight Peso de cada aresta, ou null para pesos unitários
+     * @param directed Indica se todas as arestas são direcionadas
+     */
+    public IndexedGraph(int n, int[] start, int[] end, int[] weight, boolean directed) {
+        int m = start.length;
+
+        if (end.length != m || (weight != null && weight.length != m))
+            throw new IllegalArgumentException("Edge arrays must have the same length.");
+
+        if (weight == null) {
+            weight = new int[m];
+            Arrays.fill(weight, 1);
+        }
+
+        boolean[] dir = new boolean[m];
+        Arrays.fill(dir, directed);
+
+        build(n, start.clone(), end.clone(), weight.clone(), dir);
+    }
+
+    /**
+     * Monta os vetores CSR de saída e de entrada.
+     */
+    private void build(int n, int[] st, int[] end, int[] w, boolean[] dir) {
+        int m = st.length;
+
+        num_vertex = n;
+        edge_start = st;
+        edge_end = end;
+        edge_weight = w;
+        edge_directed = dir;
+
+        out_start = new int[n+1];
+        in_start = new int[n+1];
+
+        for (int e = 0; e < m; ++e) {
+            if (st[e] < 0 || st[e] >= n || end[e] < 0 || end[e] >= n)
+                throw new IllegalArgumentException("Edge " + e + " has an invalid endpoint.");
+
+            ++out_start[st[e]+1];
+            ++in_start[end[e]+1];
+
+            if (!dir[e] && st[e] != end[e]) {
+                ++out_start[end[e]+1];
+                ++in_start[st[e]+1];
+            }
+            else if (dir[e]) {
+                directed = true;
+            }
+        }
+
+        for (int v = 0; v < n; ++v) {
+            out_start[v+1] += out_start[v];
+            in_start[v+1] += in_start[v];
+        }
+
+        int arcs = out_start[n];
+
+        out_target = new int[arcs];
+        out_edge = new int[arcs];
+        out_weight = new int[arcs];
+        in_source = new int[arcs];
+        in_edge = new int[arcs];
+
+        int[] out_pos = new int[n], in_pos = new int[n];
+        System.arraycopy(out_start, 0, out_pos, 0, n);
+        System.arraycopy(in_start, 0, in_pos, 0, n);
+
+        for (int e = 0; e < m; ++e) {
+            addArc(st[e], end[e], e, out_pos, in_pos);
+
+            if (!dir[e] && st[e] != end[e])
+                addArc(end[e], st[e], e, out_pos, in_pos);
+        }
+    }
+
+    private void addArc(int u, int v, int e, int[] out_pos, int[] in_pos) {
+        int a = out_pos[u]++;
+        out_target[a] = v;
+        out_edge[a] = e;
+        out_weight[a] = edge_weight[e];
+
+        int b = in_pos[v]++;
+        in_source[b] = u;
+        in_edge[b] = e;
+    }
+
+    /**
+     * Retorna o número de vértices do grafo.
+     */
+    public int getNumVertex() {
+        return num_vertex;
+    }
+
+    /**
+     * Retorna o número de arestas do grafo.
+     */
+    public int getNumEdges() {
+        return edge_start.length;
+    }
+
+    /**
+     * Retorna o número de arcos, ou seja, de entradas na
+     * lista de adjacências (arestas não direcionadas contam duas vezes).
+     */
+    public int getNumArcs() {
+        return out_target.length;
+    }
+
+    /**
+     * Indica se alguma das arestas do grafo é direcionada.
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Retorna o vértice do modelo associado ao índice v, ou
+     * null caso este grafo não tenha sido criado à partir de um Graph.
+     */
+    public Vertex<T> getVertex(int v) {
+        return (vertices == null) ? null : vertices.get(v);
+    }
+
+    /**
+     * Retorna o índice do vértice vert, ou -1 caso ele não pertença ao grafo.
+     */
+    public int indexOf(Vertex<T> vert) {
+        if (index == null || vert == null)
+            return -1;
+
+        Integer i = index.get(vert);
+        return (i == null) ? -1 : i;
+    }
+
+    /**
+     * Retorna a aresta do modelo associada ao índice e, ou
+     * null caso este grafo não tenha sido criado à partir de um Graph.
+     */
+    public Edge<T,Integer> getEdge(int e) {
+        return (edges == null) ? null : edges.get(e);
+    }
+
+    /**
+     * Retorna o índice do vértice inicial da aresta e.
+     */
+    public int getEdgeStart(int e) {
+        return edge_start[e];
+    }
+
+    /**
+     * Retorna o índice do vértice final da aresta e.
+     */
+    public int getEdgeEnd(int e) {
+        return edge_end[e];
+    }
+
+    /**
+     * Retorna o peso da aresta e.
+     */
+    public int getEdgeWeight(int e) {
+        return edge_weight[e];
+    }
+
+    /**
+     * Indica se a aresta e é direcionada.
+     */
+    public boolean isEdgeDirected(int e) {
+        return edge_directed[e];
+    }
+
+    /**
+     * Retorna o grau de saída do vértice v.
+     */
+    public int getOutDegree(int v) {
+        return out_start[v+1] - out_start[v];
+    }
+
+    /**
+     * Retorna o grau de entrada do vértice v.
+     */
+    public int getInDegree(int v) {
+        return in_start[v+1] - in_start[v];
+    }
+
+    /**
+     * Retorna o i-ésimo vizinho de saída do vértice v.
+     */
+    public int getOutNeighbour(int v, int i) {
+        return out_target[out_start[v]+i];
+    }
+
+    /**
+     * Retorna a aresta que leva ao i-ésimo vizinho de saída do vértice v.
+     */
+    public int getOutEdge(int v, int i) {
+        return out_edge[out_start[v]+i];
+    }
+
+    /**
+     * Retorna o i-ésimo vizinho de entrada do vértice v.
+     */
+    public int getInNeighbour(int v, int i) {
+        return in_source[in_start[v]+i];
+    }
+
+    /**
+     * Retorna a aresta que vem do i-ésimo vizinho de entrada do vértice v.
+     */
+    public int getInEdge(int v, int i) {
+        return in_edge[in_start[v]+i];
+    }
+
+    /*
+     * Vetores internos, acessados diretamente pelos algoritmos
+     * do pacote nos seus laços mais críticos.
+     *
+     * Os arcos de saída de v ficam em [out_start[v], out_start[v+1]),
+     * e os de entrada em [in_start[v], in_start[v+1]).
+     */
+    int num_vertex;
+    boolean directed;
+    int[] edge_start, edge_end, edge_weight;
+    boolean[] edge_directed;
+    int[] out_start, out_target, out_edge, out_weight;
+    int[] in_start, in_source, in_edge;
+
+    private ArrayList<Vertex<T>> vertices;
+    private ArrayList<Edge<T,Integer>> edges;
+    private HashMap<Vertex<T>,Integer> index;
+}
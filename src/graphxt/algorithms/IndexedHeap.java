@@ -0,0 +1,145 @@
+/*
+ * IndexedHeap.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+/**
+ * IndexedHeap
+ *
+ * Heap de mínimo 4-ário sobre os vértices [0,n), com chaves long e
+ * diminuição de chave. Cada vértice guarda a sua posição no heap,
+ * de modo que push() de um vértice que já está no heap somente
+ * diminui a sua chave, sem entradas duplicadas.
+ *
+ * Um heap 4-ário tem metade da altura de um binário e os filhos de
+ * cada nó ficam próximos na memória, o que deixa o Dijkstra mais
+ * rápido do que com um PriorityQueue de objetos.
+ *
+ * @author Giuliano Vilela
+ */
+class IndexedHeap {
+    IndexedHeap(int n) {
+        heap = new int[n];
+        pos = new int[n];
+        key = new long[n];
+
+        for (int v = 0; v < n; ++v)
+            pos[v] = -1;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int v) {
+        return pos[v] != -1;
+    }
+
+    long getKey(int v) {
+        return key[v];
+    }
+
+    /**
+     * Insere v com a chave k ou, caso v já esteja no heap com
+     * uma chave maior, diminui a sua chave para k.
+     */
+    void push(int v, long k) {
+        if (pos[v] == -1) {
+            pos[v] = size;
+            heap[size++] = v;
+        }
+        else if (k >= key[v]) {
+            return;
+        }
+
+        key[v] = k;
+        siftUp(pos[v]);
+    }
+
+    /**
+     * Remove e retorna o vértice de menor chave.
+     */
+    int pop() {
+        int top = heap[0];
+        int last = heap[--size];
+
+        pos[top] = -1;
+
+        if (size > 0) {
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    /**
+     * Esvazia o heap, em tempo proporcional ao seu tamanho.
+     */
+    void clear() {
+        for (int i = 0; i < size; ++i)
+            pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        long k = key[v];
+
+        while (i > 0) {
+            int p = (i - 1) >>> 2;
+            int u = heap[p];
+
+            if (key[u] <= k)
+                break;
+
+            heap[i] = u;
+            pos[u] = i;
+            i = p;
+        }
+
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        long k = key[v];
+
+        while (true) {
+            int c = (i << 2) + 1;
+            if (c >= size)
+                break;
+
+            int best = c;
+            int end = Math.min(c + 4, size);
+
+            for (int j = c + 1; j < end; ++j)
+                if (key[heap[j]] < key[heap[best]])
+                    best = j;
+
+            int u = heap[best];
+            if (key[u] >= k)
+                break;
+
+            heap[i] = u;
+            pos[u] = i;
+            i = best;
+        }
+
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+    private int[] heap, pos;
+    private long[] key;
+    private int size;
+}
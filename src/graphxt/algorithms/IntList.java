@@ -0,0 +1,82 @@
+/*
+ * IntList.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+/**
+ * IntList
+ *
+ * Lista de inteiros primitivos que cresce conforme necessário.
+ * Usada como buffer local de cada thread nos algoritmos paralelos,
+ * evitando o custo de um ArrayList<Integer>.
+ *
+ * @author Giuliano Vilela
+ */
+class IntList {
+    IntList() {
+        this(16);
+    }
+
+    IntList(int capacity) {
+        data = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int x) {
+        if (size == data.length) {
+            int[] bigger = new int[data.length*2];
+            System.arraycopy(data, 0, bigger, 0, size);
+            data = bigger;
+        }
+        data[size++] = x;
+    }
+
+    int get(int i) {
+        return data[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copia o conteúdo da lista para dst, à partir da posição pos.
+     */
+    void copyTo(int[] dst, int pos) {
+        System.arraycopy(data, 0, dst, pos, size);
+    }
+
+    int[] toArray() {
+        int[] r = new int[size];
+        System.arraycopy(data, 0, r, 0, size);
+        return r;
+    }
+
+    /**
+     * Concatena as listas, na ordem, em um único vetor.
+     */
+    static int[] concat(IntList[] lists) {
+        int total = 0;
+        for (IntList l : lists)
+            total += l.size;
+
+        int[] r = new int[total];
+        int pos = 0;
+
+        for (IntList l : lists) {
+            l.copyTo(r, pos);
+            pos += l.size;
+        }
+
+        return r;
+    }
+
+    private int[] data;
+    private int size;
+}
@@ -0,0 +1,468 @@
+/*
+ * KCore.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * KCore
+ *
+ * Decomposição em k-núcleos (k-cores). O k-núcleo é o maior subgrafo
+ * em que todo vértice tem grau pelo menos k, e o número de núcleo de
+ * um vértice é o maior k tal que ele pertence ao k-núcleo. O sentido
+ * das arestas é ignorado, laços são descartados e arestas paralelas
+ * contam uma vez cada no grau.
+ *
+ * run() é o algoritmo de Batagelj e Zaversnik, em tempo O(V+E): os
+ * vértices ficam ordenados por grau em um único vetor, dividido em
+ * baldes por grau, e o vértice de menor grau é removido à cada passo.
+ * Quando um vizinho perde um grau, ele é trocado com o primeiro vértice
+ * do seu balde, e o início do balde anda uma posição, o que o move
+ * para o balde anterior em tempo constante.
+ *
+ * runParallel() faz a remoção em paralelo, nível por nível: para o
+ * menor grau k restante, todos os vértices de grau k são removidos
+ * juntos, e os vizinhos que caem para grau k formam a próxima leva
+ * do mesmo nível. Os graus são decrementados com operações atômicas,
+ * e um vizinho que passaria de k é restaurado, de modo que somente a
+ * thread que o levou exatamente à k o coloca na leva. Cada nível
+ * percorre os vértices restantes, o que custa O(V) por nível; o
+ * método compensa quando o maior núcleo é pequeno perto de V.
+ *
+ * Os dois produzem os mesmos números de núcleo. A ordem de remoção
+ * (getOrder()) é uma ordem de degenerescência nos dois casos, mas
+ * pode ser diferente entre eles.
+ *
+ * @author Giuliano Vilela
+ */
+public class KCore {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public KCore(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada bloco de
+     * vértices removidos (no run()) ou por cada thread à cada leva
+     * (no runParallel()). Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula os números de núcleo sequencialmente, com baldes.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public KCore run() {
+        final int n = graph.num_vertex;
+        final int[] deg = degrees();
+
+        int max_degree = 0;
+        for (int v = 0; v < n; ++v)
+            max_degree = Math.max(max_degree, deg[v]);
+
+        int[] bin = new int[max_degree+1];
+        int[] pos = new int[n];
+        int[] vert = new int[n];
+
+        for (int v = 0; v < n; ++v)
+            ++bin[deg[v]];
+
+        for (int d = 0, first = 0; d <= max_degree; ++d) {
+            int count = bin[d];
+            bin[d] = first;
+            first += count;
+        }
+
+        for (int v = 0; v < n; ++v) {
+            pos[v] = bin[deg[v]]++;
+            vert[pos[v]] = v;
+        }
+
+        for (int d = max_degree; d > 0; --d)
+            bin[d] = bin[d-1];
+        bin[0] = 0;
+
+        core = deg;
+        max_core = 0;
+
+        int done = 0;
+        long arcs = 0;
+
+        for (int i = 0; i < n; ++i) {
+            int v = vert[i];
+            int dv = deg[v];
+            max_core = Math.max(max_core, dv);
+
+            arcs += (out_start[v+1] - out_start[v]) + (in_start[v+1] - in_start[v]);
+            if (control != null && ++done == CHECK_PERIOD) {
+                control.check(done, arcs);
+                done = 0;
+                arcs = 0;
+            }
+
+            for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                if (out_target[a] != v)
+                    lower(out_target[a], dv, deg, bin, pos, vert);
+
+            for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                if (in_source[a] != v && edge_directed[in_edge[a]])
+                    lower(in_source[a], dv, deg, bin, pos, vert);
+        }
+
+        order = vert;
+        return this;
+    }
+
+    /**
+     * Tira um grau de u, caso ele seja maior que dv, movendo u
+     * para o início do seu balde e o balde uma posição para frente.
+     */
+    private void lower(int u, int dv, int[] deg, int[] bin, int[] pos, int[] vert) {
+        int du = deg[u];
+        if (du <= dv)
+            return;
+
+        int pu = pos[u];
+        int pw = bin[du];
+        int w = vert[pw];
+
+        if (u != w) {
+            pos[u] = pw;
+            vert[pu] = w;
+            pos[w] = pu;
+            vert[pw] = u;
+        }
+
+        ++bin[du];
+        --deg[u];
+    }
+
+    /**
+     * Calcula os números de núcleo removendo, em paralelo, os
+     * vértices de menor grau nível por nível.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public KCore runParallel() {
+        final int n = graph.num_vertex;
+        final int[] init = degrees();
+        final AtomicIntegerArray deg = new AtomicIntegerArray(n);
+
+        core = new int[n];
+        order = new int[n];
+        max_core = 0;
+
+        int[] remaining = new int[n];
+        for (int v = 0; v < n; ++v) {
+            deg.set(v, init[v]);
+            core[v] = -1;
+            remaining[v] = v;
+        }
+
+        buffers = new IntList[Parallel.getNumChunks(n, GRAIN)];
+        for (int i = 0; i < buffers.length; ++i)
+            buffers[i] = new IntList();
+
+        int removed = 0, num_remaining = n, k = 0;
+
+        while (removed < n) {
+            num_remaining = compact(remaining, num_remaining, deg);
+            k = Math.max(k, min_degree);
+
+            int lo = removed;
+            int hi = collect(remaining, num_remaining, deg, k, lo);
+
+            while (lo < hi) {
+                int end = peel(lo, hi, deg, k);
+                lo = hi;
+                hi = end;
+            }
+
+            removed = hi;
+            max_core = k;
+        }
+
+        buffers = null;
+        return this;
+    }
+
+    /**
+     * Junta no começo de remaining os vértices ainda não removidos,
+     * calculando em min_degree o menor grau entre eles.
+     * @return O número de vértices restantes.
+     */
+    private int compact(final int[] remaining, int count, final AtomicIntegerArray deg) {
+        final int chunks = Parallel.getNumChunks(count, GRAIN);
+        final int[] mins = new int[chunks];
+
+        Parallel.forRange(count, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                IntList local = buffers[worker];
+                int min = Integer.MAX_VALUE;
+                local.clear();
+
+                for (int i = from; i < to; ++i) {
+                    int v = remaining[i];
+
+                    if (core[v] == -1) {
+                        local.add(v);
+                        min = Math.min(min, deg.get(v));
+                    }
+                }
+
+                mins[worker] = min;
+            }
+        });
+
+        min_degree = Integer.MAX_VALUE;
+        int k = 0;
+
+        for (int c = 0; c < chunks; ++c) {
+            min_degree = Math.min(min_degree, mins[c]);
+            buffers[c].copyTo(remaining, k);
+            k += buffers[c].size();
+        }
+
+        return k;
+    }
+
+    /**
+     * Coloca em order, à partir de pos, os vértices restantes de grau k.
+     * @return O fim da leva em order.
+     */
+    private int collect(final int[] remaining, int count, final AtomicIntegerArray deg, final int k, int pos) {
+        final int chunks = Parallel.getNumChunks(count, GRAIN);
+
+        Parallel.forRange(count, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                IntList local = buffers[worker];
+                local.clear();
+
+                for (int i = from; i < to; ++i) {
+                    int v = remaining[i];
+
+                    if (deg.get(v) == k) {
+                        core[v] = k;
+                        local.add(v);
+                    }
+                }
+            }
+        });
+
+        return append(chunks, pos);
+    }
+
+    /**
+     * Remove os vértices de order[lo,hi), todos de núcleo k, e coloca
+     * logo depois deles os vizinhos que caíram para grau k.
+     * @return O fim da próxima leva em order.
+     */
+    private int peel(final int lo, final int hi, final AtomicIntegerArray deg, final int k) {
+        final int chunks = Parallel.getNumChunks(hi - lo, GRAIN);
+
+        Parallel.forRange(hi - lo, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                IntList local = buffers[worker];
+                long arcs = 0;
+                local.clear();
+
+                for (int i = lo + from; i < lo + to; ++i) {
+                    int v = order[i];
+                    arcs += (out_start[v+1] - out_start[v]) + (in_start[v+1] - in_start[v]);
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                        if (out_target[a] != v)
+                            lower(out_target[a], k, deg, local);
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                        if (in_source[a] != v && edge_directed[in_edge[a]])
+                            lower(in_source[a], k, deg, local);
+                }
+
+                if (control != null)
+                    control.check(to - from, arcs);
+            }
+        });
+
+        return append(chunks, hi);
+    }
+
+    /**
+     * Tira um grau de u, caso ele seja maior que k. A thread que
+     * leva u exatamente à k o marca e o coloca em local; as que
+     * passariam de k devolvem o grau.
+     */
+    private void lower(int u, int k, AtomicIntegerArray deg, IntList local) {
+        if (deg.get(u) <= k)
+            return;
+
+        int d = deg.decrementAndGet(u);
+
+        if (d == k) {
+            core[u] = k;
+            local.add(u);
+        }
+        else if (d < k) {
+            deg.incrementAndGet(u);
+        }
+    }
+
+    /**
+     * Copia os buffers dos blocos para order, à partir de pos.
+     * @return O fim dos elementos copiados em order.
+     */
+    private int append(final int chunks, int pos) {
+        final int[] offset = new int[chunks+1];
+        offset[0] = pos;
+
+        for (int c = 0; c < chunks; ++c)
+            offset[c+1] = offset[c] + buffers[c].size();
+
+        Parallel.forRange(chunks, 1, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int c = from; c < to; ++c)
+                    buffers[c].copyTo(order, offset[c]);
+            }
+        });
+
+        return offset[chunks];
+    }
+
+    /**
+     * Calcula o grau não direcionado de cada vértice, sem laços,
+     * guardando os vetores do grafo usados na remoção.
+     */
+    private int[] degrees() {
+        final int n = graph.num_vertex;
+        final int[] deg = new int[n];
+
+        out_start = graph.out_start;
+        out_target = graph.out_target;
+        in_source = graph.in_source;
+        in_edge = graph.in_edge;
+        edge_directed = graph.edge_directed;
+
+        /*
+         * Sem arestas direcionadas, os arcos de entrada só repetem os
+         * de saída, e listas de entrada vazias poupam uma passada.
+         */
+        in_start = graph.directed ? graph.in_start : new int[n+1];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int d = 0;
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                        if (out_target[a] != v)
+                            ++d;
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                        if (in_source[a] != v && edge_directed[in_edge[a]])
+                            ++d;
+
+                    deg[v] = d;
+                }
+            }
+        });
+
+        return deg;
+    }
+
+    /**
+     * Retorna o número de núcleo do vértice v.
+     */
+    public int getCoreNumber(int v) {
+        return core[v];
+    }
+
+    /**
+     * Retorna o vetor com o número de núcleo de cada vértice.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getCoreNumbers() {
+        return core;
+    }
+
+    /**
+     * Retorna o maior número de núcleo (a degenerescência do grafo).
+     */
+    public int getMaxCore() {
+        return max_core;
+    }
+
+    /**
+     * Retorna os vértices na ordem em que foram removidos, que é
+     * uma ordem de degenerescência: cada vértice tem no máximo
+     * getMaxCore() vizinhos depois dele.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Retorna, em ordem crescente, os vértices do k-núcleo.
+     */
+    public int[] getCoreVertices(int k) {
+        IntList list = new IntList();
+
+        for (int v = 0; v < core.length; ++v)
+            if (core[v] >= k)
+                list.add(v);
+
+        return list.toArray();
+    }
+
+    /**
+     * Retorna, em ordem crescente, as arestas do k-núcleo, isto é,
+     * as arestas com os dois extremos no k-núcleo.
+     */
+    public int[] getCoreEdges(int k) {
+        IntList list = new IntList();
+        int m = graph.edge_start.length;
+
+        for (int e = 0; e < m; ++e)
+            if (core[graph.edge_start[e]] >= k && core[graph.edge_end[e]] >= k)
+                list.add(e);
+
+        return list.toArray();
+    }
+
+    /**
+     * Retorna os vértices do núcleo de ordem máxima.
+     */
+    public int[] getMaxCoreVertices() {
+        return getCoreVertices(max_core);
+    }
+
+    /**
+     * Retorna as arestas do núcleo de ordem máxima.
+     */
+    public int[] getMaxCoreEdges() {
+        return getCoreEdges(max_core);
+    }
+
+    private IndexedGraph<?> graph;
+    private int[] core, order;
+    private int max_core;
+
+    private int[] out_start, out_target, in_start, in_source, in_edge;
+    private boolean[] edge_directed;
+    private IntList[] buffers;
+    private int min_degree;
+    private RunControl control;
+
+    private static final int GRAIN = 1 << 12;
+    private static final int CHECK_PERIOD = 1 << 10;
+}
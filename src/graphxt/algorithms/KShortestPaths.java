@@ -0,0 +1,487 @@
+/*
+ * KShortestPaths.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * KShortestPaths
+ *
+ * Os k caminhos mais curtos sem repetição de vértices entre dois
+ * vértices, pelo algoritmo de Yen. Os pesos das arestas são os
+ * comprimentos, e devem ser não negativos. Arestas paralelas dão
+ * caminhos diferentes, de modo que um caminho é a sua sequência de
+ * arestas.
+ *
+ * Cada novo caminho é o menor dos candidatos gerados à partir do
+ * anterior, P: para cada vértice v_i de P (o vértice de desvio), o
+ * candidato é o prefixo de P até v_i seguido do menor caminho de v_i
+ * até o destino que não passa pelos vértices do prefixo nem pelas
+ * arestas que os caminhos já aceitos com o mesmo prefixo usam depois
+ * de v_i. Como na modificação de Lawler, somente os desvios à partir
+ * do ponto em que P se desviou do caminho que o gerou são tentados; os
+ * anteriores já foram tentados por ele.
+ *
+ * As buscas dos desvios de um mesmo caminho são independentes, e rodam
+ * em paralelo. Elas usam as ideias do OptYen: um Dijkstra reverso à
+ * partir do destino, feito uma única vez, dá a distância exata de cada
+ * vértice até o destino no grafo inteiro. Caso o caminho da árvore
+ * reversa à partir de v_i não use nada bloqueado, ele é o menor desvio
+ * e nenhuma busca é feita; senão, a busca é um A* que usa essas
+ * distâncias como estimativa, que nunca superestima e ignora os
+ * vértices que não alcançam o destino.
+ *
+ * Cada thread tem o seu espaço de trabalho, alocado uma única vez e
+ * reaproveitado por todas as buscas e por chamadas sucessivas de run().
+ * Somente as posições tocadas por uma busca são limpas depois dela.
+ *
+ * @author Giuliano Vilela
+ */
+public class KShortestPaths {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     * @throws IllegalArgumentException Caso alguma aresta tenha peso negativo.
+     */
+    public KShortestPaths(IndexedGraph<?> graph) {
+        for (int w : graph.edge_weight)
+            if (w < 0)
+                throw new IllegalArgumentException("Edge weights must be non-negative.");
+
+        int n = graph.num_vertex;
+        int workers = Parallel.getParallelism();
+
+        this.graph = graph;
+        to_dist = new long[n];
+        to_next = new int[n];
+        to_edge = new int[n];
+        tree_heap = new IndexedHeap(n);
+        jobs = new ArrayList<Worker>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Worker());
+    }
+
+    /**
+     * Modifica o controle da execução, verificado depois de cada
+     * busca de desvio. Com null (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula até k caminhos mais curtos de source até target.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public KShortestPaths run(int source, int target, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("At least one path is needed.");
+
+        this.source = source;
+        this.target = target;
+        this.k = 0;
+        paths = new ArrayList<Path>();
+        num_searches.set(0);
+
+        reverseTree();
+
+        if (to_dist[source] == INF) {
+            this.k = k;
+            return this;
+        }
+
+        Path first = treePath(new int[] {source}, new int[0], 0, 0);
+        PriorityQueue<Path> candidates = new PriorityQueue<Path>();
+        HashSet<Path> seen = new HashSet<Path>();
+
+        paths.add(first);
+        seen.add(first);
+
+        while (paths.size() < k) {
+            Path p = paths.get(paths.size() - 1);
+
+            prev = p;
+            spur_from = p.deviation;
+            spurs = new Path[p.vertices.length - 1 - spur_from];
+            cursor.set(0);
+
+            if (spurs.length > 0)
+                Parallel.invokeAll(jobs);
+
+            for (Path c : spurs)
+                if (c != null && seen.add(c))
+                    candidates.add(c);
+
+            if (candidates.isEmpty())
+                break;
+
+            paths.add(candidates.poll());
+        }
+
+        prev = null;
+        spurs = null;
+        this.k = k;
+        return this;
+    }
+
+    /**
+     * Dijkstra pelos arcos de entrada à partir do destino, que dá a
+     * distância até ele e o próximo passo de cada vértice.
+     */
+    private void reverseTree() {
+        int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        int[] edge_weight = graph.edge_weight;
+
+        Arrays.fill(to_dist, INF);
+        Arrays.fill(to_next, -1);
+        Arrays.fill(to_edge, -1);
+
+        to_dist[target] = 0;
+        tree_heap.push(target, 0);
+
+        while (!tree_heap.isEmpty()) {
+            int u = tree_heap.pop();
+            long du = to_dist[u];
+
+            for (int a = in_start[u]; a < in_start[u+1]; ++a) {
+                int x = in_source[a];
+                long d = du + edge_weight[in_edge[a]];
+
+                if (d < to_dist[x]) {
+                    to_dist[x] = d;
+                    to_next[x] = u;
+                    to_edge[x] = in_edge[a];
+                    tree_heap.push(x, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna o caminho formado pelo prefixo dado seguido do caminho
+     * da árvore reversa à partir do último vértice do prefixo.
+     */
+    private Path treePath(int[] root, int[] root_edges, long root_length, int deviation) {
+        int u = root[root.length-1];
+        int len = 0;
+
+        for (int x = u; x != target; x = to_next[x])
+            ++len;
+
+        int[] vertices = Arrays.copyOf(root, root.length + len);
+        int[] edges = Arrays.copyOf(root_edges, root_edges.length + len);
+        int i = root.length, j = root_edges.length;
+
+        for (int x = u; x != target; x = to_next[x]) {
+            edges[j++] = to_edge[x];
+            vertices[i++] = to_next[x];
+        }
+
+        return new Path(vertices, edges, root_length + to_dist[u], deviation);
+    }
+
+    /**
+     * Espaço de trabalho de uma thread: as distâncias e os pais do A*,
+     * o seu heap, e as marcas dos vértices e arestas bloqueados.
+     */
+    private class Worker implements Callable<Object> {
+        Worker() {
+            int n = graph.num_vertex;
+
+            dist = new long[n];
+            parent = new int[n];
+            parent_edge = new int[n];
+            heap = new IndexedHeap(n);
+            vertex_mark = new int[n];
+            edge_mark = new int[graph.edge_start.length];
+            touched = new IntList();
+
+            Arrays.fill(dist, -1);
+        }
+
+        public Object call() {
+            int i;
+            while ((i = cursor.getAndIncrement()) < spurs.length)
+                spurs[i] = spur(prev, spur_from + i);
+            return null;
+        }
+
+        /**
+         * Menor desvio de p no seu i-ésimo vértice.
+         * @return O candidato, ou null caso não haja desvio.
+         */
+        private Path spur(Path p, int i) {
+            int[] edge_weight = graph.edge_weight;
+            int u = p.vertices[i];
+
+            if (++stamp == 0) {
+                Arrays.fill(vertex_mark, 0);
+                Arrays.fill(edge_mark, 0);
+                stamp = 1;
+            }
+
+            for (int j = 0; j < i; ++j)
+                vertex_mark[p.vertices[j]] = stamp;
+
+            for (Path q : paths)
+                if (q.edges.length > i && sharesPrefix(p, q, i))
+                    edge_mark[q.edges[i]] = stamp;
+
+            int[] root = Arrays.copyOf(p.vertices, i + 1);
+            int[] root_edges = Arrays.copyOf(p.edges, i);
+            long root_length = 0;
+
+            for (int e : root_edges)
+                root_length += edge_weight[e];
+
+            if (treeIsFree(u))
+                return treePath(root, root_edges, root_length, i);
+
+            num_searches.incrementAndGet();
+            long scanned = search(u);
+            Path r = null;
+
+            if (dist[target] != -1)
+                r = buildPath(root, root_edges, root_length, i);
+
+            int reached = touched.size();
+
+            for (int j = 0; j < reached; ++j)
+                dist[touched.get(j)] = -1;
+            touched.clear();
+            heap.clear();
+
+            if (control != null)
+                control.check(reached, scanned);
+
+            return r;
+        }
+
+        /**
+         * Indica se o caminho da árvore reversa à partir
+         * de u evita tudo o que está bloqueado.
+         */
+        private boolean treeIsFree(int u) {
+            for (int x = u; x != target; x = to_next[x])
+                if (edge_mark[to_edge[x]] == stamp || vertex_mark[to_next[x]] == stamp)
+                    return false;
+            return true;
+        }
+
+        /**
+         * A* de u até o destino, evitando o que está bloqueado.
+         * @return O número de arcos percorridos.
+         */
+        private long search(int u) {
+            int[] out_start = graph.out_start, out_target = graph.out_target;
+            int[] out_edge = graph.out_edge, out_weight = graph.out_weight;
+            long scanned = 0;
+
+            vertex_mark[u] = stamp;
+            dist[u] = 0;
+            touched.add(u);
+            heap.push(u, to_dist[u]);
+
+            while (!heap.isEmpty()) {
+                int x = heap.pop();
+
+                if (x == target)
+                    break;
+
+                long dx = dist[x];
+                scanned += out_start[x+1] - out_start[x];
+
+                for (int a = out_start[x]; a < out_start[x+1]; ++a) {
+                    int y = out_target[a];
+
+                    if (vertex_mark[y] == stamp || edge_mark[out_edge[a]] == stamp || to_dist[y] == INF)
+                        continue;
+
+                    long d = dx + out_weight[a];
+
+                    if (dist[y] == -1)
+                        touched.add(y);
+                    else if (d >= dist[y])
+                        continue;
+
+                    dist[y] = d;
+                    parent[y] = x;
+                    parent_edge[y] = out_edge[a];
+                    heap.push(y, d + to_dist[y]);
+                }
+            }
+
+            return scanned;
+        }
+
+        /**
+         * Junta o prefixo com o caminho achado pelo A*.
+         */
+        private Path buildPath(int[] root, int[] root_edges, long root_length, int deviation) {
+            int u = root[root.length-1];
+            int len = 0;
+
+            for (int x = target; x != u; x = parent[x])
+                ++len;
+
+            int[] vertices = Arrays.copyOf(root, root.length + len);
+            int[] edges = Arrays.copyOf(root_edges, root_edges.length + len);
+            int i = vertices.length - 1, j = edges.length - 1;
+
+            for (int x = target; x != u; x = parent[x]) {
+                vertices[i--] = x;
+                edges[j--] = parent_edge[x];
+            }
+
+            return new Path(vertices, edges, root_length + dist[target], deviation);
+        }
+
+        private long[] dist;
+        private int[] parent, parent_edge;
+        private IndexedHeap heap;
+        private int[] vertex_mark, edge_mark;
+        private int stamp;
+        private IntList touched;
+    }
+
+    /**
+     * Indica se p e q usam as mesmas primeiras i arestas.
+     */
+    private static boolean sharesPrefix(Path p, Path q, int i) {
+        for (int j = 0; j < i; ++j)
+            if (p.edges[j] != q.edges[j])
+                return false;
+        return true;
+    }
+
+    /**
+     * Um caminho, com o índice do vértice onde ele se desviou do
+     * caminho que o gerou. Os caminhos são ordenados pelo comprimento,
+     * depois pelo número de arestas e depois pelas próprias arestas,
+     * para que o resultado não dependa da ordem das threads.
+     */
+    private static class Path implements Comparable<Path> {
+        Path(int[] vertices, int[] edges, long length, int deviation) {
+            this.vertices = vertices;
+            this.edges = edges;
+            this.length = length;
+            this.deviation = deviation;
+        }
+
+        public int compareTo(Path o) {
+            if (length != o.length)
+                return length < o.length ? -1 : 1;
+            if (edges.length != o.edges.length)
+                return edges.length < o.edges.length ? -1 : 1;
+
+            for (int j = 0; j < edges.length; ++j)
+                if (edges[j] != o.edges[j])
+                    return edges[j] < o.edges[j] ? -1 : 1;
+
+            return 0;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(edges, ((Path)o).edges);
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+
+        final int[] vertices, edges;
+        final long length;
+        final int deviation;
+    }
+
+    /**
+     * Retorna a origem da última execução.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o destino da última execução.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Retorna o número de caminhos pedido na última execução, ou 0
+     * caso o algoritmo ainda não tenha terminado nenhuma execução.
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Retorna o número de caminhos achados, que pode ser
+     * menor que k caso não existam tantos caminhos.
+     */
+    public int getNumPaths() {
+        return paths.size();
+    }
+
+    /**
+     * Retorna o comprimento do i-ésimo caminho, à partir de 0.
+     */
+    public long getLength(int i) {
+        return paths.get(i).length;
+    }
+
+    /**
+     * Retorna os vértices do i-ésimo caminho, da origem ao destino.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getVertices(int i) {
+        return paths.get(i).vertices;
+    }
+
+    /**
+     * Retorna as arestas do i-ésimo caminho, da origem ao destino.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getEdges(int i) {
+        return paths.get(i).edges;
+    }
+
+    /**
+     * Retorna o número de buscas A* feitas. Os desvios resolvidos
+     * pela árvore reversa não contam.
+     */
+    public int getNumSearches() {
+        return num_searches.get();
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private ArrayList<Path> paths;
+    private int source, target, k;
+
+    /* Árvore reversa de caminhos mínimos até o destino. */
+    private long[] to_dist;
+    private int[] to_next, to_edge;
+    private IndexedHeap tree_heap;
+
+    /* Desvios do caminho atual, calculados pelos workers. */
+    private ArrayList<Worker> jobs;
+    private Path prev;
+    private Path[] spurs;
+    private int spur_from;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicInteger num_searches = new AtomicInteger();
+
+    private static final long INF = Long.MAX_VALUE;
+}
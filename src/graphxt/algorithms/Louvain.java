@@ -0,0 +1,790 @@
+/*
+ * Louvain.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Louvain
+ *
+ * Detecção de comunidades pelo método de Louvain (Blondel et al.),
+ * maximizando a modularidade:
+ *
+ *   Q = Σ_c [ in(c)/2m - γ·(tot(c)/2m)² ]
+ *
+ * onde in(c) é o dobro do peso das arestas internas à comunidade c,
+ * tot(c) é a soma dos graus dos seus vértices, 2m é a soma de todos
+ * os graus e γ é a resolução. O sentido das arestas é ignorado.
+ *
+ * Cada nível alterna duas fases:
+ *
+ * 1. Movimento local, em paralelo e em passos síncronos: cada rodada
+ *    é dividida em PHASES passos, e em cada passo os vértices ativos
+ *    de uma fração fixa (por hash) escolhem, olhando a partição do
+ *    passo anterior, a comunidade vizinha de maior ganho; os movimentos
+ *    são aplicados juntos no fim do passo. Mover só uma fração por vez
+ *    evita que vizinhos decidam todos com a mesma informação velha,
+ *    o que estraga a qualidade. Para que dois vértices sozinhos não
+ *    troquem de comunidade um com o outro para sempre, um vértice
+ *    sozinho só vai para outra comunidade unitária de índice menor.
+ *    Só ficam ativos na rodada seguinte os vértices com algum vizinho
+ *    que mudou. As rodadas param quando a modularidade deixa de subir.
+ * 2. Agregação: cada comunidade vira um vértice do próximo nível, com
+ *    as arestas entre comunidades somadas e as internas viradas laço.
+ *
+ * Como as decisões de uma rodada só dependem da rodada anterior, o
+ * resultado não depende do número de threads. No fim, à moda do
+ * Leiden, comunidades desconexas são quebradas nas suas componentes
+ * conexas, o que nunca diminui a modularidade.
+ *
+ * @author Giuliano Vilela
+ */
+public class Louvain {
+    public static final double DEFAULT_RESOLUTION = 1.0;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ROUNDS = 64;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph,
+     * com os parâmetros padrão.
+     */
+    public Louvain(IndexedGraph<?> graph) {
+        this.graph = graph;
+        resolution = DEFAULT_RESOLUTION;
+        tolerance = DEFAULT_TOLERANCE;
+        max_rounds = DEFAULT_MAX_ROUNDS;
+    }
+
+    /**
+     * Indica se os pesos das arestas devem ser usados. Por
+     * padrão, todas as arestas têm peso 1.
+     * @throws IllegalArgumentException Caso alguma aresta tenha peso negativo.
+     */
+    public void setWeighted(boolean w) {
+        if (w) {
+            for (int x : graph.edge_weight)
+                if (x < 0)
+                    throw new IllegalArgumentException("Edge weights must be non-negative.");
+        }
+        weighted = w;
+    }
+
+    /**
+     * Modifica a resolução γ. Valores maiores geram
+     * mais comunidades, e menores.
+     */
+    public void setResolution(double gamma) {
+        if (!(gamma > 0))
+            throw new IllegalArgumentException("Resolution must be positive.");
+        resolution = gamma;
+    }
+
+    /**
+     * Modifica o menor ganho de modularidade para que as
+     * rodadas de um nível continuem.
+     */
+    public void setTolerance(double t) {
+        if (!(t >= 0))
+            throw new IllegalArgumentException("Tolerance must be non-negative.");
+        tolerance = t;
+    }
+
+    /**
+     * Modifica o número máximo de rodadas de movimento por nível.
+     */
+    public void setMaxRounds(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("At least one round is needed.");
+        max_rounds = k;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado ao fim de cada
+     * rodada de movimento. Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula as comunidades.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public Louvain run() {
+        final int n0 = graph.num_vertex;
+
+        build();
+
+        final int[] base_start = start, base_adj = adj;
+        final double[] base_wt = wt, base_loop = loop;
+
+        community = new int[n0];
+        for (int v = 0; v < n0; ++v)
+            community[v] = v;
+
+        levels = 0;
+
+        while (true) {
+            move();
+            ++levels;
+
+            final int[] label = new int[n];
+            final int k = relabel(label);
+
+            Parallel.forRange(n0, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    for (int v = from; v < to; ++v)
+                        community[v] = label[comm[community[v]]];
+                }
+            });
+
+            if (k == n)
+                break;
+
+            aggregate(label, k);
+        }
+
+        start = base_start;
+        adj = base_adj;
+        wt = base_wt;
+        loop = base_loop;
+        n = n0;
+
+        split();
+        modularity = computeModularity();
+
+        comm = next = null;
+        tot = inside = k_deg = null;
+        size = null;
+        active = next_active = null;
+        start = adj = null;
+        wt = loop = null;
+        return this;
+    }
+
+    /**
+     * Monta o primeiro nível, com a adjacência não direcionada do
+     * grafo: os arcos de saída de cada vértice, mais os arcos de
+     * entrada que vêm de arestas direcionadas. Laços vão para loop.
+     */
+    private void build() {
+        final int n0 = graph.num_vertex;
+        final int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        final int[] in_start = graph.in_start, in_source = graph.in_source, in_edge = graph.in_edge;
+        final boolean[] edge_directed = graph.edge_directed;
+        final int[] edge_weight = graph.edge_weight;
+
+        n = n0;
+        start = new int[n0+1];
+        loop = new double[n0];
+
+        Parallel.forRange(n0, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int d = 0;
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+                        if (out_target[a] != v)
+                            ++d;
+                        else
+                            loop[v] += 2 * weight(edge_weight[out_edge[a]]);
+                    }
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                        if (in_source[a] != v && edge_directed[in_edge[a]])
+                            ++d;
+
+                    start[v+1] = d;
+                }
+            }
+        });
+
+        for (int v = 0; v < n0; ++v)
+            start[v+1] += start[v];
+
+        adj = new int[start[n0]];
+        wt = new double[start[n0]];
+
+        Parallel.forRange(n0, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int k = start[v];
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a) {
+                        if (out_target[a] != v) {
+                            adj[k] = out_target[a];
+                            wt[k++] = weight(edge_weight[out_edge[a]]);
+                        }
+                    }
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a) {
+                        if (in_source[a] != v && edge_directed[in_edge[a]]) {
+                            adj[k] = in_source[a];
+                            wt[k++] = weight(edge_weight[in_edge[a]]);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private double weight(int w) {
+        return weighted ? w : 1.0;
+    }
+
+    /**
+     * Fase de movimento local do nível atual. No fim, comm
+     * guarda a comunidade de cada vértice do nível.
+     */
+    private void move() {
+        comm = new int[n];
+        next = new int[n];
+        tot = new double[n];
+        inside = new double[n];
+        k_deg = new double[n];
+        size = new int[n];
+        active = new boolean[n];
+        next_active = new boolean[n];
+
+        total = 0;
+        int max_degree = 0;
+
+        for (int v = 0; v < n; ++v) {
+            double k = loop[v];
+            for (int a = start[v]; a < start[v+1]; ++a)
+                k += wt[a];
+
+            k_deg[v] = k;
+            total += k;
+            max_degree = Math.max(max_degree, start[v+1] - start[v]);
+
+            comm[v] = v;
+            tot[v] = k;
+            size[v] = 1;
+            inside[v] = loop[v];
+            active[v] = true;
+        }
+
+        if (total == 0)
+            return;
+
+        int workers = Math.min(Parallel.getParallelism(), Math.max(1, n / BLOCK));
+        ArrayList<Mover> jobs = new ArrayList<Mover>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Mover(max_degree));
+
+        double last = Double.NEGATIVE_INFINITY;
+
+        for (int round = 0; round < max_rounds; ++round) {
+            Arrays.fill(next_active, false);
+            int moves = 0;
+
+            for (phase = 0; phase < PHASES; ++phase) {
+                System.arraycopy(comm, 0, next, 0, n);
+                cursor.set(0);
+
+                int m = 0;
+                for (int x : Parallel.invokeAll(jobs))
+                    m += x;
+
+                if (m == 0)
+                    continue;
+
+                moves += m;
+
+                int[] t = comm; comm = next; next = t;
+
+                Arrays.fill(tot, 0);
+                Arrays.fill(size, 0);
+
+                for (int v = 0; v < n; ++v) {
+                    tot[comm[v]] += k_deg[v];
+                    ++size[comm[v]];
+                }
+            }
+
+            if (control != null)
+                control.check(n, start[n]);
+
+            if (moves > 0)
+                updateInside();
+
+            double q = partitionQuality();
+
+            if (moves == 0 || q - last < tolerance)
+                break;
+
+            last = q;
+
+            boolean[] b = active; active = next_active; next_active = b;
+        }
+    }
+
+    /**
+     * Fase da rodada em que o vértice v pode se mover.
+     */
+    private static int phaseOf(int v) {
+        int h = v * 0x9E3779B1;
+        return (h >>> 16) % PHASES;
+    }
+
+    /**
+     * Recalcula o peso interno de cada vértice (o peso dos seus arcos
+     * para a própria comunidade, mais o laço) sobre a partição atual,
+     * depois dos movimentos de todas as fases da rodada.
+     */
+    private void updateInside() {
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    double in = loop[v];
+                    int c = comm[v];
+
+                    for (int a = start[v]; a < start[v+1]; ++a)
+                        if (comm[adj[a]] == c)
+                            in += wt[a];
+
+                    inside[v] = in;
+                }
+            }
+        });
+    }
+
+    /**
+     * Modularidade da partição atual do nível, usando o peso
+     * interno de cada vértice calculado por updateInside().
+     */
+    private double partitionQuality() {
+        double in = 0, sq = 0;
+
+        for (int v = 0; v < n; ++v) {
+            in += inside[v];
+            sq += tot[v] * tot[v];
+        }
+
+        return in / total - resolution * sq / (total * total);
+    }
+
+    /**
+     * Processa blocos de vértices até eles acabarem, escolhendo
+     * a melhor comunidade de cada vértice ativo.
+     */
+    private class Mover implements Callable<Integer> {
+        Mover(int max_degree) {
+            map = new NeighbourMap(max_degree);
+        }
+
+        public Integer call() {
+            int moves = 0;
+            int from;
+
+            while ((from = cursor.getAndAdd(BLOCK)) < n) {
+                int to = Math.min(from + BLOCK, n);
+
+                for (int v = from; v < to; ++v)
+                    if (active[v] && phaseOf(v) == phase && moveVertex(v))
+                        ++moves;
+            }
+
+            return moves;
+        }
+
+        private boolean moveVertex(int v) {
+            int c0 = comm[v];
+            double kv = k_deg[v];
+            double scale = resolution * kv / total;
+
+            map.clear();
+            for (int a = start[v]; a < start[v+1]; ++a)
+                map.add(comm[adj[a]], wt[a]);
+
+            double w0 = map.get(c0);
+            double stay = w0 - scale * (tot[c0] - kv);
+            int best = c0;
+            double best_gain = stay;
+
+            for (int i = 0; i < map.count; ++i) {
+                int c = map.keys[map.used[i]];
+                if (c == c0)
+                    continue;
+
+                double gain = map.vals[map.used[i]] - scale * tot[c];
+
+                if (gain > best_gain || (gain == best_gain && best != c0 && c < best)) {
+                    best = c;
+                    best_gain = gain;
+                }
+            }
+
+            if (best == c0)
+                return false;
+            if (size[c0] == 1 && size[best] == 1 && best > c0)
+                return false;
+
+            next[v] = best;
+            next_active[v] = true;
+            for (int a = start[v]; a < start[v+1]; ++a)
+                next_active[adj[a]] = true;
+
+            return true;
+        }
+
+        private NeighbourMap map;
+    }
+
+    /**
+     * Tabela hash de endereçamento aberto, de comunidade para peso,
+     * que guarda as posições usadas para ser limpa em O(usadas).
+     */
+    private static class NeighbourMap {
+        NeighbourMap(int max_keys) {
+            int cap = Integer.highestOneBit(Math.max(2 * max_keys, 2) - 1) << 1;
+
+            keys = new int[cap];
+            vals = new double[cap];
+            used = new int[cap];
+            mask = cap - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        void clear() {
+            for (int i = 0; i < count; ++i)
+                keys[used[i]] = -1;
+            count = 0;
+        }
+
+        void add(int key, double w) {
+            int h = hash(key);
+
+            while (keys[h] != key) {
+                if (keys[h] == -1) {
+                    keys[h] = key;
+                    vals[h] = 0;
+                    used[count++] = h;
+                    break;
+                }
+                h = (h + 1) & mask;
+            }
+
+            vals[h] += w;
+        }
+
+        double get(int key) {
+            int h = hash(key);
+
+            while (keys[h] != -1) {
+                if (keys[h] == key)
+                    return vals[h];
+                h = (h + 1) & mask;
+            }
+
+            return 0;
+        }
+
+        private int hash(int key) {
+            int h = key * 0x9E3779B1;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        int[] keys, used;
+        double[] vals;
+        int mask, count;
+    }
+
+    /**
+     * Renumera as comunidades do nível de 0 à k-1, em ordem do
+     * menor vértice de cada uma, guardando o número novo de cada
+     * comunidade c em label[c].
+     * @return O número de comunidades, k.
+     */
+    private int relabel(int[] label) {
+        Arrays.fill(label, -1);
+        int k = 0;
+
+        for (int v = 0; v < n; ++v)
+            if (label[comm[v]] == -1)
+                label[comm[v]] = k++;
+
+        return k;
+    }
+
+    /**
+     * Monta o próximo nível, com um vértice por comunidade.
+     */
+    private void aggregate(final int[] label, final int k) {
+        final int[] members = new int[n];
+        final int[] first = new int[k+1];
+
+        for (int v = 0; v < n; ++v)
+            ++first[label[comm[v]] + 1];
+        for (int c = 0; c < k; ++c)
+            first[c+1] += first[c];
+
+        int[] pos = Arrays.copyOf(first, k);
+        for (int v = 0; v < n; ++v)
+            members[pos[label[comm[v]]]++] = v;
+
+        final int[] new_start = new int[k+1];
+        final double[] new_loop = new double[k];
+        int max_degree = 0;
+
+        for (int v = 0; v < n; ++v)
+            max_degree = Math.max(max_degree, start[v+1] - start[v]);
+
+        runAggregators(new Aggregator(label, members, first, new_start, new_loop, null, null, 0), k, max_degree);
+
+        for (int c = 0; c < k; ++c)
+            new_start[c+1] += new_start[c];
+
+        final int[] new_adj = new int[new_start[k]];
+        final double[] new_wt = new double[new_start[k]];
+
+        runAggregators(new Aggregator(label, members, first, new_start, new_loop, new_adj, new_wt, 0), k, max_degree);
+
+        n = k;
+        start = new_start;
+        adj = new_adj;
+        wt = new_wt;
+        loop = new_loop;
+    }
+
+    private void runAggregators(Aggregator proto, int k, int max_degree) {
+        int workers = Math.min(Parallel.getParallelism(), Math.max(1, k / AGGREGATE_BLOCK));
+        ArrayList<Aggregator> jobs = new ArrayList<Aggregator>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Aggregator(proto.label, proto.members, proto.first, proto.new_start,
+                                    proto.new_loop, proto.new_adj, proto.new_wt, max_degree));
+
+        cursor.set(0);
+        Parallel.invokeAll(jobs);
+    }
+
+    /**
+     * Soma, para cada comunidade, os pesos das arestas até as outras
+     * comunidades. Na primeira passada (new_adj == null) conta os
+     * vizinhos de cada comunidade em new_start[c+1] e calcula os laços;
+     * na segunda preenche as listas à partir de new_start[c].
+     */
+    private class Aggregator implements Callable<Object> {
+        Aggregator(int[] label, int[] members, int[] first, int[] new_start,
+                   double[] new_loop, int[] new_adj, double[] new_wt, int max_degree) {
+            this.label = label;
+            this.members = members;
+            this.first = first;
+            this.new_start = new_start;
+            this.new_loop = new_loop;
+            this.new_adj = new_adj;
+            this.new_wt = new_wt;
+
+            map = new NeighbourMap(Math.max(1, Math.min(max_degree * 4, n)));
+        }
+
+        public Object call() {
+            int k = first.length - 1;
+            int from;
+
+            while ((from = cursor.getAndAdd(AGGREGATE_BLOCK)) < k) {
+                int to = Math.min(from + AGGREGATE_BLOCK, k);
+
+                for (int c = from; c < to; ++c)
+                    aggregate(c);
+            }
+
+            return null;
+        }
+
+        private void aggregate(int c) {
+            double self = 0;
+
+            map.clear();
+
+            for (int i = first[c]; i < first[c+1]; ++i) {
+                int v = members[i];
+                self += loop[v];
+
+                for (int a = start[v]; a < start[v+1]; ++a) {
+                    int d = label[comm[adj[a]]];
+
+                    if (d == c)
+                        self += wt[a];
+                    else
+                        map.add(d, wt[a]);
+
+                    if (map.count * 2 > map.mask)
+                        grow();
+                }
+            }
+
+            if (new_adj == null) {
+                new_start[c+1] = map.count;
+                new_loop[c] = self;
+                return;
+            }
+
+            int k = new_start[c];
+            for (int i = 0; i < map.count; ++i) {
+                new_adj[k] = map.keys[map.used[i]];
+                new_wt[k++] = map.vals[map.used[i]];
+            }
+        }
+
+        /**
+         * Dobra a tabela, já que uma comunidade pode ter mais
+         * vizinhas do que o maior grau de um vértice.
+         */
+        private void grow() {
+            NeighbourMap bigger = new NeighbourMap(map.mask + 1);
+
+            for (int i = 0; i < map.count; ++i)
+                bigger.add(map.keys[map.used[i]], map.vals[map.used[i]]);
+
+            map = bigger;
+        }
+
+        private int[] label, members, first, new_start, new_adj;
+        private double[] new_loop, new_wt;
+        private NeighbourMap map;
+    }
+
+    /**
+     * Quebra as comunidades desconexas nas suas componentes conexas
+     * e renumera o resultado em ordem do menor vértice.
+     */
+    private void split() {
+        DisjointSet sets = new DisjointSet(n);
+
+        for (int v = 0; v < n; ++v)
+            for (int a = start[v]; a < start[v+1]; ++a)
+                if (community[v] == community[adj[a]])
+                    sets.union(v, adj[a]);
+
+        int[] id = new int[n];
+        Arrays.fill(id, -1);
+        num_communities = 0;
+
+        for (int v = 0; v < n; ++v) {
+            int r = sets.find(v);
+            if (id[r] == -1)
+                id[r] = num_communities++;
+            community[v] = id[r];
+        }
+
+        community_size = new int[num_communities];
+        for (int v = 0; v < n; ++v)
+            ++community_size[community[v]];
+    }
+
+    /**
+     * Modularidade da partição final sobre o grafo original.
+     */
+    private double computeModularity() {
+        double[] tot_c = new double[num_communities];
+        double in = 0, sum = 0;
+
+        for (int v = 0; v < n; ++v) {
+            double k = loop[v];
+            in += loop[v];
+
+            for (int a = start[v]; a < start[v+1]; ++a) {
+                k += wt[a];
+                if (community[adj[a]] == community[v])
+                    in += wt[a];
+            }
+
+            tot_c[community[v]] += k;
+            sum += k;
+        }
+
+        if (sum == 0)
+            return 0;
+
+        double sq = 0;
+        for (double t : tot_c)
+            sq += t * t;
+
+        return in / sum - resolution * sq / (sum * sum);
+    }
+
+    /**
+     * Retorna a comunidade do vértice v.
+     */
+    public int getCommunity(int v) {
+        return community[v];
+    }
+
+    /**
+     * Retorna o vetor de comunidades de todos os vértices, numeradas
+     * de 0 à getNumCommunities()-1 em ordem do menor vértice de cada.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public int[] getCommunities() {
+        return community;
+    }
+
+    /**
+     * Retorna o número de comunidades encontradas.
+     */
+    public int getNumCommunities() {
+        return num_communities;
+    }
+
+    /**
+     * Retorna o número de vértices da comunidade c.
+     */
+    public int getCommunitySize(int c) {
+        return community_size[c];
+    }
+
+    /**
+     * Retorna a modularidade da partição encontrada.
+     */
+    public double getModularity() {
+        return modularity;
+    }
+
+    /**
+     * Retorna o número de níveis de agregação feitos.
+     */
+    public int getNumLevels() {
+        return levels;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private boolean weighted;
+    private double resolution, tolerance;
+    private int max_rounds;
+
+    private int[] community, community_size;
+    private int num_communities, levels;
+    private double modularity;
+
+    /* Grafo do nível atual, em formato CSR não direcionado. */
+    private int n;
+    private int[] start, adj;
+    private double[] wt, loop;
+
+    /* Estado do movimento local. */
+    private int[] comm, next, size;
+    private double[] tot, inside, k_deg;
+    private boolean[] active, next_active;
+    private double total;
+    private int phase;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private static final int GRAIN = 1 << 12;
+    private static final int BLOCK = 256;
+    private static final int AGGREGATE_BLOCK = 64;
+    private static final int PHASES = 4;
+}
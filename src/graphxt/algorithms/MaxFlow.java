@@ -0,0 +1,610 @@
+/*
+ * MaxFlow.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * MaxFlow
+ *
+ * Fluxo máximo entre dois vértices, sobre a rede residual de
+ * FlowNetwork, onde a capacidade de cada aresta é o seu peso.
+ * Oferece dois algoritmos:
+ *
+ * - DINIC: à cada fase, monta o grafo de níveis com uma busca em
+ *   largura à partir da origem e acha um fluxo bloqueante nele, com
+ *   ponteiros de arco corrente. O(V²E) no pior caso, e muito mais
+ *   rápido na prática, principalmente em redes de capacidade unitária.
+ *
+ * - PUSH_RELABEL: push-relabel processando sempre o vértice ativo de
+ *   maior altura, com a heurística de gap e reconstruções globais
+ *   periódicas das alturas. A primeira fase calcula o valor do fluxo
+ *   e o corte mínimo; a segunda devolve à origem o excesso que
+ *   sobrou, transformando o pré-fluxo em um fluxo válido.
+ *
+ * Depois de uma execução, o corte mínimo é extraído do grafo residual
+ * final: o lado da origem são os vértices que ela ainda alcança por
+ * arcos não saturados, e as arestas do corte são as que saem desse lado.
+ *
+ * @author Giuliano Vilela
+ */
+public class MaxFlow {
+    public static final int DINIC = 0;
+    public static final int PUSH_RELABEL = 1;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     * @throws IllegalArgumentException Caso alguma aresta tenha peso negativo.
+     */
+    public MaxFlow(IndexedGraph<?> graph) {
+        this.graph = graph;
+        net = new FlowNetwork(graph);
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada fase do
+     * Dinic e à cada reconstrução das alturas do push-relabel. Com
+     * null (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula o fluxo máximo de source para sink com o algoritmo de Dinic.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public MaxFlow run(int source, int sink) {
+        return run(DINIC, source, sink);
+    }
+
+    /**
+     * Calcula o fluxo máximo de source para sink com o
+     * algoritmo indicado (DINIC ou PUSH_RELABEL).
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public MaxFlow run(int algorithm, int source, int sink) {
+        int n = net.num_vertex;
+
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            throw new IllegalArgumentException("Invalid source or sink.");
+        if (source == sink)
+            throw new IllegalArgumentException("Source and sink must be different.");
+
+        net.reset();
+        source_side = null;
+        this.source = source;
+        this.sink = sink;
+
+        switch (algorithm) {
+            case DINIC:
+                max_flow = dinic();
+                break;
+            case PUSH_RELABEL:
+                max_flow = pushRelabel();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + algorithm + ".");
+        }
+
+        return this;
+    }
+
+    /*
+     * Dinic
+     */
+
+    private long dinic() {
+        int n = net.num_vertex;
+        int[] start = net.start;
+        long flow = 0;
+
+        level = new int[n];
+        current = new int[n];
+        queue = new int[n];
+        path = new int[n];
+
+        while (buildLevels()) {
+            System.arraycopy(start, 0, current, 0, n);
+            flow += blockingFlow();
+
+            if (control != null)
+                control.check(n, start[n]);
+        }
+
+        return flow;
+    }
+
+    /**
+     * Calcula a distância de cada vértice à origem no grafo residual.
+     * @return true caso o sorvedouro seja alcançável.
+     */
+    private boolean buildLevels() {
+        int[] start = net.start, head = net.head;
+        long[] cap = net.cap;
+
+        Arrays.fill(level, -1);
+        int qh = 0, qt = 0;
+
+        level[source] = 0;
+        queue[qt++] = source;
+
+        while (qh < qt) {
+            int u = queue[qh++];
+
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                int v = head[a];
+                if (cap[a] > 0 && level[v] == -1) {
+                    level[v] = level[u] + 1;
+                    queue[qt++] = v;
+                }
+            }
+        }
+
+        return level[sink] != -1;
+    }
+
+    /**
+     * Acha um fluxo bloqueante no grafo de níveis, com uma busca em
+     * profundidade iterativa que avança pelos arcos correntes. Depois
+     * de cada aumento, a busca recua somente até o primeiro arco saturado.
+     */
+    private long blockingFlow() {
+        int[] start = net.start, head = net.head, rev = net.rev;
+        long[] cap = net.cap;
+        long flow = 0;
+        int sp = 0, v = source;
+
+        while (true) {
+            if (v == sink) {
+                long push = Long.MAX_VALUE;
+                for (int i = 0; i < sp; ++i)
+                    push = Math.min(push, cap[path[i]]);
+
+                int first = -1;
+                for (int i = 0; i < sp; ++i) {
+                    int a = path[i];
+                    cap[a] -= push;
+                    cap[rev[a]] += push;
+                    if (cap[a] == 0 && first == -1)
+                        first = i;
+                }
+
+                flow += push;
+                sp = first;
+                v = net.tail(path[first]);
+                continue;
+            }
+
+            int a = current[v];
+            while (a < start[v+1] && (cap[a] == 0 || level[head[a]] != level[v] + 1))
+                ++a;
+            current[v] = a;
+
+            if (a < start[v+1]) {
+                path[sp++] = a;
+                v = head[a];
+                continue;
+            }
+
+            level[v] = -1;
+
+            if (sp == 0)
+                return flow;
+
+            v = net.tail(path[--sp]);
+            ++current[v];
+        }
+    }
+
+    /*
+     * Push-relabel
+     */
+
+    private long pushRelabel() {
+        int n = net.num_vertex;
+        int[] start = net.start, head = net.head, rev = net.rev;
+        long[] cap = net.cap;
+
+        height = new int[n];
+        current = new int[n];
+        excess = new long[n];
+        active_head = new int[2*n];
+        active_next = new int[n];
+        all_head = new int[2*n];
+        all_next = new int[n];
+        all_prev = new int[n];
+        queue = new int[n];
+
+        globalRelabel();
+
+        if (control != null)
+            control.check(0, start[n]);
+
+        for (int a = start[source]; a < start[source+1]; ++a) {
+            long c = cap[a];
+            if (c == 0)
+                continue;
+
+            int v = head[a];
+            cap[a] = 0;
+            cap[rev[a]] += c;
+            excess[v] += c;
+            excess[source] -= c;
+
+            if (v != sink && excess[v] == c && height[v] < n)
+                addActive(v);
+        }
+
+        int work = 0;
+
+        while (max_active >= 0) {
+            int v = active_head[max_active];
+
+            if (v == -1) {
+                --max_active;
+                continue;
+            }
+
+            active_head[max_active] = active_next[v];
+
+            if (height[v] != max_active || height[v] >= n)
+                continue;
+
+            work += discharge(v);
+
+            if (work > GLOBAL_RELABEL_FREQ * n) {
+                if (control != null)
+                    control.check(n, work);
+
+                work = 0;
+                globalRelabel();
+            }
+        }
+
+        long flow = excess[sink];
+        returnExcess();
+
+        return flow;
+    }
+
+    /**
+     * Empurra o excesso de v pelos arcos admissíveis, reetiquetando
+     * v quando eles acabam, até v ficar sem excesso ou sair da fase
+     * (altura maior ou igual à n).
+     * @return Uma estimativa do trabalho feito, para decidir quando
+     *         reconstruir as alturas.
+     */
+    private int discharge(int v) {
+        int n = net.num_vertex;
+        int[] start = net.start, head = net.head, rev = net.rev;
+        long[] cap = net.cap;
+        int work = 0;
+
+        while (excess[v] > 0) {
+            int a = current[v];
+
+            for (; a < start[v+1]; ++a) {
+                int w = head[a];
+
+                if (cap[a] == 0 || height[w] + 1 != height[v])
+                    continue;
+
+                long push = Math.min(excess[v], cap[a]);
+                cap[a] -= push;
+                cap[rev[a]] += push;
+                excess[v] -= push;
+
+                if (excess[w] == 0 && w != sink && w != source)
+                    addActive(w);
+                excess[w] += push;
+
+                if (excess[v] == 0)
+                    break;
+            }
+
+            current[v] = a;
+
+            if (excess[v] == 0)
+                break;
+
+            int old = height[v];
+            int min = 2*n;
+
+            for (int b = start[v]; b < start[v+1]; ++b)
+                if (cap[b] > 0 && height[head[b]] < min)
+                    min = height[head[b]];
+
+            work += start[v+1] - start[v] + WORK_PER_RELABEL;
+
+            removeFromAll(v);
+
+            if (all_head[old] == -1) {
+                gap(old);
+                height[v] = n;
+                return work;
+            }
+
+            height[v] = Math.min(min + 1, n);
+            current[v] = start[v];
+
+            if (height[v] >= n)
+                return work;
+
+            addToAll(v);
+        }
+
+        return work;
+    }
+
+    /**
+     * Heurística de gap: não há mais vértices com altura h, então
+     * nenhum vértice acima de h alcança o sorvedouro, e todos são
+     * levados para a altura n.
+     */
+    private void gap(int h) {
+        int n = net.num_vertex;
+
+        for (int k = h+1; k <= max_height; ++k) {
+            for (int v = all_head[k]; v != -1; v = all_next[v])
+                height[v] = n;
+
+            all_head[k] = -1;
+            active_head[k] = -1;
+        }
+
+        max_height = h - 1;
+        if (max_active > max_height)
+            max_active = max_height;
+    }
+
+    /**
+     * Reconstrói as alturas como a distância exata de cada vértice
+     * até o sorvedouro no grafo residual, com uma busca em largura
+     * reversa. Vértices que não alcançam o sorvedouro ficam com
+     * altura n.
+     */
+    private void globalRelabel() {
+        int n = net.num_vertex;
+        int[] start = net.start, head = net.head, rev = net.rev;
+        long[] cap = net.cap;
+
+        Arrays.fill(height, n);
+        Arrays.fill(active_head, -1);
+        Arrays.fill(all_head, -1);
+        max_active = -1;
+        max_height = -1;
+
+        int qh = 0, qt = 0;
+        height[sink] = 0;
+        queue[qt++] = sink;
+
+        while (qh < qt) {
+            int u = queue[qh++];
+
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                int v = head[a];
+                if (cap[rev[a]] > 0 && height[v] == n && v != source) {
+                    height[v] = height[u] + 1;
+                    queue[qt++] = v;
+                }
+            }
+        }
+
+        for (int v = 0; v < n; ++v) {
+            current[v] = start[v];
+
+            if (height[v] >= n || v == sink)
+                continue;
+
+            addToAll(v);
+            if (excess[v] > 0)
+                addActive(v);
+        }
+    }
+
+    /**
+     * Segunda fase: devolve à origem o excesso que ficou preso nos
+     * vértices que não alcançam o sorvedouro. As alturas passam a ser
+     * a distância até a origem, e o excesso é descarregado em ordem FIFO.
+     */
+    private void returnExcess() {
+        int n = net.num_vertex;
+        int[] start = net.start, head = net.head, rev = net.rev;
+        long[] cap = net.cap;
+
+        Arrays.fill(height, 2*n);
+        int qh = 0, qt = 0;
+        height[source] = 0;
+        queue[qt++] = source;
+
+        while (qh < qt) {
+            int u = queue[qh++];
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                int v = head[a];
+                if (cap[rev[a]] > 0 && height[v] == 2*n) {
+                    height[v] = height[u] + 1;
+                    queue[qt++] = v;
+                }
+            }
+        }
+
+        boolean[] queued = new boolean[n];
+        int[] fifo = new int[n];
+        int fh = 0, fcount = 0;
+
+        for (int v = 0; v < n; ++v) {
+            current[v] = start[v];
+            if (v != source && v != sink && excess[v] > 0) {
+                fifo[(fh + fcount++) % n] = v;
+                queued[v] = true;
+            }
+        }
+
+        while (fcount > 0) {
+            int v = fifo[fh];
+            fh = (fh + 1) % n;
+            --fcount;
+            queued[v] = false;
+
+            while (excess[v] > 0) {
+                int a = current[v];
+
+                for (; a < start[v+1] && excess[v] > 0; ++a) {
+                    int w = head[a];
+                    if (cap[a] == 0 || height[w] + 1 != height[v])
+                        continue;
+
+                    long push = Math.min(excess[v], cap[a]);
+                    cap[a] -= push;
+                    cap[rev[a]] += push;
+                    excess[v] -= push;
+                    excess[w] += push;
+
+                    if (w != source && w != sink && !queued[w]) {
+                        fifo[(fh + fcount++) % n] = w;
+                        queued[w] = true;
+                    }
+                }
+
+                current[v] = a;
+
+                if (excess[v] == 0)
+                    break;
+
+                int min = Integer.MAX_VALUE;
+                for (int b = start[v]; b < start[v+1]; ++b)
+                    if (cap[b] > 0 && height[head[b]] < min)
+                        min = height[head[b]];
+
+                height[v] = min + 1;
+                current[v] = start[v];
+            }
+        }
+    }
+
+    private void addActive(int v) {
+        int h = height[v];
+        active_next[v] = active_head[h];
+        active_head[h] = v;
+        if (h > max_active)
+            max_active = h;
+    }
+
+    private void addToAll(int v) {
+        int h = height[v];
+        all_prev[v] = -1;
+        all_next[v] = all_head[h];
+        if (all_head[h] != -1)
+            all_prev[all_head[h]] = v;
+        all_head[h] = v;
+        if (h > max_height)
+            max_height = h;
+    }
+
+    private void removeFromAll(int v) {
+        int h = height[v];
+        if (all_prev[v] != -1)
+            all_next[all_prev[v]] = all_next[v];
+        else
+            all_head[h] = all_next[v];
+        if (all_next[v] != -1)
+            all_prev[all_next[v]] = all_prev[v];
+    }
+
+    /**
+     * Retorna o valor do fluxo máximo.
+     */
+    public long getMaxFlow() {
+        return max_flow;
+    }
+
+    /**
+     * Retorna o fluxo líquido que passa pela aresta e, no sentido do
+     * seu vértice inicial para o final. Em arestas não direcionadas o
+     * valor é negativo quando o fluxo passa no sentido contrário.
+     */
+    public long getFlow(int e) {
+        return net.getFlow(e);
+    }
+
+    /**
+     * Retorna a capacidade da aresta e.
+     */
+    public long getCapacity(int e) {
+        return graph.edge_weight[e];
+    }
+
+    /**
+     * Indica se o vértice v fica do lado da origem no corte mínimo,
+     * ou seja, se ele ainda é alcançável à partir da origem no grafo
+     * residual da última execução.
+     */
+    public boolean isSourceSide(int v) {
+        if (source_side == null)
+            source_side = net.residualReach(source);
+        return source_side[v];
+    }
+
+    /**
+     * Retorna as arestas do corte mínimo, em ordem de índice: as que
+     * ligam um vértice do lado da origem à um do lado do sorvedouro
+     * (em qualquer sentido, no caso de arestas não direcionadas).
+     * A soma das suas capacidades é igual ao fluxo máximo.
+     */
+    public int[] getMinCut() {
+        IntList cut = new IntList();
+
+        for (int e = 0; e < graph.edge_start.length; ++e) {
+            boolean u = isSourceSide(graph.edge_start[e]);
+            boolean v = isSourceSide(graph.edge_end[e]);
+
+            if (u && !v || v && !u && !graph.edge_directed[e])
+                cut.add(e);
+        }
+
+        return cut.toArray();
+    }
+
+    /**
+     * Retorna a origem usada na última execução.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o sorvedouro usado na última execução.
+     */
+    public int getSink() {
+        return sink;
+    }
+
+    /**
+     * Retorna a rede residual, no estado deixado pela última execução.
+     */
+    FlowNetwork getNetwork() {
+        return net;
+    }
+
+    private IndexedGraph<?> graph;
+    private FlowNetwork net;
+    private int source, sink;
+    private long max_flow;
+    private boolean[] source_side;
+    private RunControl control;
+
+    private int[] level, current, queue, path;
+
+    private int[] height, active_head, active_next, all_head, all_next, all_prev;
+    private long[] excess;
+    private int max_active, max_height;
+
+    private static final int GLOBAL_RELABEL_FREQ = 6;
+    private static final int WORK_PER_RELABEL = 12;
+}
@@ -0,0 +1,362 @@
+/*
+ * MinCostFlow.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * MinCostFlow
+ *
+ * Fluxo de custo mínimo pelo método dos caminhos mínimos sucessivos.
+ * À cada iteração, o fluxo é aumentado pelo caminho de menor custo da
+ * origem ao sorvedouro no grafo residual, até atingir o limite pedido
+ * ou até o sorvedouro ficar inalcançável.
+ *
+ * Os caminhos são achados com Dijkstra sobre custos reduzidos por
+ * potenciais (como no algoritmo de Johnson), que nunca são negativos,
+ * usando um IndexedHeap. O Dijkstra para assim que o sorvedouro sai do
+ * heap, e somente os potenciais dos vértices já fixados são atualizados,
+ * de modo que cada iteração custa proporcionalmente à região explorada.
+ *
+ * Custos negativos são aceitos em arestas direcionadas: os potenciais
+ * iniciais são então calculados com Bellman-Ford (em fila). Um ciclo de
+ * custo negativo alcançável pela origem torna o problema ilimitado.
+ *
+ * Arestas não direcionadas podem ser usadas nos dois sentidos, cada
+ * um com a capacidade e o custo da aresta.
+ *
+ * @author Giuliano Vilela
+ */
+public class MinCostFlow {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph, onde a
+     * capacidade de cada aresta é o seu peso e o custo por unidade de
+     * fluxo é dado por cost (indexado por aresta).
+     * @throws IllegalArgumentException Caso algum peso seja negativo ou
+     *         alguma aresta não direcionada tenha custo negativo.
+     */
+    public MinCostFlow(IndexedGraph<?> graph, int[] cost) {
+        this(graph, graph.edge_weight, cost);
+    }
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph, com as
+     * capacidades e custos por unidade de fluxo dados por capacity
+     * e cost (indexados por aresta).
+     * @throws IllegalArgumentException Caso alguma capacidade seja negativa
+     *         ou alguma aresta não direcionada tenha custo negativo.
+     */
+    public MinCostFlow(IndexedGraph<?> graph, int[] capacity, int[] cost) {
+        int m = graph.edge_start.length;
+
+        if (capacity.length != m || cost.length != m)
+            throw new IllegalArgumentException("Expected " + m + " capacities and costs.");
+
+        this.capacity = capacity.clone();
+        this.cost = cost.clone();
+
+        net = new FlowNetwork(graph, this.capacity, true);
+        arc_cost = new long[net.head.length];
+
+        for (int e = 0; e < m; ++e) {
+            if (cost[e] < 0 && !graph.edge_directed[e])
+                throw new IllegalArgumentException("Undirected edge " + e + " has a negative cost.");
+
+            if (cost[e] < 0)
+                has_negative = true;
+
+            setArcCost(net.edge_arc[e], cost[e]);
+            setArcCost(net.edge_back[e], cost[e]);
+        }
+
+        int n = graph.num_vertex;
+        potential = new long[n];
+        dist = new long[n];
+        pred = new int[n];
+        settled = new int[n];
+        touched = new int[n];
+        heap = new IndexedHeap(n);
+
+        Arrays.fill(dist, INF);
+    }
+
+    private void setArcCost(int a, long c) {
+        if (a == -1)
+            return;
+        arc_cost[a] = c;
+        arc_cost[net.rev[a]] = -c;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado depois de cada
+     * caminho mínimo e à cada V vértices tirados da fila do
+     * Bellman-Ford inicial. Com null (o padrão), o cálculo não é
+     * controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Calcula um fluxo máximo de source para sink com custo mínimo.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public MinCostFlow run(int source, int sink) {
+        return run(source, sink, Long.MAX_VALUE);
+    }
+
+    /**
+     * Calcula um fluxo de source para sink de valor
+     * min(limit, fluxo máximo) com custo mínimo.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws IllegalArgumentException Caso a origem alcance um ciclo
+     *         de custo negativo.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public MinCostFlow run(int source, int sink, long limit) {
+        int n = net.num_vertex;
+
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            throw new IllegalArgumentException("Invalid source or sink.");
+        if (source == sink)
+            throw new IllegalArgumentException("Source and sink must be different.");
+
+        net.reset();
+        this.source = source;
+        this.sink = sink;
+        flow_value = 0;
+        total_cost = 0;
+        num_augmentations = 0;
+
+        Arrays.fill(potential, 0);
+        if (has_negative)
+            initPotentials();
+
+        int[] rev = net.rev;
+        long[] cap = net.cap;
+
+        while (flow_value < limit && shortestPath()) {
+            long push = limit - flow_value;
+
+            for (int v = sink; v != source; v = net.tail(pred[v]))
+                push = Math.min(push, cap[pred[v]]);
+
+            for (int v = sink; v != source; v = net.tail(pred[v])) {
+                int a = pred[v];
+                cap[a] -= push;
+                cap[rev[a]] += push;
+                total_cost += push * arc_cost[a];
+            }
+
+            flow_value += push;
+            ++num_augmentations;
+        }
+
+        return this;
+    }
+
+    /**
+     * Calcula os potenciais iniciais como as distâncias da origem
+     * pelos arcos com capacidade, com Bellman-Ford em fila. Vértices
+     * que a origem não alcança nunca entram num caminho de aumento.
+     */
+    private void initPotentials() {
+        int n = net.num_vertex;
+        int[] start = net.start, head = net.head;
+        long[] cap = net.cap;
+        int[] count = new int[n];
+        int[] queue = new int[n];
+        boolean[] queued = new boolean[n];
+        int qh = 0, qcount = 0, pops = 0;
+        long arcs = 0;
+
+        Arrays.fill(potential, INF);
+        potential[source] = 0;
+        queue[qcount++] = source;
+        queued[source] = true;
+
+        while (qcount > 0) {
+            int u = queue[qh];
+            qh = (qh + 1) % n;
+            --qcount;
+            queued[u] = false;
+
+            arcs += start[u+1] - start[u];
+            if (control != null && ++pops == n) {
+                control.check(pops, arcs);
+                pops = 0;
+                arcs = 0;
+            }
+
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                if (cap[a] == 0)
+                    continue;
+
+                int v = head[a];
+                long d = potential[u] + arc_cost[a];
+
+                if (d >= potential[v])
+                    continue;
+
+                potential[v] = d;
+
+                if (!queued[v]) {
+                    if (++count[v] >= n)
+                        throw new IllegalArgumentException("Negative cost cycle reachable from the source.");
+
+                    queue[(qh + qcount++) % n] = v;
+                    queued[v] = true;
+                }
+            }
+        }
+
+        for (int v = 0; v < n; ++v)
+            if (potential[v] == INF)
+                potential[v] = 0;
+    }
+
+    /**
+     * Dijkstra sobre os custos reduzidos, parando no sorvedouro.
+     * Deixa em pred o arco usado para chegar em cada vértice e
+     * atualiza os potenciais dos vértices fixados.
+     * @return true caso o sorvedouro seja alcançável.
+     */
+    private boolean shortestPath() {
+        int[] start = net.start, head = net.head;
+        long[] cap = net.cap;
+        int num_settled = 0, num_touched = 0;
+        long arcs = 0;
+        boolean found = false;
+
+        dist[source] = 0;
+        touched[num_touched++] = source;
+        heap.push(source, 0);
+
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            settled[num_settled++] = u;
+
+            if (u == sink) {
+                found = true;
+                break;
+            }
+
+            long du = dist[u] + potential[u];
+            arcs += start[u+1] - start[u];
+
+            for (int a = start[u]; a < start[u+1]; ++a) {
+                if (cap[a] == 0)
+                    continue;
+
+                int v = head[a];
+                long d = du + arc_cost[a] - potential[v];
+
+                if (d < dist[v]) {
+                    if (dist[v] == INF)
+                        touched[num_touched++] = v;
+                    dist[v] = d;
+                    pred[v] = a;
+                    heap.push(v, d);
+                }
+            }
+        }
+
+        /*
+         * Os potenciais deveriam aumentar de min(dist[v], dist[sink]).
+         * Como somar uma constante à todos não muda os custos reduzidos,
+         * basta diminuir os fixados de dist[sink] - dist[v].
+         */
+        if (found) {
+            long d_sink = dist[sink];
+            for (int i = 0; i < num_settled; ++i) {
+                int v = settled[i];
+                potential[v] -= d_sink - dist[v];
+            }
+        }
+
+        for (int i = 0; i < num_touched; ++i)
+            dist[touched[i]] = INF;
+        heap.clear();
+
+        if (control != null)
+            control.check(num_settled, arcs);
+
+        return found;
+    }
+
+    /**
+     * Retorna o valor do fluxo encontrado.
+     */
+    public long getFlowValue() {
+        return flow_value;
+    }
+
+    /**
+     * Retorna o custo total do fluxo encontrado.
+     */
+    public long getTotalCost() {
+        return total_cost;
+    }
+
+    /**
+     * Retorna o número de caminhos de aumento usados.
+     */
+    public int getNumAugmentations() {
+        return num_augmentations;
+    }
+
+    /**
+     * Retorna o fluxo líquido que passa pela aresta e, no sentido do
+     * seu vértice inicial para o final. Em arestas não direcionadas o
+     * valor é negativo quando o fluxo passa no sentido contrário.
+     */
+    public long getFlow(int e) {
+        return net.getFlow(e);
+    }
+
+    /**
+     * Retorna a capacidade da aresta e.
+     */
+    public long getCapacity(int e) {
+        return capacity[e];
+    }
+
+    /**
+     * Retorna o custo por unidade de fluxo da aresta e.
+     */
+    public long getCost(int e) {
+        return cost[e];
+    }
+
+    /**
+     * Retorna a origem usada na última execução.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o sorvedouro usado na última execução.
+     */
+    public int getSink() {
+        return sink;
+    }
+
+    private FlowNetwork net;
+    private int[] capacity, cost;
+    private long[] arc_cost;
+    private boolean has_negative;
+    private RunControl control;
+    private int source, sink, num_augmentations;
+    private long flow_value, total_cost;
+
+    private long[] potential, dist;
+    private int[] pred, settled, touched;
+    private IndexedHeap heap;
+
+    private static final long INF = Long.MAX_VALUE;
+}
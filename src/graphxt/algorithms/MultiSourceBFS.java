@@ -0,0 +1,258 @@
+/*
+ * MultiSourceBFS.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MultiSourceBFS
+ *
+ * Busca em largura simultânea à partir de várias origens (MS-BFS,
+ * Then et al.). As origens são agrupadas em lotes de 64, e cada
+ * vértice guarda um long por lote: o bit i indica se a busca da
+ * i-ésima origem do lote já passou pelo vértice. Assim, uma única
+ * varredura das adjacências avança as 64 buscas ao mesmo tempo, e o
+ * acesso à memória é dividido entre todas elas.
+ *
+ * Lotes diferentes são independentes, e são processados em paralelo.
+ * Cada thread aloca os seus vetores de máscaras uma única vez e pega
+ * o próximo lote de um contador compartilhado, de modo que lotes mais
+ * demorados não deixam as outras threads paradas.
+ *
+ * Para cada origem são calculados o número de vértices alcançados,
+ * a soma das distâncias até eles e a excentricidade, o que basta para
+ * closeness e consultas de alcançabilidade. Consultas mais específicas
+ * podem ser feitas através de um Visitor.
+ *
+ * @author Giuliano Vilela
+ */
+public class MultiSourceBFS {
+    /**
+     * Recebe cada par (origem, vértice) alcançado pela busca.
+     * É chamado concorrentemente por threads diferentes, uma por
+     * lote de origens, e portanto deve ser thread-safe.
+     */
+    public interface Visitor {
+        /**
+         * @param source Posição da origem no vetor passado para run()
+         * @param vertex Vértice alcançado
+         * @param distance Distância da origem até o vértice
+         */
+        public void visit(int source, int vertex, int distance);
+    }
+
+    /**
+     * Prepara a busca para rodar sobre o grafo graph.
+     */
+    public MultiSourceBFS(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado por cada thread ao
+     * fim de cada nível de um lote. Com null (o padrão), as buscas não
+     * são controladas.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Executa as buscas à partir de todas as origens em sources.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public MultiSourceBFS run(int[] sources) {
+        return run(sources, null);
+    }
+
+    /**
+     * Executa as buscas à partir de todas as origens em sources,
+     * informando cada vértice alcançado ao visitor (que pode ser null).
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public MultiSourceBFS run(int[] sources, Visitor visitor) {
+        int k = sources.length;
+
+        this.sources = sources.clone();
+        this.visitor = visitor;
+        reached = new int[k];
+        distance_sum = new long[k];
+        eccentricity = new int[k];
+
+        num_batches = (k + 63) / 64;
+        cursor.set(0);
+
+        int workers = Math.min(Parallel.getParallelism(), num_batches);
+        ArrayList<Worker> jobs = new ArrayList<Worker>(workers);
+
+        for (int i = 0; i < workers; ++i)
+            jobs.add(new Worker());
+
+        try {
+            Parallel.invokeAll(jobs);
+        } finally {
+            this.visitor = null;
+        }
+
+        return this;
+    }
+
+    /**
+     * Thread de busca: pega lotes do contador até que acabem,
+     * reaproveitando os mesmos vetores de máscaras em todos eles.
+     */
+    private class Worker implements Callable<Object> {
+        Worker() {
+            int n = graph.num_vertex;
+            seen = new long[n];
+            visit = new long[n];
+            next = new long[n];
+        }
+
+        public Object call() {
+            int b;
+
+            while ((b = cursor.getAndIncrement()) < num_batches)
+                runBatch(b*64, Math.min(sources.length, b*64 + 64), seen, visit, next);
+
+            return null;
+        }
+
+        private long[] seen, visit, next;
+    }
+
+    /**
+     * Executa as buscas das origens sources[lo,hi), com no máximo 64 origens.
+     */
+    private void runBatch(int lo, int hi, long[] seen, long[] visit, long[] next) {
+        int n = graph.num_vertex;
+        int[] out_start = graph.out_start, out_target = graph.out_target;
+
+        Arrays.fill(seen, 0);
+        Arrays.fill(visit, 0);
+        Arrays.fill(next, 0);
+
+        for (int i = lo; i < hi; ++i) {
+            int s = sources[i];
+            long bit = 1L << (i - lo);
+
+            seen[s] |= bit;
+            visit[s] |= bit;
+            reached[i] = 1;
+
+            if (visitor != null)
+                visitor.visit(i, s, 0);
+        }
+
+        boolean active = true;
+
+        for (int dist = 1; active; ++dist) {
+            long arcs = 0;
+            int settled = 0;
+
+            for (int v = 0; v < n; ++v) {
+                long mask = visit[v];
+                if (mask == 0)
+                    continue;
+
+                arcs += out_start[v+1] - out_start[v];
+                for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                    next[out_target[a]] |= mask;
+            }
+
+            active = false;
+
+            for (int u = 0; u < n; ++u) {
+                long fresh = next[u] & ~seen[u];
+                next[u] = 0;
+                visit[u] = fresh;
+
+                if (fresh == 0)
+                    continue;
+
+                active = true;
+                seen[u] |= fresh;
+                ++settled;
+
+                while (fresh != 0) {
+                    int i = lo + Long.numberOfTrailingZeros(fresh);
+                    fresh &= fresh - 1;
+
+                    ++reached[i];
+                    distance_sum[i] += dist;
+                    eccentricity[i] = dist;
+
+                    if (visitor != null)
+                        visitor.visit(i, u, dist);
+                }
+            }
+
+            if (control != null)
+                control.check(settled, arcs);
+        }
+    }
+
+    /**
+     * Retorna o número de origens da última execução.
+     */
+    public int getNumSources() {
+        return sources.length;
+    }
+
+    /**
+     * Retorna a i-ésima origem da última execução.
+     */
+    public int getSource(int i) {
+        return sources[i];
+    }
+
+    /**
+     * Retorna quantos vértices a i-ésima origem alcança,
+     * incluindo ela mesma.
+     */
+    public int getNumReached(int i) {
+        return reached[i];
+    }
+
+    /**
+     * Retorna a soma das distâncias da i-ésima origem até
+     * todos os vértices que ela alcança.
+     */
+    public long getDistanceSum(int i) {
+        return distance_sum[i];
+    }
+
+    /**
+     * Retorna a maior distância da i-ésima origem até um
+     * vértice que ela alcança.
+     */
+    public int getEccentricity(int i) {
+        return eccentricity[i];
+    }
+
+    /**
+     * Retorna a closeness da i-ésima origem, considerando somente
+     * os vértices que ela alcança: (alcançados - 1) / soma das distâncias.
+     */
+    public double getCloseness(int i) {
+        return (distance_sum[i] == 0) ? 0.0 : (reached[i] - 1) / (double)distance_sum[i];
+    }
+
+    private IndexedGraph<?> graph;
+    private int[] sources;
+    private int[] reached, eccentricity;
+    private long[] distance_sum;
+
+    private RunControl control;
+    private Visitor visitor;
+    private int num_batches;
+    private final AtomicInteger cursor = new AtomicInteger();
+}
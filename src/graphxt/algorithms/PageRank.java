@@ -0,0 +1,344 @@
+/*
+ * PageRank.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * PageRank
+ *
+ * PageRank iterativo (método das potências), opcionalmente
+ * personalizado. À cada iteração:
+ *
+ *   rank'(v) = (1-d)·p(v) + d·( Σ rank(u)/grau(u) + dangling·p(v) )
+ *
+ * onde a soma é sobre os arcos u->v, d é o fator de amortecimento,
+ * p é o vetor de personalização (uniforme, por padrão) e dangling é
+ * a soma dos ranks dos vértices sem arcos de saída, redistribuída
+ * segundo p. Arestas não direcionadas valem nos dois sentidos.
+ *
+ * O produto é feito "puxando" pelas adjacências de entrada: cada
+ * vértice soma as contribuições dos seus vizinhos de entrada e
+ * escreve somente o seu próprio rank. Os vértices são divididos em
+ * blocos contíguos com aproximadamente o mesmo número de arcos, um
+ * por tarefa, de modo que nenhuma escrita é compartilhada e não é
+ * preciso nenhuma operação atômica. As contribuições rank/grau da
+ * próxima iteração são calculadas na mesma passada.
+ *
+ * As iterações param quando a soma das diferenças absolutas entre
+ * dois vetores consecutivos fica abaixo da tolerância, ou quando o
+ * número máximo de iterações é atingido.
+ *
+ * @author Giuliano Vilela
+ */
+public class PageRank {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph,
+     * com os parâmetros padrão.
+     */
+    public PageRank(IndexedGraph<?> graph) {
+        this.graph = graph;
+        damping = DEFAULT_DAMPING;
+        tolerance = DEFAULT_TOLERANCE;
+        max_iterations = DEFAULT_MAX_ITERATIONS;
+        partition();
+    }
+
+    /**
+     * Modifica o fator de amortecimento, em [0,1).
+     */
+    public void setDamping(double d) {
+        if (!(d >= 0 && d < 1))
+            throw new IllegalArgumentException("Damping must be in [0,1).");
+        damping = d;
+    }
+
+    /**
+     * Modifica a tolerância usada como critério de parada.
+     */
+    public void setTolerance(double t) {
+        if (!(t >= 0))
+            throw new IllegalArgumentException("Tolerance must be non-negative.");
+        tolerance = t;
+    }
+
+    /**
+     * Modifica o número máximo de iterações.
+     */
+    public void setMaxIterations(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("At least one iteration is needed.");
+        max_iterations = k;
+    }
+
+    /**
+     * Modifica o vetor de personalização (indexado por vértice), que é
+     * normalizado para somar 1. Com null, volta à distribuição uniforme.
+     */
+    public void setPersonalization(double[] p) {
+        if (p == null) {
+            personalization = null;
+            return;
+        }
+
+        if (p.length != graph.num_vertex)
+            throw new IllegalArgumentException("Expected " + graph.num_vertex + " values.");
+
+        double sum = 0;
+        for (double x : p) {
+            if (!(x >= 0))
+                throw new IllegalArgumentException("Personalization values must be non-negative.");
+            sum += x;
+        }
+
+        if (sum == 0)
+            throw new IllegalArgumentException("Personalization vector is all zeros.");
+
+        personalization = new double[p.length];
+        for (int v = 0; v < p.length; ++v)
+            personalization[v] = p[v] / sum;
+    }
+
+    /**
+     * Personaliza o PageRank para um único vértice, ou seja, todos
+     * os saltos aleatórios voltam para v.
+     */
+    public void setPersonalization(int v) {
+        double[] p = new double[graph.num_vertex];
+        p[v] = 1;
+        setPersonalization(p);
+    }
+
+    /**
+     * Divide os vértices em blocos contíguos com aproximadamente
+     * o mesmo peso, contando cada vértice e cada arco de entrada.
+     */
+    private void partition() {
+        int n = graph.num_vertex;
+        int[] in_start = graph.in_start;
+        long total = (long)n + in_start[n];
+        int chunks = Parallel.getNumChunks((int)Math.min(total, Integer.MAX_VALUE), GRAIN);
+
+        bound = new int[chunks+1];
+        bound[chunks] = n;
+
+        for (int c = 1; c < chunks; ++c) {
+            long target = total * c / chunks;
+            int lo = bound[c-1], hi = n;
+
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if ((long)mid + in_start[mid] < target)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+
+            bound[c] = lo;
+        }
+    }
+
+    /**
+     * Modifica o controle da execução, verificado ao fim de cada
+     * iteração. Com null (o padrão), as iterações não são controladas.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Executa as iterações à partir da distribuição uniforme.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public PageRank run() {
+        final int n = graph.num_vertex;
+        final int[] out_start = graph.out_start;
+        final int chunks = bound.length - 1;
+
+        rank = new double[n];
+        next = new double[n];
+        contrib = new double[n];
+        next_contrib = new double[n];
+        inv_degree = new double[n];
+        iterations = 0;
+        residual = 0;
+        converged = (n == 0);
+
+        if (n == 0)
+            return this;
+
+        final double[] dangling_part = new double[chunks];
+
+        Parallel.forRange(chunks, 1, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int c = from; c < to; ++c) {
+                    double dangling = 0;
+
+                    for (int v = bound[c]; v < bound[c+1]; ++v) {
+                        int deg = out_start[v+1] - out_start[v];
+                        rank[v] = 1.0 / n;
+
+                        if (deg == 0) {
+                            dangling += rank[v];
+                        }
+                        else {
+                            inv_degree[v] = 1.0 / deg;
+                            contrib[v] = rank[v] * inv_degree[v];
+                        }
+                    }
+
+                    dangling_part[c] = dangling;
+                }
+            }
+        });
+
+        final double[] err_part = new double[chunks];
+
+        while (iterations < max_iterations && !converged) {
+            final double dangling = sum(dangling_part);
+
+            Parallel.forRange(chunks, 1, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    for (int c = from; c < to; ++c)
+                        iterate(c, dangling, dangling_part, err_part);
+                }
+            });
+
+            double[] t = rank; rank = next; next = t;
+            t = contrib; contrib = next_contrib; next_contrib = t;
+
+            ++iterations;
+            residual = sum(err_part);
+            converged = residual < tolerance;
+
+            if (control != null)
+                control.check(n, graph.in_source.length);
+        }
+
+        next = contrib = next_contrib = inv_degree = null;
+        return this;
+    }
+
+    /**
+     * Calcula o próximo rank dos vértices do bloco c, junto com as
+     * suas próximas contribuições, a parte do bloco na massa sem saída
+     * e a parte do bloco na diferença entre as iterações.
+     */
+    private void iterate(int c, double dangling, double[] dangling_part, double[] err_part) {
+        int[] in_start = graph.in_start, in_source = graph.in_source;
+        int n = graph.num_vertex;
+        double d = damping;
+        double[] p = personalization;
+        double next_dangling = 0, err = 0;
+
+        for (int v = bound[c]; v < bound[c+1]; ++v) {
+            double sum = 0;
+
+            for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                sum += contrib[in_source[a]];
+
+            double pv = (p == null) ? 1.0 / n : p[v];
+            double r = (1 - d) * pv + d * (sum + dangling * pv);
+
+            err += Math.abs(r - rank[v]);
+            next[v] = r;
+
+            if (inv_degree[v] == 0)
+                next_dangling += r;
+            else
+                next_contrib[v] = r * inv_degree[v];
+        }
+
+        dangling_part[c] = next_dangling;
+        err_part[c] = err;
+    }
+
+    private static double sum(double[] a) {
+        double s = 0;
+        for (double x : a)
+            s += x;
+        return s;
+    }
+
+    /**
+     * Retorna o rank do vértice v.
+     */
+    public double getRank(int v) {
+        return rank[v];
+    }
+
+    /**
+     * Retorna o vetor de ranks de todos os vértices, que soma 1.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public double[] getRanks() {
+        return rank;
+    }
+
+    /**
+     * Retorna os vértices em ordem decrescente de rank.
+     */
+    public int[] getRanking() {
+        int n = graph.num_vertex;
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; ++v)
+            order[v] = v;
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(rank[b], rank[a]);
+            }
+        });
+
+        int[] r = new int[n];
+        for (int i = 0; i < n; ++i)
+            r[i] = order[i];
+        return r;
+    }
+
+    /**
+     * Retorna o número de iterações feitas.
+     */
+    public int getNumIterations() {
+        return iterations;
+    }
+
+    /**
+     * Indica se as iterações pararam pela tolerância, e
+     * não pelo número máximo de iterações.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Retorna a diferença (norma L1) entre os dois últimos vetores.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private double damping, tolerance;
+    private int max_iterations;
+    private double[] personalization;
+    private int[] bound;
+
+    private double[] rank, next, contrib, next_contrib, inv_degree;
+    private int iterations;
+    private double residual;
+    private boolean converged;
+
+    private static final int GRAIN = 1 << 14;
+}
@@ -0,0 +1,243 @@
+/*
+ * Parallel.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Parallel
+ *
+ * Utilitários de paralelismo compartilhados pelos algoritmos
+ * deste pacote. Todo o trabalho paralelo é feito em um único
+ * pool de threads daemon, com uma thread por processador.
+ *
+ * Um intervalo [0,n) é dividido em blocos contíguos, e cada bloco
+ * é entregue à uma RangeTask. Chamadas feitas de dentro de uma
+ * thread do pool são executadas sequencialmente na própria thread,
+ * para que algoritmos paralelos possam ser compostos sem que o pool
+ * fique bloqueado esperando por si mesmo.
+ *
+ * @author Giuliano Vilela
+ */
+public final class Parallel {
+    private Parallel() { }
+
+    /**
+     * Tarefa que processa um bloco [from,to) de um intervalo.
+     * O parâmetro worker indica qual dos blocos está sendo
+     * processado, entre 0 e o número de blocos menos 1, e pode
+     * ser usado para indexar buffers locais à cada bloco.
+     */
+    public interface RangeTask {
+        public void run(int worker, int from, int to);
+    }
+
+    /**
+     * Retorna o número de threads do pool.
+     */
+    public static int getParallelism() {
+        return THREADS;
+    }
+
+    /**
+     * Retorna o tamanho mínimo de um intervalo que sort() divide
+     * entre as threads. Intervalos menores são ordenados na thread
+     * que chamou.
+     */
+    public static int getSortThreshold() {
+        return SORT_GRAIN * 2;
+    }
+
+    /**
+     * Retorna o número de blocos em que forRange divide um
+     * intervalo de tamanho n com granularidade mínima grain.
+     */
+    public static int getNumChunks(int n, int grain) {
+        if (n <= 0)
+            return 0;
+
+        int chunks = (int)Math.min((long)THREADS * 4, (n + (long)grain - 1) / Math.max(grain, 1));
+        return Math.max(chunks, 1);
+    }
+
+    /**
+     * Executa task sobre o intervalo [0,n), dividido em
+     * getNumChunks(n,grain) blocos, e espera todos terminarem.
+     * Exceções lançadas por algum bloco são relançadas aqui.
+     */
+    public static void forRange(int n, int grain, final RangeTask task) {
+        final int chunks = getNumChunks(n, grain);
+
+        if (chunks == 0)
+            return;
+
+        if (chunks == 1 || THREADS == 1 || IN_POOL.get()) {
+            long size = n;
+            for (int c = 0; c < chunks; ++c)
+                task.run(c, (int)(size*c/chunks), (int)(size*(c+1)/chunks));
+            return;
+        }
+
+        ArrayList<Callable<Object>> jobs = new ArrayList<Callable<Object>>(chunks);
+        final long size = n;
+
+        for (int c = 0; c < chunks; ++c) {
+            final int worker = c;
+
+            jobs.add(new Callable<Object>() {
+                public Object call() {
+                    task.run(worker, (int)(size*worker/chunks), (int)(size*(worker+1)/chunks));
+                    return null;
+                }
+            });
+        }
+
+        invokeAll(jobs);
+    }
+
+    /**
+     * Executa todas as tarefas no pool e espera o término de todas.
+     * Exceções lançadas por alguma delas são relançadas aqui.
+     */
+    public static <V> ArrayList<V> invokeAll(ArrayList<? extends Callable<V>> jobs) {
+        ArrayList<V> results = new ArrayList<V>(jobs.size());
+
+        if (IN_POOL.get() || THREADS == 1) {
+            for (Callable<V> job : jobs) {
+                try {
+                    results.add(job.call());
+                }
+                catch (RuntimeException ex) {
+                    throw ex;
+                }
+                catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            return results;
+        }
+
+        try {
+            for (Future<V> f : POOL.invokeAll(jobs))
+                results.add(f.get());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException)ex.getCause();
+            if (ex.getCause() instanceof Error)
+                throw (Error)ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+
+        return results;
+    }
+
+    /**
+     * Ordena a[from,to) em paralelo: cada bloco é ordenado
+     * com Arrays.sort por uma thread, e os blocos ordenados são
+     * então intercalados dois à dois, também em paralelo.
+     */
+    public static void sort(final long[] a, final int from, final int to) {
+        final int n = to - from;
+
+        if (n < getSortThreshold() || THREADS == 1 || IN_POOL.get()) {
+            Arrays.sort(a, from, to);
+            return;
+        }
+
+        final int chunks = getNumChunks(n, SORT_GRAIN);
+        final int[] bound = new int[chunks+1];
+
+        for (int c = 0; c <= chunks; ++c)
+            bound[c] = from + (int)((long)n*c/chunks);
+
+        forRange(chunks, 1, new RangeTask() {
+            public void run(int worker, int lo, int hi) {
+                for (int c = lo; c < hi; ++c)
+                    Arrays.sort(a, bound[c], bound[c+1]);
+            }
+        });
+
+        long[] src = a, dst = new long[to];
+
+        for (int width = 1; width < chunks; width *= 2) {
+            final long[] s = src, d = dst;
+            final int w = width;
+            final int merges = (chunks + 2*w - 1) / (2*w);
+
+            forRange(merges, 1, new RangeTask() {
+                public void run(int worker, int lo, int hi) {
+                    for (int k = lo; k < hi; ++k) {
+                        int c = k*2*w;
+                        int mid = bound[Math.min(c+w, chunks)];
+                        int end = bound[Math.min(c+2*w, chunks)];
+                        merge(s, bound[c], mid, end, d);
+                    }
+                }
+            });
+
+            src = d;
+            dst = s;
+        }
+
+        if (src != a)
+            System.arraycopy(src, from, a, from, n);
+    }
+
+    /**
+     * Intercala s[lo,mid) e s[mid,hi), ambos ordenados, em d[lo,hi).
+     */
+    private static void merge(long[] s, int lo, int mid, int hi, long[] d) {
+        int i = lo, j = mid, k = lo;
+
+        while (i < mid && j < hi)
+            d[k++] = (s[j] < s[i]) ? s[j++] : s[i++];
+
+        while (i < mid)
+            d[k++] = s[i++];
+
+        while (j < hi)
+            d[k++] = s[j++];
+    }
+
+    private static final int SORT_GRAIN = 1 << 15;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final ThreadLocal<Boolean> IN_POOL = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return false;
+        }
+    };
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private int count = 0;
+
+        public synchronized Thread newThread(final Runnable r) {
+            Thread t = new Thread(new Runnable() {
+                public void run() {
+                    IN_POOL.set(true);
+                    r.run();
+                }
+            }, "graphxt-algorithms-" + (count++));
+
+            t.setDaemon(true);
+            return t;
+        }
+    });
+}
@@ -0,0 +1,243 @@
+/*
+ * ParallelBFS.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ParallelBFS
+ *
+ * Busca em largura paralela, sincronizada por nível.
+ *
+ * À cada nível, a fronteira é dividida em blocos que são expandidos
+ * por threads diferentes. Um vértice é reivindicado com um
+ * compare-and-set no bitmap de visitados (um AtomicLongArray), de
+ * modo que somente a thread que o reivindicou escreve o seu pai e o
+ * seu nível, sem nenhum lock. Cada thread guarda os vértices que
+ * reivindicou em um buffer próprio, e os buffers são então copiados,
+ * também em paralelo, para posições calculadas por soma de prefixos,
+ * formando o próximo nível.
+ *
+ * Produz as mesmas informações que o BreadthFirstSearch (pai, aresta
+ * do pai, nível e ordem da busca), mas a escolha do pai entre vários
+ * candidatos do mesmo nível depende da ordem das threads.
+ *
+ * @author Giuliano Vilela
+ */
+public class ParallelBFS {
+    /**
+     * Prepara a busca para rodar sobre o grafo graph.
+     */
+    public ParallelBFS(IndexedGraph<?> graph) {
+        int n = graph.num_vertex;
+
+        this.graph = graph;
+        parent = new int[n];
+        parent_edge = new int[n];
+        level = new int[n];
+        order = new int[n];
+        visited = new AtomicLongArray((n + 63) >>> 6);
+        buffers = new IntList[Parallel.getNumChunks(n, GRAIN)];
+
+        for (int i = 0; i < buffers.length; ++i)
+            buffers[i] = new IntList();
+    }
+
+    /**
+     * Modifica o controle da execução, verificado por cada thread
+     * ao fim do seu pedaço de cada nível. Com null (o padrão), a busca
+     * não é controlada.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Executa a busca à partir do vértice source.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public ParallelBFS run(int source) {
+        Arrays.fill(parent, -1);
+        Arrays.fill(parent_edge, -1);
+        Arrays.fill(level, -1);
+
+        for (int w = 0; w < visited.length(); ++w)
+            visited.set(w, 0);
+
+        this.source = source;
+        level[source] = 0;
+        order[0] = source;
+        visited.set(source >>> 6, 1L << source);
+
+        int lo = 0, hi = 1;
+
+        while (lo < hi) {
+            int end = expand(lo, hi);
+            lo = hi;
+            hi = end;
+        }
+
+        num_reached = hi;
+        return this;
+    }
+
+    /**
+     * Expande em paralelo a fronteira order[lo,hi), escrevendo o
+     * próximo nível logo depois dela em order.
+     * @return O fim do próximo nível em order.
+     */
+    private int expand(final int lo, final int hi) {
+        final int[] out_start = graph.out_start, out_target = graph.out_target, out_edge = graph.out_edge;
+        final int chunks = Parallel.getNumChunks(hi - lo, GRAIN);
+
+        Parallel.forRange(hi - lo, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                IntList local = buffers[worker];
+                local.clear();
+                long arcs = 0;
+
+                for (int i = lo + from; i < lo + to; ++i) {
+                    int u = order[i];
+                    int next_level = level[u] + 1;
+
+                    for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                        int v = out_target[a];
+
+                        if (claim(v)) {
+                            parent[v] = u;
+                            parent_edge[v] = out_edge[a];
+                            level[v] = next_level;
+                            local.add(v);
+                        }
+                    }
+
+                    arcs += out_start[u+1] - out_start[u];
+                }
+
+                if (control != null)
+                    control.check(to - from, arcs);
+            }
+        });
+
+        final int[] offset = new int[chunks+1];
+        offset[0] = hi;
+
+        for (int c = 0; c < chunks; ++c)
+            offset[c+1] = offset[c] + buffers[c].size();
+
+        Parallel.forRange(chunks, 1, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int c = from; c < to; ++c)
+                    buffers[c].copyTo(order, offset[c]);
+            }
+        });
+
+        return offset[chunks];
+    }
+
+    /**
+     * Tenta marcar v como visitado.
+     * @return true somente para a thread que conseguiu marcá-lo.
+     */
+    private boolean claim(int v) {
+        int w = v >>> 6;
+        long bit = 1L << v;
+        long old = visited.get(w);
+
+        while ((old & bit) == 0) {
+            if (visited.compareAndSet(w, old, old | bit))
+                return true;
+            old = visited.get(w);
+        }
+
+        return false;
+    }
+
+    /**
+     * Retorna o vértice de onde a última busca começou.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Retorna o pai de v na árvore da busca, ou -1 caso v
+     * seja a origem ou não tenha sido alcançado.
+     */
+    public int getParent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Retorna a aresta que liga v ao seu pai na árvore
+     * da busca, ou -1 caso v não tenha pai.
+     */
+    public int getParentEdge(int v) {
+        return parent_edge[v];
+    }
+
+    /**
+     * Retorna o nível (distância em arestas até a origem) do
+     * vértice v, ou -1 caso ele não tenha sido alcançado.
+     */
+    public int getLevel(int v) {
+        return level[v];
+    }
+
+    /**
+     * Retorna o vetor de pais de todos os vértices.
+     * O vetor é interno à busca e não deve ser modificado.
+     */
+    public int[] getParents() {
+        return parent;
+    }
+
+    /**
+     * Retorna o vetor de níveis de todos os vértices.
+     * O vetor é interno à busca e não deve ser modificado.
+     */
+    public int[] getLevels() {
+        return level;
+    }
+
+    /**
+     * Retorna os vértices alcançados, na ordem da busca
+     * (agrupados por nível).
+     */
+    public int[] getOrder() {
+        int[] r = new int[num_reached];
+        System.arraycopy(order, 0, r, 0, num_reached);
+        return r;
+    }
+
+    /**
+     * Retorna o número de vértices alcançados.
+     */
+    public int getNumReached() {
+        return num_reached;
+    }
+
+    /**
+     * Retorna o número de níveis da árvore da busca, ou seja,
+     * a excentricidade da origem mais 1.
+     */
+    public int getNumLevels() {
+        int last = (num_reached == 0) ? -1 : level[order[num_reached-1]];
+        return last + 1;
+    }
+
+    private IndexedGraph<?> graph;
+    private RunControl control;
+    private int[] parent, parent_edge, level, order;
+    private AtomicLongArray visited;
+    private IntList[] buffers;
+    private int source, num_reached;
+
+    private static final int GRAIN = 1 << 8;
+}
@@ -0,0 +1,403 @@
+/*
+ * ResultCache.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import graphxt.model.Edge;
+import graphxt.model.Graph;
+import graphxt.model.GraphListener;
+import graphxt.model.Vertex;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ResultCache<T>
+ *
+ * Cache dos resultados dos algoritmos sobre um grafo. Cada resultado
+ * é identificado pelo nome do algoritmo, pelos seus parâmetros e pela
+ * versão do grafo (Graph.getVersion()), de modo que uma consulta
+ * repetida sobre o grafo inalterado devolve o mesmo objeto, sem
+ * rodar o algoritmo de novo. O IndexedGraph da versão atual também
+ * é guardado, e é o que as computações recebem.
+ *
+ * O cache se registra como GraphListener do grafo e descarta tudo à
+ * cada modificação. O tamanho de cada resultado é estimado (veja
+ * estimateSize()), e os menos usados recentemente são descartados
+ * enquanto a soma dos tamanhos passa da capacidade.
+ *
+ * @author Giuliano Vilela
+ */
+public class ResultCache<T> implements GraphListener<T,Integer> {
+    public static final long DEFAULT_CAPACITY = 64L << 20;
+
+    /**
+     * Tamanho dado aos objetos que não puderam ser medidos.
+     */
+    public static final long UNKNOWN_SIZE = Long.MAX_VALUE;
+
+    /**
+     * Uma computação cujo resultado pode ser guardado no cache.
+     */
+    public interface Computation<T,R> {
+        /**
+         * Roda o algoritmo sobre graph, que é o IndexedGraph
+         * da versão atual do grafo.
+         */
+        public R compute(IndexedGraph<T> graph);
+    }
+
+    /**
+     * Cria um cache com a capacidade padrão para o grafo graph.
+     */
+    public ResultCache(Graph<T,Integer> graph) {
+        this(graph, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Cria um cache para o grafo graph, com capacity bytes.
+     */
+    public ResultCache(Graph<T,Integer> graph, long capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must be non-negative.");
+
+        this.graph = graph;
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Key,Entry>(16, 0.75f, true);
+        version = graph.getVersion();
+
+        graph.addGraphListener(this);
+    }
+
+    /**
+     * Retorna o resultado do algoritmo algorithm com os parâmetros
+     * params (que podem ser null, um objeto ou um vetor) sobre a
+     * versão atual do grafo, rodando computation somente caso ele
+     * não esteja no cache.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(String algorithm, Object params, Computation<T,R> computation) {
+        checkVersion();
+
+        Key key = new Key(algorithm, params, version);
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            ++num_hits;
+            return (R)entry.value;
+        }
+
+        ++num_misses;
+
+        R value = computation.compute(getIndexedGraph());
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Retorna o IndexedGraph da versão atual do grafo,
+     * construindo-o somente quando necessário.
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedGraph<T> getIndexedGraph() {
+        checkVersion();
+
+        Key key = new Key(INDEXED, null, version);
+        Entry entry = entries.get(key);
+
+        if (entry != null)
+            return (IndexedGraph<T>)entry.value;
+
+        IndexedGraph<T> indexed = new IndexedGraph<T>(graph);
+        put(key, indexed);
+        return indexed;
+    }
+
+    /**
+     * Guarda value sob key, caso ele caiba, descartando as entradas
+     * menos usadas até a soma dos tamanhos caber na capacidade. Um
+     * valor de tamanho desconhecido nunca cabe, e não é guardado.
+     */
+    private void put(Key key, Object value) {
+        long bytes = estimateSize(value);
+
+        if (bytes > capacity)
+            return;
+
+        entries.put(key, new Entry(value, bytes));
+        used += bytes;
+
+        Iterator<Map.Entry<Key,Entry>> it = entries.entrySet().iterator();
+
+        while (used > capacity && it.hasNext()) {
+            Map.Entry<Key,Entry> eldest = it.next();
+            if (eldest.getKey() == key)
+                continue;
+
+            used -= eldest.getValue().bytes;
+            it.remove();
+            ++num_evictions;
+        }
+    }
+
+    /**
+     * Descarta tudo caso o grafo tenha sido modificado sem que o
+     * cache fosse avisado (por exemplo, depois de um detach()).
+     */
+    private void checkVersion() {
+        if (graph.getVersion() != version)
+            invalidate();
+    }
+
+    /**
+     * Descarta todos os resultados guardados.
+     */
+    public void invalidate() {
+        entries.clear();
+        used = 0;
+        version = graph.getVersion();
+    }
+
+    /**
+     * Deixa de acompanhar as modificações do grafo e descarta tudo.
+     * As consultas seguintes continuam corretas, pois a versão do
+     * grafo é conferida à cada uma.
+     */
+    public void detach() {
+        graph.removeGraphListener(this);
+        invalidate();
+    }
+
+    public void vertexInserted(Vertex<T> vert) {
+        invalidate();
+    }
+
+    public void vertexRemoved(Vertex<T> vert) {
+        invalidate();
+    }
+
+    public void edgeInserted(Edge<T,Integer> edge) {
+        invalidate();
+    }
+
+    public void edgeRemoved(Edge<T,Integer> edge) {
+        invalidate();
+    }
+
+    public void edgeChanged(Edge<T,Integer> edge, Integer old) {
+        invalidate();
+    }
+
+    /**
+     * Estima o número de bytes ocupados por o. Vetores são contados
+     * pelo tamanho dos seus elementos, coleções e mapas pelas suas
+     * entradas e pelos objetos que elas guardam, e os objetos deste
+     * pacote (os algoritmos) pela soma dos seus campos, seguindo as
+     * referências. Outros objetos contam somente o cabeçalho, e o grafo
+     * sobre o qual um algoritmo roda não é contado, já que ele é
+     * compartilhado.
+     *
+     * Caso algum campo não possa ser lido por reflexão, o problema é
+     * registrado no log e o tamanho é UNKNOWN_SIZE, maior que qualquer
+     * capacidade, para que o cache não subestime o que guarda.
+     */
+    public static long estimateSize(Object o) {
+        try {
+            return estimateSize(o, new IdentityHashMap<Object,Boolean>());
+        } catch (IllegalAccessException ex) {
+            LOGGER.log(Level.WARNING, "Could not estimate the size of " + o.getClass().getName() + ".", ex);
+        } catch (SecurityException ex) {
+            LOGGER.log(Level.WARNING, "Could not estimate the size of " + o.getClass().getName() + ".", ex);
+        }
+
+        return UNKNOWN_SIZE;
+    }
+
+    private static long estimateSize(Object o, IdentityHashMap<Object,Boolean> seen) throws IllegalAccessException {
+        if (o == null || seen.put(o, Boolean.TRUE) != null)
+            return 0;
+
+        Class<?> type = o.getClass();
+
+        if (type.isArray()) {
+            int n = Array.getLength(o);
+            Class<?> elem = type.getComponentType();
+
+            if (elem.isPrimitive())
+                return HEADER + (long)n * sizeOf(elem);
+
+            long size = HEADER + (long)n * REFERENCE;
+            for (int i = 0; i < n; ++i)
+                size += estimateSize(Array.get(o, i), seen);
+            return size;
+        }
+
+        if (o instanceof Collection) {
+            Collection<?> c = (Collection<?>)o;
+            long size = HEADER + (long)c.size() * REFERENCE;
+            for (Object e : c)
+                size += estimateSize(e, seen);
+            return size;
+        }
+
+        if (o instanceof Map) {
+            Map<?,?> m = (Map<?,?>)o;
+            long size = HEADER + (long)m.size() * MAP_ENTRY;
+            for (Map.Entry<?,?> e : m.entrySet())
+                size += estimateSize(e.getKey(), seen) + estimateSize(e.getValue(), seen);
+            return size;
+        }
+
+        long size = HEADER;
+
+        if (type.getPackage() != ResultCache.class.getPackage())
+            return size;
+
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()))
+                    continue;
+
+                Class<?> ft = f.getType();
+
+                if (ft.isPrimitive()) {
+                    size += sizeOf(ft);
+                    continue;
+                }
+
+                size += REFERENCE;
+
+                f.setAccessible(true);
+                Object value = f.get(o);
+
+                if (!(value instanceof IndexedGraph) && !(value instanceof Graph))
+                    size += estimateSize(value, seen);
+            }
+        }
+
+        return size;
+    }
+
+    private static int sizeOf(Class<?> primitive) {
+        if (primitive == long.class || primitive == double.class)
+            return 8;
+        if (primitive == int.class || primitive == float.class)
+            return 4;
+        if (primitive == short.class || primitive == char.class)
+            return 2;
+        return 1;
+    }
+
+    /**
+     * Chave de uma entrada. Os parâmetros são comparados
+     * elemento à elemento caso sejam vetores.
+     */
+    private static class Key {
+        Key(String algorithm, Object params, long version) {
+            this.algorithm = algorithm;
+            this.params = params;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+
+            Key k = (Key)o;
+            return version == k.version && algorithm.equals(k.algorithm)
+                && Arrays.deepEquals(new Object[] {params}, new Object[] {k.params});
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * algorithm.hashCode() + Arrays.deepHashCode(new Object[] {params}))
+                 + (int)(version ^ (version >>> 32));
+        }
+
+        private String algorithm;
+        private Object params;
+        private long version;
+    }
+
+    private static class Entry {
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+
+        private Object value;
+        private long bytes;
+    }
+
+    /**
+     * Retorna o grafo deste cache.
+     */
+    public Graph<T,Integer> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Retorna a capacidade do cache, em bytes.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retorna a soma estimada dos tamanhos das entradas, em bytes.
+     */
+    public long getUsedBytes() {
+        return used;
+    }
+
+    /**
+     * Retorna o número de entradas guardadas, incluindo o IndexedGraph.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retorna o número de consultas respondidas pelo cache.
+     */
+    public long getNumHits() {
+        return num_hits;
+    }
+
+    /**
+     * Retorna o número de consultas que precisaram rodar o algoritmo.
+     */
+    public long getNumMisses() {
+        return num_misses;
+    }
+
+    /**
+     * Retorna o número de entradas descartadas por falta de espaço.
+     */
+    public long getNumEvictions() {
+        return num_evictions;
+    }
+
+    private Graph<T,Integer> graph;
+    private long capacity, used, version;
+    private LinkedHashMap<Key,Entry> entries;
+    private long num_hits, num_misses, num_evictions;
+
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+    private static final String INDEXED = "IndexedGraph";
+    private static final int HEADER = 16;
+    private static final int REFERENCE = 8;
+    private static final int MAP_ENTRY = HEADER + 4 * REFERENCE;
+}
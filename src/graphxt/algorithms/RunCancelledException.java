@@ -0,0 +1,23 @@
+/*
+ * RunCancelledException.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+/**
+ * RunCancelledException
+ *
+ * Lançada por RunControl.check() quando a execução de um algoritmo
+ * foi cancelada ou passou de algum dos limites do controle.
+ *
+ * @author Giuliano Vilela
+ */
+public class RunCancelledException extends RuntimeException {
+    public RunCancelledException(String message) {
+        super(message);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,188 @@
+/*
+ * RunControl.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RunControl
+ *
+ * Controle da execução de um algoritmo longo: cancelamento, limites
+ * de tempo e de arcos percorridos, e avisos de progresso.
+ *
+ * Os algoritmos que aceitam um controle chamam check() em pontos
+ * regulares (à cada nível de uma busca, à cada iteração, à cada
+ * origem), informando quantos vértices foram fixados e quantos arcos
+ * foram percorridos desde a última chamada. Caso a execução tenha sido
+ * cancelada ou algum limite tenha sido passado, check() lança um
+ * RunCancelledException, que sobe até quem chamou run(). O resultado
+ * do algoritmo fica então inválido, mas o objeto pode rodar de novo.
+ *
+ * O mesmo controle pode ser passado para vários algoritmos, e os
+ * contadores e limites valem para todos eles juntos. Todos os métodos
+ * podem ser chamados de qualquer thread; cancel() é o jeito de parar,
+ * de outra thread, uma execução em andamento.
+ *
+ * @author Giuliano Vilela
+ */
+public class RunControl {
+    /**
+     * Recebe os avisos de progresso. O aviso é feito pela thread que
+     * chamou check(), que pode ser uma das threads do Parallel, e
+     * nunca por duas threads ao mesmo tempo.
+     */
+    public interface ProgressListener {
+        public void progress(RunControl control);
+    }
+
+    /**
+     * Cria um controle sem limites.
+     */
+    public RunControl() {
+        start = System.nanoTime();
+        deadline = Long.MAX_VALUE;
+        edge_limit = Long.MAX_VALUE;
+    }
+
+    /**
+     * Pede que a execução pare na próxima chamada de check().
+     */
+    public void cancel() {
+        stop("Run cancelled.");
+    }
+
+    /**
+     * Indica se a execução foi cancelada ou passou de algum limite.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Limita o tempo de execução a millis milissegundos,
+     * contados à partir desta chamada.
+     */
+    public void setTimeLimit(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Time limit must be non-negative.");
+
+        long now = System.nanoTime();
+        long nanos = millis * 1000000L;
+
+        deadline = (nanos / 1000000L == millis) ? now + nanos : Long.MAX_VALUE;
+        has_deadline = (deadline != Long.MAX_VALUE);
+    }
+
+    /**
+     * Limita o número total de arcos percorridos.
+     */
+    public void setEdgeLimit(long edges) {
+        if (edges < 0)
+            throw new IllegalArgumentException("Edge limit must be non-negative.");
+        edge_limit = edges;
+    }
+
+    /**
+     * Modifica quem recebe os avisos de progresso, que são feitos no
+     * máximo uma vez à cada interval milissegundos. Com interval igual
+     * a 0, toda chamada de check() gera um aviso.
+     */
+    public void setProgressListener(ProgressListener l, long interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException("Interval must be non-negative.");
+
+        listener = l;
+        this.interval = interval * 1000000L;
+        next_report.set(System.nanoTime());
+    }
+
+    /**
+     * Acrescenta vertices vértices fixados e edges arcos percorridos
+     * aos contadores, e verifica o cancelamento e os limites.
+     * @throws RunCancelledException Caso a execução deva parar.
+     */
+    public void check(long vertices, long edges) {
+        vertices_settled.addAndGet(vertices);
+        long e = edges_scanned.addAndGet(edges);
+
+        if (e > edge_limit)
+            stop("Edge limit exceeded.");
+
+        if (cancelled)
+            throw new RunCancelledException(reason);
+
+        if (has_deadline || listener != null) {
+            long now = System.nanoTime();
+
+            if (has_deadline && now - deadline >= 0) {
+                stop("Time limit exceeded.");
+                throw new RunCancelledException(reason);
+            }
+
+            ProgressListener l = listener;
+            long due = next_report.get();
+
+            if (l != null && now - due >= 0 && next_report.compareAndSet(due, now + interval)) {
+                synchronized (report_lock) {
+                    l.progress(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marca a execução como parada. Somente o primeiro motivo é
+     * guardado, para que todas as threads informem o mesmo.
+     */
+    private synchronized void stop(String why) {
+        if (!cancelled) {
+            reason = why;
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Retorna o motivo da parada, ou null caso a
+     * execução não tenha sido parada.
+     */
+    public String getStopReason() {
+        return cancelled ? reason : null;
+    }
+
+    /**
+     * Retorna o número de vértices fixados até agora.
+     */
+    public long getVerticesSettled() {
+        return vertices_settled.get();
+    }
+
+    /**
+     * Retorna o número de arcos percorridos até agora.
+     */
+    public long getEdgesScanned() {
+        return edges_scanned.get();
+    }
+
+    /**
+     * Retorna o tempo, em milissegundos, desde a criação do controle.
+     */
+    public long getElapsedTime() {
+        return (System.nanoTime() - start) / 1000000L;
+    }
+
+    private volatile boolean cancelled;
+    private volatile String reason;
+    private volatile boolean has_deadline;
+    private volatile long deadline, edge_limit, interval;
+    private volatile ProgressListener listener;
+    private final long start;
+
+    private final AtomicLong vertices_settled = new AtomicLong();
+    private final AtomicLong edges_scanned = new AtomicLong();
+    private final AtomicLong next_report = new AtomicLong();
+    private final Object report_lock = new Object();
+}
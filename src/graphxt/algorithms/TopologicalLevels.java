@@ -0,0 +1,227 @@
+/*
+ * TopologicalLevels.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * TopologicalLevels
+ *
+ * Divide os vértices de um grafo acíclico em níveis topológicos:
+ * o nível 0 contém os vértices sem arestas de entrada, e o nível
+ * i+1 contém os vértices cujos predecessores estão todos nos
+ * níveis 0..i. Vértices de um mesmo nível não dependem uns dos
+ * outros, e podem ser processados concorrentemente.
+ *
+ * Cada nível é expandido em paralelo: a fronteira é dividida em
+ * blocos, cada thread decrementa atomicamente o grau de entrada
+ * dos sucessores dos seus vértices e guarda num buffer próprio os
+ * que chegam a zero. Os buffers são concatenados para formar o
+ * próximo nível.
+ *
+ * Os níveis podem ser consumidos um à um através de iterator(),
+ * que só calcula o próximo nível quando ele é pedido, ou calculados
+ * todos de uma vez com run().
+ *
+ * @author Giuliano Vilela
+ */
+public class TopologicalLevels implements Iterable<int[]> {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public TopologicalLevels(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado à cada nível
+     * expandido, tanto no run() quanto nos iteradores. Com null
+     * (o padrão), o cálculo não é controlado.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Retorna um iterador sobre os níveis topológicos, em ordem.
+     * Cada chamada recomeça o algoritmo do início. Caso o grafo
+     * tenha ciclos, a iteração termina antes de todos os vértices
+     * terem aparecido. Caso o controle peça para parar, hasNext()
+     * e next() lançam RunCancelledException.
+     */
+    public Iterator<int[]> iterator() {
+        return new Wavefront();
+    }
+
+    /**
+     * Calcula todos os níveis.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public TopologicalLevels run() {
+        levels = new ArrayList<int[]>();
+        level = new int[graph.num_vertex];
+        Arrays.fill(level, -1);
+        num_sorted = 0;
+
+        for (int[] batch : this) {
+            for (int v : batch)
+                level[v] = levels.size();
+
+            levels.add(batch);
+            num_sorted += batch.length;
+        }
+
+        return this;
+    }
+
+    /**
+     * Retorna o número de níveis.
+     */
+    public int getNumLevels() {
+        return levels.size();
+    }
+
+    /**
+     * Retorna os vértices do nível i.
+     */
+    public int[] getLevel(int i) {
+        return levels.get(i).clone();
+    }
+
+    /**
+     * Retorna o nível do vértice v, ou -1 caso ele esteja
+     * em um ciclo ou dependa de um.
+     */
+    public int getLevelOf(int v) {
+        return level[v];
+    }
+
+    /**
+     * Retorna o número de vértices que receberam um nível.
+     */
+    public int getNumSorted() {
+        return num_sorted;
+    }
+
+    /**
+     * Indica se o grafo é acíclico, ou seja, se todos
+     * os vértices receberam um nível.
+     */
+    public boolean isAcyclic() {
+        return num_sorted == graph.num_vertex;
+    }
+
+    /**
+     * Iterador que expande um nível por vez.
+     */
+    private class Wavefront implements Iterator<int[]> {
+        Wavefront() {
+            final int n = graph.num_vertex;
+            final int[] in_start = graph.in_start;
+
+            degree = new AtomicIntegerArray(n);
+            buffers = new IntList[Parallel.getNumChunks(n, GRAIN)];
+            scanned = new long[buffers.length];
+            for (int i = 0; i < buffers.length; ++i)
+                buffers[i] = new IntList();
+
+            Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    IntList local = buffers[worker];
+                    for (int v = from; v < to; ++v) {
+                        int d = in_start[v+1] - in_start[v];
+                        degree.set(v, d);
+                        if (d == 0)
+                            local.add(v);
+                    }
+                }
+            });
+
+            next = collect();
+        }
+
+        public boolean hasNext() {
+            if (next == null)
+                next = expand(last);
+            return next.length > 0;
+        }
+
+        public int[] next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            last = next;
+            next = null;
+            return last;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Calcula o nível seguinte à frontier.
+         */
+        private int[] expand(final int[] frontier) {
+            final int[] out_start = graph.out_start, out_target = graph.out_target;
+
+            Parallel.forRange(frontier.length, GRAIN, new Parallel.RangeTask() {
+                public void run(int worker, int from, int to) {
+                    IntList local = buffers[worker];
+                    long arcs = 0;
+                    for (int i = from; i < to; ++i) {
+                        int u = frontier[i];
+                        arcs += out_start[u+1] - out_start[u];
+                        for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                            int v = out_target[a];
+                            if (degree.decrementAndGet(v) == 0)
+                                local.add(v);
+                        }
+                    }
+                    scanned[worker] = arcs;
+                }
+            });
+
+            if (control != null) {
+                long arcs = 0;
+                for (int c = 0; c < Parallel.getNumChunks(frontier.length, GRAIN); ++c)
+                    arcs += scanned[c];
+                control.check(frontier.length, arcs);
+            }
+
+            return collect();
+        }
+
+        /**
+         * Concatena e esvazia os buffers de cada thread.
+         */
+        private int[] collect() {
+            int[] r = IntList.concat(buffers);
+            for (IntList l : buffers)
+                l.clear();
+            return r;
+        }
+
+        private AtomicIntegerArray degree;
+        private IntList[] buffers;
+        private long[] scanned;
+        private int[] next, last;
+    }
+
+    private IndexedGraph<?> graph;
+    private ArrayList<int[]> levels;
+    private int[] level;
+    private int num_sorted;
+    private RunControl control;
+
+    private static final int GRAIN = 1 << 10;
+}
@@ -0,0 +1,159 @@
+/*
+ * TopologicalOrder.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+/**
+ * TopologicalOrder
+ *
+ * Ordenação topológica pelo algoritmo de Kahn, em tempo O(V+E).
+ *
+ * Mantém um vetor primitivo com o grau de entrada restante de cada
+ * vértice, e uma fila de vértices prontos (grau de entrada zero),
+ * que é o próprio vetor de saída: os vértices são colocados no
+ * fim da ordem quando ficam prontos, e processados na ordem em que
+ * foram colocados.
+ *
+ * Arestas não direcionadas contam nos dois sentidos, e portanto
+ * sempre formam um ciclo. Quando o grafo tem ciclos, a ordem
+ * contém somente os vértices que não dependem de nenhum ciclo, e
+ * getCycle() devolve um dos ciclos que impediram o término.
+ *
+ * @author Giuliano Vilela
+ */
+public class TopologicalOrder {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public TopologicalOrder(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Calcula a ordenação topológica.
+     * @return Este mesmo objeto, para encadear as consultas.
+     */
+    public TopologicalOrder run() {
+        int n = graph.num_vertex;
+        int[] out_start = graph.out_start, out_target = graph.out_target;
+
+        in_degree = new int[n];
+        order = new int[n];
+        position = new int[n];
+
+        for (int v = 0; v < n; ++v)
+            in_degree[v] = graph.in_start[v+1] - graph.in_start[v];
+
+        int tail = 0;
+
+        for (int v = 0; v < n; ++v)
+            if (in_degree[v] == 0)
+                order[tail++] = v;
+
+        for (int head = 0; head < tail; ++head) {
+            int u = order[head];
+            position[u] = head;
+
+            for (int a = out_start[u]; a < out_start[u+1]; ++a) {
+                int v = out_target[a];
+                if (--in_degree[v] == 0)
+                    order[tail++] = v;
+            }
+        }
+
+        num_sorted = tail;
+
+        for (int v = 0; v < n; ++v)
+            if (in_degree[v] != 0)
+                position[v] = -1;
+
+        return this;
+    }
+
+    /**
+     * Indica se o grafo é acíclico, ou seja, se todos
+     * os vértices foram ordenados.
+     */
+    public boolean isAcyclic() {
+        return num_sorted == graph.num_vertex;
+    }
+
+    /**
+     * Retorna o número de vértices que puderam ser ordenados.
+     */
+    public int getNumSorted() {
+        return num_sorted;
+    }
+
+    /**
+     * Retorna os vértices ordenados topologicamente. Caso o grafo
+     * tenha ciclos, contém somente os getNumSorted() vértices
+     * que não dependem de nenhum ciclo.
+     */
+    public int[] getOrder() {
+        int[] r = new int[num_sorted];
+        System.arraycopy(order, 0, r, 0, num_sorted);
+        return r;
+    }
+
+    /**
+     * Retorna a posição do vértice v na ordem topológica,
+     * ou -1 caso ele esteja em um ciclo ou dependa de um.
+     */
+    public int getPosition(int v) {
+        return position[v];
+    }
+
+    /**
+     * Retorna os vértices de um ciclo do grafo, na ordem das
+     * arestas, ou null caso o grafo seja acíclico.
+     *
+     * Todo vértice não ordenado ainda tem algum predecessor não
+     * ordenado; andando para trás por esses predecessores, algum
+     * vértice acaba se repetindo, fechando o ciclo.
+     */
+    public int[] getCycle() {
+        if (isAcyclic())
+            return null;
+
+        int n = graph.num_vertex;
+        int[] step = new int[n];
+        int[] pred = new int[n];
+
+        int v = 0;
+        while (in_degree[v] == 0)
+            ++v;
+
+        int k = 1;
+        while (step[v] == 0) {
+            step[v] = k++;
+
+            for (int a = graph.in_start[v]; a < graph.in_start[v+1]; ++a) {
+                int u = graph.in_source[a];
+                if (in_degree[u] != 0) {
+                    pred[v] = u;
+                    break;
+                }
+            }
+
+            v = pred[v];
+        }
+
+        int len = k - step[v];
+        int[] cycle = new int[len];
+
+        for (int i = len-1; i >= 0; --i) {
+            cycle[i] = v;
+            v = pred[v];
+        }
+
+        return cycle;
+    }
+
+    private IndexedGraph<?> graph;
+    private int[] in_degree, order, position;
+    private int num_sorted;
+}
@@ -0,0 +1,378 @@
+/*
+ * TriangleCount.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * TriangleCount
+ *
+ * Contagem de triângulos e coeficientes de agrupamento (clustering).
+ * O grafo é tratado como simples e não direcionado: o sentido das
+ * arestas é ignorado, e laços e arestas paralelas são descartados.
+ *
+ * Cada aresta é orientada do extremo de menor posto para o de maior,
+ * onde o posto ordena os vértices por grau (e índice, nos empates).
+ * Cada vértice guarda somente os vizinhos de posto maior, em um vetor
+ * ordenado, de modo que nenhum vértice fica com mais do que O(√E)
+ * vizinhos orientados. Cada triângulo é então encontrado uma única
+ * vez, no seu vértice de menor posto v, intersectando a lista de v
+ * com a de cada um dos seus vizinhos orientados w.
+ *
+ * As interseções são feitas por intercalação quando as duas listas
+ * têm tamanhos parecidos, e por busca exponencial (galloping) dos
+ * elementos da menor na maior quando os tamanhos são muito diferentes.
+ * Os vértices são processados em paralelo sem nenhuma operação
+ * atômica: a tarefa de v só escreve no contador de v e em contadores
+ * por aresta orientada da lista de v. Um triângulo (v,w,x) soma 1 no
+ * contador da aresta v->w e no da aresta v->x, e no fim cada vértice
+ * recebe a soma dos contadores das arestas que chegam nele.
+ *
+ * @author Giuliano Vilela
+ */
+public class TriangleCount {
+    /**
+     * Prepara o algoritmo para rodar sobre o grafo graph.
+     */
+    public TriangleCount(IndexedGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Modifica o controle da execução, verificado por cada thread da
+     * contagem à cada bloco de vértices processados. Com null (o
+     * padrão), a contagem não é controlada.
+     */
+    public void setRunControl(RunControl c) {
+        control = c;
+    }
+
+    /**
+     * Conta os triângulos de todos os vértices.
+     * @return Este mesmo objeto, para encadear as consultas.
+     * @throws RunCancelledException Caso o controle peça para parar.
+     */
+    public TriangleCount run() {
+        simplify();
+        orient();
+        count();
+        return this;
+    }
+
+    /**
+     * Monta, em adj, a lista ordenada e sem repetições dos vizinhos de
+     * cada vértice, juntando os arcos de saída e de entrada. A lista de
+     * v ocupa adj[out_start[v]+in_start[v], ...), o que dispensa uma
+     * passada de contagem, e somente as primeiras degree[v] posições
+     * são válidas.
+     */
+    private void simplify() {
+        final int n = graph.num_vertex;
+        final int[] out_start = graph.out_start, out_target = graph.out_target;
+        final int[] in_start = graph.in_start, in_source = graph.in_source;
+
+        adj = new int[out_start[n] + in_start[n]];
+        degree = new int[n];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int base = out_start[v] + in_start[v];
+                    int k = base;
+
+                    for (int a = out_start[v]; a < out_start[v+1]; ++a)
+                        if (out_target[a] != v)
+                            adj[k++] = out_target[a];
+
+                    for (int a = in_start[v]; a < in_start[v+1]; ++a)
+                        if (in_source[a] != v)
+                            adj[k++] = in_source[a];
+
+                    Arrays.sort(adj, base, k);
+
+                    int d = 0;
+                    for (int i = base; i < k; ++i)
+                        if (d == 0 || adj[i] != adj[base + d - 1])
+                            adj[base + d++] = adj[i];
+
+                    degree[v] = d;
+                }
+            }
+        });
+    }
+
+    /**
+     * Indica se u tem posto menor que v.
+     */
+    private boolean before(int u, int v) {
+        return degree[u] < degree[v] || degree[u] == degree[v] && u < v;
+    }
+
+    /**
+     * Monta as listas orientadas, em formato CSR, com os vizinhos
+     * de posto maior de cada vértice, em ordem de índice.
+     */
+    private void orient() {
+        final int n = graph.num_vertex;
+        final int[] out_start = graph.out_start, in_start = graph.in_start;
+
+        fwd_start = new int[n+1];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int base = out_start[v] + in_start[v];
+                    int count = 0;
+
+                    for (int i = base; i < base + degree[v]; ++i)
+                        if (before(v, adj[i]))
+                            ++count;
+
+                    fwd_start[v+1] = count;
+                }
+            }
+        });
+
+        for (int v = 0; v < n; ++v)
+            fwd_start[v+1] += fwd_start[v];
+
+        fwd = new int[fwd_start[n]];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                for (int v = from; v < to; ++v) {
+                    int base = out_start[v] + in_start[v];
+                    int k = fwd_start[v];
+
+                    for (int i = base; i < base + degree[v]; ++i)
+                        if (before(v, adj[i]))
+                            fwd[k++] = adj[i];
+                }
+            }
+        });
+
+        adj = null;
+    }
+
+    /**
+     * Intersecta a lista orientada de cada vértice com a de cada
+     * um dos seus vizinhos orientados.
+     */
+    private void count() {
+        final int n = graph.num_vertex;
+        final int[] support = new int[fwd.length];
+
+        triangles = new long[n];
+
+        Parallel.forRange(n, GRAIN, new Parallel.RangeTask() {
+            public void run(int worker, int from, int to) {
+                int done = 0;
+                long arcs = 0;
+
+                for (int v = from; v < to; ++v) {
+                    long total = 0;
+
+                    for (int i = fwd_start[v]; i < fwd_start[v+1]; ++i) {
+                        int w = fwd[i];
+                        int c = intersect(fwd_start[v], fwd_start[v+1], fwd_start[w], fwd_start[w+1], support);
+
+                        support[i] += c;
+                        total += c;
+                    }
+
+                    triangles[v] = total;
+
+                    arcs += fwd_start[v+1] - fwd_start[v];
+                    if (control != null && ++done == CHECK_BLOCK) {
+                        control.check(done, arcs);
+                        done = 0;
+                        arcs = 0;
+                    }
+                }
+
+                if (control != null)
+                    control.check(done, arcs);
+            }
+        });
+
+        num_triangles = 0;
+
+        for (int v = 0; v < n; ++v)
+            num_triangles += triangles[v];
+
+        for (int i = 0; i < fwd.length; ++i)
+            triangles[fwd[i]] += support[i];
+    }
+
+    /**
+     * Intersecta a lista de v, fwd[v0,v1), com a de w, fwd[w0,w1),
+     * ambas ordenadas, somando 1 no contador da posição de cada
+     * elemento comum na lista de v.
+     * @return O número de elementos comuns.
+     */
+    private int intersect(int v0, int v1, int w0, int w1, int[] support) {
+        int nv = v1 - v0, nw = w1 - w0;
+        int c = 0;
+
+        if (nv == 0 || nw == 0)
+            return 0;
+
+        if ((long)nw * GALLOP_RATIO < nv) {
+            int lo = v0;
+
+            for (int j = w0; j < w1 && lo < v1; ++j) {
+                int x = fwd[j];
+                lo = gallop(x, lo, v1);
+
+                if (lo < v1 && fwd[lo] == x) {
+                    ++support[lo++];
+                    ++c;
+                }
+            }
+        }
+        else if ((long)nv * GALLOP_RATIO < nw) {
+            int lo = w0;
+
+            for (int i = v0; i < v1 && lo < w1; ++i) {
+                int x = fwd[i];
+                lo = gallop(x, lo, w1);
+
+                if (lo < w1 && fwd[lo] == x) {
+                    ++support[i];
+                    ++c;
+                    ++lo;
+                }
+            }
+        }
+        else {
+            int i = v0, j = w0;
+
+            while (i < v1 && j < w1) {
+                int x = fwd[i], y = fwd[j];
+
+                if (x < y) {
+                    ++i;
+                }
+                else if (y < x) {
+                    ++j;
+                }
+                else {
+                    ++support[i++];
+                    ++c;
+                    ++j;
+                }
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Retorna a primeira posição em fwd[lo,hi) com valor maior ou
+     * igual à x, dobrando o passo à partir de lo e terminando com
+     * uma busca binária.
+     */
+    private int gallop(int x, int lo, int hi) {
+        int step = 1, prev = lo;
+
+        while (lo < hi && fwd[lo] < x) {
+            prev = lo + 1;
+            lo += step;
+            step <<= 1;
+        }
+
+        if (lo > hi)
+            lo = hi;
+
+        while (prev < lo) {
+            int mid = (prev + lo) >>> 1;
+            if (fwd[mid] < x)
+                prev = mid + 1;
+            else
+                lo = mid;
+        }
+
+        return lo;
+    }
+
+    /**
+     * Retorna o número de triângulos que contêm o vértice v.
+     */
+    public long getTriangles(int v) {
+        return triangles[v];
+    }
+
+    /**
+     * Retorna o vetor de triângulos de todos os vértices.
+     * O vetor é interno ao algoritmo e não deve ser modificado.
+     */
+    public long[] getTriangleCounts() {
+        return triangles;
+    }
+
+    /**
+     * Retorna o número total de triângulos do grafo.
+     */
+    public long getNumTriangles() {
+        return num_triangles;
+    }
+
+    /**
+     * Retorna o grau do vértice v no grafo simples não direcionado.
+     */
+    public int getDegree(int v) {
+        return degree[v];
+    }
+
+    /**
+     * Retorna o coeficiente de agrupamento local de v: a fração
+     * dos pares de vizinhos de v que são adjacentes entre si.
+     */
+    public double getClustering(int v) {
+        long d = degree[v];
+        return (d < 2) ? 0.0 : triangles[v] / (d * (d - 1) / 2.0);
+    }
+
+    /**
+     * Retorna a média dos coeficientes de agrupamento locais.
+     */
+    public double getAverageClustering() {
+        int n = graph.num_vertex;
+        double sum = 0;
+
+        for (int v = 0; v < n; ++v)
+            sum += getClustering(v);
+
+        return (n == 0) ? 0.0 : sum / n;
+    }
+
+    /**
+     * Retorna a transitividade (coeficiente de agrupamento global):
+     * três vezes o número de triângulos dividido pelo número de
+     * caminhos de comprimento 2.
+     */
+    public double getTransitivity() {
+        double triples = 0;
+
+        for (int v = 0; v < graph.num_vertex; ++v) {
+            long d = degree[v];
+            triples += d * (d - 1) / 2.0;
+        }
+
+        return (triples == 0) ? 0.0 : 3.0 * num_triangles / triples;
+    }
+
+    private IndexedGraph<?> graph;
+    private int[] adj, degree, fwd_start, fwd;
+    private long[] triangles;
+    private long num_triangles;
+    private RunControl control;
+
+    private static final int GRAIN = 1 << 10;
+    private static final int CHECK_BLOCK = 1 << 10;
+    private static final int GALLOP_RATIO = 32;
+}
@@ -6,14 +6,25 @@
 
 package graphxt.gui;
 
+import graphxt.algorithms.DynamicShortestPaths;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.KShortestPaths;
+import graphxt.algorithms.ResultCache;
 import graphxt.model.Edge;
 import graphxt.model.Graph;
 import graphxt.model.Vertex;
 import graphxt.plugins.BFSPlugin;
+import graphxt.plugins.BellmanFordPlugin;
+import graphxt.plugins.ColoringPlugin;
+import graphxt.plugins.CommunityPlugin;
 import graphxt.plugins.DFSPlugin;
 import graphxt.plugins.DijkstraPlugin;
 import graphxt.plugins.FordFulkersonPlugin;
+import graphxt.plugins.KCorePlugin;
+import graphxt.plugins.KShortestPathsPlugin;
 import graphxt.plugins.KruskalPlugin;
+import graphxt.plugins.MatchingPlugin;
+import graphxt.plugins.PageRankPlugin;
 import graphxt.plugins.PrimPlugin;
 import graphxt.plugins.TopologicalSortPlugin;
 import graphxt.view.EdgeView;
@@ -117,6 +128,13 @@ public class GraphWindow extends javax.swing.JInternalFrame {
     kruskalOpt = new javax.swing.JRadioButton();
     primOpt = new javax.swing.JRadioButton();
     fordFulkerson = new javax.swing.JRadioButton();
+    pageRankOpt = new javax.swing.JRadioButton();
+    matchingOpt = new javax.swing.JRadioButton();
+    communityOpt = new javax.swing.JRadioButton();
+    kcoreOpt = new javax.swing.JRadioButton();
+    coloringOpt = new javax.swing.JRadioButton();
+    kspOpt = new javax.swing.JRadioButton();
+    bellmanFordOpt = new javax.swing.JRadioButton();
     jPanel5 = new javax.swing.JPanel();
     jButton1 = new javax.swing.JButton();
     jButton4 = new javax.swing.JButton();
@@ -422,6 +440,34 @@ public class GraphWindow extends javax.swing.JInternalFrame {
     fordFulkerson.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
     fordFulkerson.setText("Ford-Fukerson - MaxFlow");
 
+    buttonGroup1.add(pageRankOpt);
+    pageRankOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    pageRankOpt.setText("PageRank - Ranking");
+
+    buttonGroup1.add(matchingOpt);
+    matchingOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    matchingOpt.setText("Hopcroft-Karp - Matching");
+
+    buttonGroup1.add(communityOpt);
+    communityOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    communityOpt.setText("Louvain - Communities");
+
+    buttonGroup1.add(kcoreOpt);
+    kcoreOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    kcoreOpt.setText("Batagelj-Zaversnik - K-Core");
+
+    buttonGroup1.add(coloringOpt);
+    coloringOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    coloringOpt.setText("Jones-Plassmann - Coloring");
+
+    buttonGroup1.add(kspOpt);
+    kspOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    kspOpt.setText("Yen - K Shortest Paths");
+
+    buttonGroup1.add(bellmanFordOpt);
+    bellmanFordOpt.setFont(new java.awt.Font("DejaVu Sans", 0, 11));
+    bellmanFordOpt.setText("Bellman-Ford - Shortest Paths");
+
     javax.swing.GroupLayout jPanel3Layout = new javax.swing.GroupLayout(jPanel3);
     jPanel3.setLayout(jPanel3Layout);
     jPanel3Layout.setHorizontalGroup(
@@ -444,6 +490,27 @@ public class GraphWindow extends javax.swing.JInternalFrame {
           .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
             .addComponent(kruskalOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
             .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(pageRankOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(matchingOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(communityOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(kcoreOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(coloringOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(kspOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
+          .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel3Layout.createSequentialGroup()
+            .addComponent(bellmanFordOpt, javax.swing.GroupLayout.DEFAULT_SIZE, 191, Short.MAX_VALUE)
+            .addContainerGap())
           .addComponent(primOpt, javax.swing.GroupLayout.Alignment.TRAILING, javax.swing.GroupLayout.DEFAULT_SIZE, 197, Short.MAX_VALUE)
           .addGroup(jPanel3Layout.createSequentialGroup()
             .addComponent(fordFulkerson)
@@ -464,10 +531,24 @@ public class GraphWindow extends javax.swing.JInternalFrame {
         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
         .addComponent(primOpt)
         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-        .addComponent(fordFulkerson))
+        .addComponent(fordFulkerson)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(pageRankOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(matchingOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(communityOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(kcoreOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(coloringOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(kspOpt)
+        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+        .addComponent(bellmanFordOpt))
     );
 
-    jPanel3Layout.linkSize(javax.swing.SwingConstants.VERTICAL, new java.awt.Component[] {bfsOpt, dfsOpt, dijOpt, kruskalOpt, primOpt, topOpt});
+    jPanel3Layout.linkSize(javax.swing.SwingConstants.VERTICAL, new java.awt.Component[] {bellmanFordOpt, bfsOpt, coloringOpt, communityOpt, dfsOpt, dijOpt, kcoreOpt, kruskalOpt, kspOpt, matchingOpt, pageRankOpt, primOpt, topOpt});
 
     jPanel5.setBorder(javax.swing.BorderFactory.createTitledBorder(null, "Control", javax.swing.border.TitledBorder.DEFAULT_JUSTIFICATION, javax.swing.border.TitledBorder.DEFAULT_POSITION, new java.awt.Font("DejaVu Sans", 0, 11))); // NOI18N
 
@@ -709,7 +790,10 @@ public class GraphWindow extends javax.swing.JInternalFrame {
             timer.start();           
         }
         else if (kruskalOpt.isSelected()) {
+            String mode = JOptionPane.showInputDialog("What's the mode? (Heap/Filter)");
+            
             timer.addActionListener(new KruskalPlugin(
+                "Filter".equalsIgnoreCase(mode) ? KruskalPlugin.FILTER_MODE : KruskalPlugin.HEAP_MODE,
                 null,
                 graph_view.getGraph(),
                 graph_view,this,timer
@@ -740,21 +824,129 @@ public class GraphWindow extends javax.swing.JInternalFrame {
         else if (fordFulkerson.isSelected()) {
           String src = JOptionPane.showInputDialog("What's the source vertex?");
           String dest = JOptionPane.showInputDialog("What's the destiny vertex?");
-          String search = JOptionPane.showInputDialog("What's the search type ? (DFS/BFS)");
+          String search = JOptionPane.showInputDialog("What's the search type ? (DFS/BFS/Dinic/PushRelabel/MinCost)");
 
           Vertex<String> s = new Vertex<String>(src);
           Vertex<String> t = new Vertex<String>(dest);
-          int searchType = search.equalsIgnoreCase("DFS") ?
-            FordFulkersonPlugin.DFS_PATH : FordFulkersonPlugin.BFS_PATH;
+          int searchType = FordFulkersonPlugin.BFS_PATH;
+
+          if (search.equalsIgnoreCase("DFS"))
+            searchType = FordFulkersonPlugin.DFS_PATH;
+          else if (search.equalsIgnoreCase("Dinic"))
+            searchType = FordFulkersonPlugin.DINIC;
+          else if (search.equalsIgnoreCase("PushRelabel"))
+            searchType = FordFulkersonPlugin.PUSH_RELABEL;
+          else if (search.equalsIgnoreCase("MinCost"))
+            searchType = FordFulkersonPlugin.MIN_COST;
+
+          int capacity = 1;
+
+          if (searchType == FordFulkersonPlugin.MIN_COST) {
+            String cap = JOptionPane.showInputDialog("What's the capacity of each edge? (weights are the costs)", "1");
+
+            if (cap != null) {
+              try {
+                capacity = Integer.parseInt(cap.trim());
+              } catch (NumberFormatException e) {
+                postMessage("Invalid capacity, using 1.");
+              }
+            }
+          }
 
           timer.addActionListener(new FordFulkersonPlugin(
-            searchType, s, t,
+            searchType, capacity, s, t,
             graph_view.getGraph(),
             graph_view, this, timer
           ));
 
           timer.start();
         }
+        else if (pageRankOpt.isSelected()) {
+            String inf = JOptionPane.showInputDialog("What's the personalization vertex? (empty for none)");
+
+            timer.addActionListener(new PageRankPlugin(
+                graph_view.getGraph().getVertex(inf),
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (matchingOpt.isSelected()) {
+            timer.addActionListener(new MatchingPlugin(
+                null,
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (communityOpt.isSelected()) {
+            timer.addActionListener(new CommunityPlugin(
+                null,
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (kcoreOpt.isSelected()) {
+            timer.addActionListener(new KCorePlugin(
+                null,
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (coloringOpt.isSelected()) {
+            timer.addActionListener(new ColoringPlugin(
+                null,
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (kspOpt.isSelected()) {
+            String src = JOptionPane.showInputDialog("What's the source vertex?");
+            String dest = JOptionPane.showInputDialog("What's the destiny vertex?");
+            String num = JOptionPane.showInputDialog("How many paths?");
+            int k;
+
+            if (num == null) {
+                postMessage("Cancelled.");
+                return;
+            }
+
+            try {
+                k = Integer.parseInt(num.trim());
+            } catch (NumberFormatException e) {
+                postMessage("Invalid number of paths.");
+                return;
+            }
+
+            timer.addActionListener(new KShortestPathsPlugin(
+                graph_view.getGraph().getVertex(src),
+                graph_view.getGraph().getVertex(dest),
+                k,
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
+        else if (bellmanFordOpt.isSelected()) {
+            String inf = JOptionPane.showInputDialog("What's the initial vertex?");
+
+            timer.addActionListener(new BellmanFordPlugin(
+                graph_view.getGraph().getVertex(inf),
+                graph_view.getGraph(),
+                graph_view,this,timer
+            ));
+
+            timer.start();
+        }
     }//GEN-LAST:event_jButton1ActionPerformed
 
     private void jButton4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton4ActionPerformed
@@ -853,6 +1045,71 @@ public class GraphWindow extends javax.swing.JInternalFrame {
         messages.addElement(str);    
         messageBoard.ensureIndexIsVisible(messages.getSize()-1);
     }
+
+    /**
+     * Retorna o cache de resultados dos algoritmos para o grafo
+     * atual da janela. Caso o grafo tenha sido trocado (novo
+     * arquivo, por exemplo), o cache antigo é descartado.
+     */
+    public ResultCache<String> getResultCache() {
+        Graph<String,Integer> graph = graph_view.getGraph();
+
+        if (cache == null || cache.getGraph() != graph) {
+            if (cache != null)
+                cache.detach();
+            cache = new ResultCache<String>(graph);
+        }
+
+        return cache;
+    }
+
+    /**
+     * Retorna os caminhos mínimos à partir de source, mantidos
+     * incrementalmente à cada edição do grafo atual da janela. Os
+     * caminhos só são calculados do zero quando a origem ou o grafo
+     * mudam.
+     * @return Os caminhos, ou null caso source não exista ou alguma
+     *         aresta tenha peso negativo.
+     */
+    public DynamicShortestPaths<String> getShortestPaths(Vertex<String> source) {
+        Graph<String,Integer> graph = graph_view.getGraph();
+
+        if (source == null || !graph.contains(source))
+            return null;
+
+        if (paths == null || paths.getGraph() != graph || !paths.getSource().equals(source)) {
+            if (paths != null)
+                paths.detach();
+
+            try {
+                paths = new DynamicShortestPaths<String>(graph, source).run();
+            } catch (IllegalArgumentException ex) {
+                paths = null;
+            }
+        }
+
+        return paths;
+    }
+
+    /**
+     * Retorna o KShortestPaths sobre graph, que deve ser o IndexedGraph
+     * atual do cache. O mesmo objeto, com o seu espaço de trabalho, é
+     * reaproveitado enquanto graph não mudar.
+     * @return O algoritmo, ou null caso alguma aresta tenha peso negativo.
+     */
+    public KShortestPaths getKShortestPaths(IndexedGraph<String> graph) {
+        if (k_paths == null || k_paths_graph != graph) {
+            k_paths_graph = graph;
+
+            try {
+                k_paths = new KShortestPaths(graph);
+            } catch (IllegalArgumentException ex) {
+                k_paths = null;
+            }
+        }
+
+        return k_paths;
+    }
     
     /**
      * Coloca os toggleButtons em um mesmo grupo, para
@@ -1100,6 +1357,10 @@ public class GraphWindow extends javax.swing.JInternalFrame {
     
     private Timer timer;
     private GraphView graph_view;
+    private ResultCache<String> cache;
+    private DynamicShortestPaths<String> paths;
+    private KShortestPaths k_paths;
+    private IndexedGraph<String> k_paths_graph;
     private GraphTheme theme;
     private DefaultListModel messages;
     private ArrayList<JToggleButton> toggle_buttons;
@@ -1108,9 +1369,12 @@ public class GraphWindow extends javax.swing.JInternalFrame {
   // Variables declaration - do not modify//GEN-BEGIN:variables
   public javax.swing.JToggleButton adEdButton;
   public javax.swing.JToggleButton adVeButton;
+  private javax.swing.JRadioButton bellmanFordOpt;
   private javax.swing.JRadioButton bfsOpt;
   private javax.swing.ButtonGroup buttonGroup1;
   private javax.swing.JButton clearButton;
+  private javax.swing.JRadioButton coloringOpt;
+  private javax.swing.JRadioButton communityOpt;
   private javax.swing.JRadioButton dfsOpt;
   private javax.swing.JRadioButton dijOpt;
   private javax.swing.JRadioButton fordFulkerson;
@@ -1139,10 +1403,14 @@ public class GraphWindow extends javax.swing.JInternalFrame {
   private javax.swing.JTabbedPane jTabbedPane1;
   private javax.swing.JTabbedPane jTabbedPane2;
   private javax.swing.JToolBar jToolBar1;
+  private javax.swing.JRadioButton kcoreOpt;
   private javax.swing.JRadioButton kruskalOpt;
+  private javax.swing.JRadioButton kspOpt;
   public javax.swing.JToggleButton lbEdButton;
   public javax.swing.JToggleButton lbVeButton;
+  private javax.swing.JRadioButton matchingOpt;
   private javax.swing.JList messageBoard;
+  private javax.swing.JRadioButton pageRankOpt;
   private javax.swing.JRadioButton primOpt;
   public javax.swing.JToggleButton reEdButton;
   public javax.swing.JToggleButton reVeButton;
@@ -6,6 +6,7 @@
 
 package graphxt.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -38,6 +39,22 @@ public class Graph<T,V> {
      */
     public Graph(int capacity) {
         adj = new HashMap<Vertex<T>,HashSet<Edge<T,V>>>(capacity);
+        listeners = new ArrayList<GraphListener<T,V>>();
+    }
+
+    /**
+     * Registra listener para ser avisado de todas as
+     * modificações feitas neste grafo.
+     */
+    public void addGraphListener(GraphListener<T,V> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Deixa de avisar listener das modificações deste grafo.
+     */
+    public void removeGraphListener(GraphListener<T,V> listener) {
+        listeners.remove(listener);
     }
     
     /**
@@ -50,6 +67,11 @@ public class Graph<T,V> {
             return;
         
         adj.put(vert, new HashSet<Edge<T,V>>());
+
+        ++version;
+
+        for (GraphListener<T,V> l : listeners)
+            l.vertexInserted(vert);
     }    
 
     /**
@@ -62,8 +84,15 @@ public class Graph<T,V> {
         insertVertex(edge.getStart());
         insertVertex(edge.getEnd());
         
-        adj.get(edge.getStart()).add(edge);
-        adj.get(edge.getEnd()).add(edge);
+        boolean added = adj.get(edge.getStart()).add(edge);
+        added |= adj.get(edge.getEnd()).add(edge);
+
+        if (added) {
+            ++version;
+
+            for (GraphListener<T,V> l : listeners)
+                l.edgeInserted(edge);
+        }
     }
     
     /**
@@ -108,7 +137,7 @@ public class Graph<T,V> {
         if (!contains(vert))
             return;
         
-        adj.remove(vert);
+        HashSet<Edge<T,V>> removed = adj.remove(vert);
         
         for (Vertex<T> vt : adj.keySet()) {
             Iterator<Edge<T,V>> it = adj.get(vt).iterator();
@@ -118,6 +147,14 @@ public class Graph<T,V> {
                     it.remove();
             }
         }
+
+        ++version;
+
+        for (GraphListener<T,V> l : listeners) {
+            for (Edge<T,V> edge : removed)
+                l.edgeRemoved(edge);
+            l.vertexRemoved(vert);
+        }
     }
     
     /**
@@ -129,6 +166,42 @@ public class Graph<T,V> {
         
         adj.get(edge.getStart()).remove(edge);
         adj.get(edge.getEnd()).remove(edge);
+        ++version;
+
+        for (GraphListener<T,V> l : listeners)
+            l.edgeRemoved(edge);
+    }
+
+    /**
+     * Modifica a informação guardada pela aresta edge, que deve
+     * pertencer ao grafo, avisando os listeners. Como o código hash
+     * da aresta depende da sua informação, a aresta é retirada dos
+     * conjuntos de adjacência antes da modificação e reinserida depois.
+     */
+    public void setEdgeData(Edge<T,V> edge, V data) {
+        if (!contains(edge))
+            return;
+
+        V old = edge.getData();
+
+        adj.get(edge.getStart()).remove(edge);
+        adj.get(edge.getEnd()).remove(edge);
+        edge.setData(data);
+        adj.get(edge.getStart()).add(edge);
+        adj.get(edge.getEnd()).add(edge);
+        ++version;
+
+        for (GraphListener<T,V> l : listeners)
+            l.edgeChanged(edge, old);
+    }
+
+    /**
+     * Retorna a versão do grafo, um contador que aumenta à cada
+     * modificação feita por este objeto. Duas consultas com a mesma
+     * versão enxergam exatamente o mesmo grafo.
+     */
+    public long getVersion() {
+        return version;
     }
     
     /**
@@ -313,4 +386,14 @@ public class Graph<T,V> {
      * iterar rapidamente sobre arestas vizinhas à um certo nó.
      */
     private HashMap<Vertex<T>,HashSet<Edge<T,V>>> adj;
+
+    /**
+     * Objetos avisados das modificações feitas no grafo.
+     */
+    private ArrayList<GraphListener<T,V>> listeners;
+
+    /**
+     * Número de modificações feitas no grafo.
+     */
+    private long version;
 }
@@ -0,0 +1,47 @@
+/*
+ * GraphListener.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.model;
+
+/**
+ * GraphListener<T,V>
+ *
+ * Interface para objetos que precisam acompanhar as modificações
+ * de um Graph<T,V>, como estruturas mantidas incrementalmente.
+ * Os métodos são chamados pelo próprio grafo, logo depois de
+ * cada modificação.
+ *
+ * @author Giuliano Vilela
+ */
+public interface GraphListener<T,V> {
+    /**
+     * O vértice vert foi inserido no grafo.
+     */
+    public void vertexInserted(Vertex<T> vert);
+
+    /**
+     * O vértice vert foi removido do grafo. As arestas que tinham
+     * vert como terminal já foram avisadas por edgeRemoved().
+     */
+    public void vertexRemoved(Vertex<T> vert);
+
+    /**
+     * A aresta edge foi inserida no grafo. Caso os seus vértices
+     * terminais sejam novos, eles já foram avisados por vertexInserted().
+     */
+    public void edgeInserted(Edge<T,V> edge);
+
+    /**
+     * A aresta edge foi removida do grafo.
+     */
+    public void edgeRemoved(Edge<T,V> edge);
+
+    /**
+     * A informação guardada pela aresta edge foi modificada
+     * por Graph.setEdgeData(). O valor anterior era old.
+     */
+    public void edgeChanged(Edge<T,V> edge, V old);
+}
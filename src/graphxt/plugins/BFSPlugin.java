@@ -6,6 +6,9 @@
 
 package graphxt.plugins;
 
+import graphxt.algorithms.BreadthFirstSearch;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
 import graphxt.gui.GraphWindow;
 import graphxt.model.Edge;
 import graphxt.model.Graph;
@@ -13,8 +16,6 @@ import graphxt.model.Vertex;
 import graphxt.view.GraphView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashSet;
-import java.util.LinkedList;
 import javax.swing.Timer;
 
 /**
@@ -23,6 +24,9 @@ import javax.swing.Timer;
  * É o plugin que implementa o percorrimento
  * em largura do grafo.
  * 
+ * A busca é feita de uma só vez pelo BreadthFirstSearch,
+ * e o plugin mostra um vértice da ordem da busca à cada iteração.
+ * 
  * @author Giuliano Vilela
  */
 public class BFSPlugin extends BasePlugin implements ActionListener {
@@ -38,14 +42,21 @@ public class BFSPlugin extends BasePlugin implements ActionListener {
      * prepara para começar a buscar no vértice cur.
      */
     public void setInitialVertex(Vertex<String> cur) {
-        visited = new HashSet<Vertex<String>>(graph.getNumVertex()*2);
-        to_visit = new LinkedList<Vertex<String>>();
-        
         if (cur == null) {
             cur = graph.getVertexSet().iterator().next();
         }
         
-        to_visit.addLast(cur);
+        final Vertex<String> start = cur;
+
+        indexed = window.getResultCache().getIndexedGraph();
+        bfs = window.getResultCache().get("BFS", cur.getData(), new ResultCache.Computation<String,BreadthFirstSearch>() {
+            public BreadthFirstSearch compute(IndexedGraph<String> g) {
+                return new BreadthFirstSearch(g).run(g.indexOf(start));
+            }
+        });
+        order = bfs.getOrder();
+        k = 0;
+        
         window.postMessage("Plugin initialized.");
         
         graph_view.deselectAll();
@@ -59,36 +70,36 @@ public class BFSPlugin extends BasePlugin implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (to_visit.isEmpty()) {
+        if (k == order.length) {
                 window.postMessage("BFS finished.");
                 stop();
                 return;
         }
         
-        Vertex<String> cur = to_visit.pop();
+        int u = order[k++];
+        Vertex<String> cur = indexed.getVertex(u);
         
         window.postMessage("Current: Vertex<" + cur + ">.");
         
-        visited.add(cur);
-        
         graph_view.getVertexView(cur).setSelected(true);
         
-        for (Edge<String,Integer> edge : graph.getEdgeSet()) {
-            if (!edge.contains(cur)) continue;
-            if (edge.isDirected() && !edge.getStart().getData().equals(cur.getData())) continue;
+        for (int i = 0; i < indexed.getOutDegree(u); ++i) {
+            int ed = indexed.getOutEdge(u, i);
+            int adj = indexed.getOutNeighbour(u, i);
+            Edge<String,Integer> edge = indexed.getEdge(ed);
             
-            Vertex<String> adj = edge.getOposite(cur);
             graph_view.getEdgeView(edge).setSelected(true);
             
-            if (!visited.contains(adj) && !to_visit.contains(adj)) {
+            if (bfs.getParent(adj) == u && bfs.getParentEdge(adj) == ed) {
                 window.postMessage("- Visiting: " + edge);
-                to_visit.addLast(adj);
             }
         }
         
         graph_view.repaint();
     }
 
-    protected LinkedList<Vertex<String>> to_visit;
-    protected HashSet<Vertex<String>> visited;
+    private IndexedGraph<String> indexed;
+    private BreadthFirstSearch bfs;
+    private int[] order;
+    private int k;
 }
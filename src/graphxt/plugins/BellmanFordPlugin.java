@@ -0,0 +1,151 @@
+/*
+ * BellmanFordPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.BellmanFord;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import javax.swing.Timer;
+
+/**
+ * BellmanFordPlugin
+ *
+ * É o plugin que mostra os caminhos mínimos à partir de um vértice,
+ * calculados de uma só vez pelo BellmanFord (SPFA), que aceita arestas
+ * de peso negativo.
+ *
+ * À cada iteração, o próximo vértice em ordem de distância é
+ * selecionado, junto com a aresta do seu pai, e mostra o pai e a
+ * distância. Caso haja um ciclo negativo alcançável, ele é
+ * selecionado e o plugin para.
+ *
+ * @author Giuliano Vilela
+ */
+public class BellmanFordPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public BellmanFordPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula os caminhos mínimos à partir de cur.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+
+        final int s = indexed.indexOf(cur);
+        k = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            clearVertexInfo(indexed.getVertex(v));
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+
+        if (s == -1) {
+            paths = null;
+            window.postMessage("Invalid initial vertex.");
+            return;
+        }
+
+        paths = window.getResultCache().get("BellmanFord", s, new ResultCache.Computation<String,BellmanFord>() {
+            public BellmanFord compute(IndexedGraph<String> g) {
+                return new BellmanFord(g).run(s);
+            }
+        });
+
+        ArrayList<Integer> reached = new ArrayList<Integer>();
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            if (paths.getDistance(v) != BellmanFord.UNREACHABLE)
+                reached.add(v);
+
+        Collections.sort(reached, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                long da = paths.getDistance(a), db = paths.getDistance(b);
+                return da < db ? -1 : (da > db ? 1 : a.compareTo(b));
+            }
+        });
+
+        order = new int[reached.size()];
+        for (int i = 0; i < order.length; ++i)
+            order[i] = reached.get(i);
+
+        window.postMessage("Bellman-Ford initialized.");
+        window.postMessage("Bellman-Ford took " + paths.getNumRounds() + " rounds.");
+    }
+
+    /**
+     * Mostra o próximo vértice, ou o ciclo negativo.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (paths == null) {
+            stop();
+            return;
+        }
+
+        if (paths.hasNegativeCycle()) {
+            StringBuilder str = new StringBuilder();
+
+            for (int v : paths.getNegativeCycleVertices()) {
+                Vertex<String> vert = indexed.getVertex(v);
+                graph_view.getVertexView(vert).setSelected(true);
+                str.append(vert).append(" -> ");
+            }
+            str.append(indexed.getVertex(paths.getNegativeCycleVertices()[0]));
+
+            for (int ed : paths.getNegativeCycle())
+                graph_view.getEdgeView(indexed.getEdge(ed)).setSelected(true);
+
+            window.postMessage("Negative cycle found: " + str + ".");
+            window.postMessage("Bellman-Ford finished.");
+
+            graph_view.repaint();
+            stop();
+            return;
+        }
+
+        if (k == order.length) {
+            window.postMessage("Bellman-Ford finished.");
+            stop();
+            return;
+        }
+
+        int v = order[k++];
+        Vertex<String> vert = indexed.getVertex(v);
+
+        graph_view.getVertexView(vert).setSelected(true);
+
+        if (paths.getParent(v) != -1) {
+            graph_view.getEdgeView(indexed.getEdge(paths.getParentEdge(v))).setSelected(true);
+            setVertexInfo(vert, indexed.getVertex(paths.getParent(v)) + "/" + paths.getDistance(v));
+        }
+        else {
+            setVertexInfo(vert, "-/0");
+        }
+
+        window.postMessage("Vertex<" + vert + "> at distance " + paths.getDistance(v) + ".");
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private BellmanFord paths;
+    private int[] order;
+    private int k;
+}
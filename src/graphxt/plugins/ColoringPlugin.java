@@ -0,0 +1,98 @@
+/*
+ * ColoringPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.GraphColoring;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * ColoringPlugin
+ *
+ * É o plugin que mostra uma coloração dos vértices do grafo,
+ * calculada de uma só vez pelo GraphColoring, com o Jones-Plassmann
+ * na ordem SMALLEST_LAST.
+ *
+ * À cada iteração, os vértices de uma cor são pintados com ela
+ * e mostram o seu número.
+ *
+ * @author Giuliano Vilela
+ */
+public class ColoringPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public ColoringPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula a coloração. O vértice inicial não é usado.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+        coloring = window.getResultCache().get("GraphColoring", null, new ResultCache.Computation<String,GraphColoring>() {
+            public GraphColoring compute(IndexedGraph<String> g) {
+                GraphColoring c = new GraphColoring(g);
+                c.setOrdering(GraphColoring.SMALLEST_LAST);
+                return c.run(GraphColoring.JONES_PLASSMANN);
+            }
+        });
+        k = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            clearVertexInfo(indexed.getVertex(v));
+
+        window.postMessage("Plugin initialized.");
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+
+    /**
+     * Pinta os vértices da próxima cor. Quando todas já
+     * foram mostradas, para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (k == coloring.getNumColors()) {
+            window.postMessage("Graph colored with " + k + " colors.");
+            window.postMessage("Coloring finished.");
+            stop();
+            return;
+        }
+
+        int count = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v) {
+            if (coloring.getColor(v) != k)
+                continue;
+
+            Vertex<String> vert = indexed.getVertex(v);
+
+            graph_view.getVertexView(vert).setFillColor(graph_view.getTheme().getCategoryColor(k));
+            setVertexInfo(vert, String.valueOf(k));
+            ++count;
+        }
+
+        window.postMessage("Color " + k + " has " + count + " vertices.");
+
+        ++k;
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private GraphColoring coloring;
+    private int k;
+}
@@ -0,0 +1,92 @@
+/*
+ * CommunityPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.Louvain;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * CommunityPlugin
+ *
+ * É o plugin que mostra as comunidades do grafo, calculadas de uma
+ * só vez pelo Louvain.
+ *
+ * À cada iteração, os vértices de uma comunidade são pintados com
+ * a cor dela e mostram o seu número (C0, C1, ...).
+ *
+ * @author Giuliano Vilela
+ */
+public class CommunityPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public CommunityPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula as comunidades. O vértice inicial não é usado.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+        louvain = window.getResultCache().get("Louvain", null, new ResultCache.Computation<String,Louvain>() {
+            public Louvain compute(IndexedGraph<String> g) {
+                return new Louvain(g).run();
+            }
+        });
+        k = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            clearVertexInfo(indexed.getVertex(v));
+
+        window.postMessage("Plugin initialized.");
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+
+    /**
+     * Pinta a próxima comunidade. Quando todas já
+     * foram mostradas, para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (k == louvain.getNumCommunities()) {
+            window.postMessage("Found " + k + " communities, modularity " + String.format("%.4f", louvain.getModularity()) + ".");
+            window.postMessage("Louvain finished.");
+            stop();
+            return;
+        }
+
+        window.postMessage("Community " + k + " has " + louvain.getCommunitySize(k) + " vertices.");
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v) {
+            if (louvain.getCommunity(v) != k)
+                continue;
+
+            Vertex<String> vert = indexed.getVertex(v);
+
+            graph_view.getVertexView(vert).setFillColor(graph_view.getTheme().getCategoryColor(k));
+            setVertexInfo(vert, "C" + k);
+        }
+
+        ++k;
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private Louvain louvain;
+    private int k;
+}
@@ -6,6 +6,9 @@
 
 package graphxt.plugins;
 
+import graphxt.algorithms.DepthFirstSearch;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
 import graphxt.gui.GraphWindow;
 import graphxt.model.Edge;
 import graphxt.model.Graph;
@@ -18,21 +21,51 @@ import javax.swing.Timer;
 /**
  * DFSPlugin
  * 
- * Esta classe é uma especialização do BFSPlugin,
- * mudando o modo como ele escolhe o próximo vértice
- * na sequência da busca, implementando o algoritmo
- * de busca em profundidade.
+ * Plugin que implementa o percorrimento
+ * em profundidade do grafo.
+ * 
+ * A busca é feita de uma só vez pelo DepthFirstSearch, e o
+ * plugin mostra um vértice por iteração, em ordem de descoberta,
+ * junto com a aresta pela qual ele foi descoberto. Ao final,
+ * mostra as componentes fortemente conexas, os pontos de
+ * articulação e as pontes encontrados pela busca.
  * 
  * @author Giuliano Vilela
  */
-public class DFSPlugin extends BFSPlugin implements ActionListener {
+public class DFSPlugin extends BasePlugin implements ActionListener {
     /**
-     * Construtor direto do BFSPlugin.
+     * Construtor direto do BasePlugin.
      */
     public DFSPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
         super(cur,graph,graph_view,window,timer);
     }
     
+    /**
+     * Inicializa as estruturas internas e
+     * prepara para começar a buscar no vértice cur.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        if (cur == null) {
+            cur = graph.getVertexSet().iterator().next();
+        }
+        
+        final Vertex<String> start = cur;
+
+        indexed = window.getResultCache().getIndexedGraph();
+        dfs = window.getResultCache().get("DFS", cur.getData(), new ResultCache.Computation<String,DepthFirstSearch>() {
+            public DepthFirstSearch compute(IndexedGraph<String> g) {
+                return new DepthFirstSearch(g).run(g.indexOf(start));
+            }
+        });
+        order = dfs.getOrder();
+        k = 0;
+        
+        window.postMessage("Plugin initialized.");
+        
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+    
     /**
      * Continua atualizando o grafo para mostrar o percorrimento
      * em profundidade. Caso não tenha mais para onde ir no grafo,
@@ -40,33 +73,44 @@ public class DFSPlugin extends BFSPlugin implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (to_visit.isEmpty()) {
+        if (k == order.length) {
+                postSummary();
                 window.postMessage("DFS finished.");
                 stop();
                 return;
         }
         
-        Vertex<String> cur = to_visit.pop();
+        int u = order[k++];
+        Vertex<String> cur = indexed.getVertex(u);
         
         window.postMessage("Current: Vertex<" + cur + ">.");
         
-        visited.add(cur);
-        
         graph_view.getVertexView(cur).setSelected(true);
         
-        for (Edge<String,Integer> edge : graph.getEdgeSet()) {
-            if (!edge.contains(cur)) continue;
-            if (edge.isDirected() && !edge.getStart().getData().equals(cur.getData())) continue;
-            
-            Vertex<String> adj = edge.getOposite(cur);
+        if (dfs.getParentEdge(u) != -1) {
+            Edge<String,Integer> edge = indexed.getEdge(dfs.getParentEdge(u));
+            window.postMessage("- Visiting: " + edge);
             graph_view.getEdgeView(edge).setSelected(true);
-            
-            if (!visited.contains(adj) && !to_visit.contains(adj)) {
-                window.postMessage("- Visiting: " + edge);
-                to_visit.addFirst(adj);
-            }
         }
         
         graph_view.repaint();
     }
+    
+    /**
+     * Mostra as informações estruturais calculadas pela busca.
+     */
+    private void postSummary() {
+        window.postMessage("- Strongly connected components: " + dfs.getNumComponents());
+        
+        for (int v : dfs.getArticulations())
+            window.postMessage("- Articulation point: " + indexed.getVertex(v));
+        
+        for (int ed : dfs.getBridges())
+            window.postMessage("- Bridge: " + indexed.getEdge(ed));
+    }
+    
+    private IndexedGraph<String> indexed;
+    private DepthFirstSearch dfs;
+    private int[] order;
+    private int k;
 }
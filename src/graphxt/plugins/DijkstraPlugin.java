@@ -6,6 +6,7 @@
 
 package graphxt.plugins;
 
+import graphxt.algorithms.DynamicShortestPaths;
 import graphxt.gui.GraphWindow;
 import graphxt.model.Edge;
 import graphxt.model.Graph;
@@ -25,6 +26,11 @@ import javax.swing.Timer;
  * caminho mais curto, assim como descrito
  * por Dijkstra.
  * 
+ * A janela mantém os caminhos mínimos da última origem usada
+ * atualizados à cada edição do grafo (DynamicShortestPaths). Caso
+ * o grafo tenha sido editado desde então, o plugin mostra de uma
+ * só vez a árvore já consertada, em vez de refazer o algoritmo.
+ * 
  * @author Giuliano Vilela
  */
 public class DijkstraPlugin extends BasePlugin implements ActionListener {
@@ -40,6 +46,8 @@ public class DijkstraPlugin extends BasePlugin implements ActionListener {
      * o vértice inicial para a aplicação do algoritmo.
      */
     public void setInitialVertex(Vertex<String> cur) {
+        source = cur;
+        paths = null;
         dist = new HashMap<Vertex<String>,Integer>();
         heap = new PriorityQueue<Vertex<String>>(graph.getNumVertex()*2,new Cmp());
         
@@ -52,6 +60,11 @@ public class DijkstraPlugin extends BasePlugin implements ActionListener {
         dist.put(cur, 0);
         heap.add(cur);
         
+        negative = false;
+        for (Edge<String,Integer> edge : graph.getEdgeSet())
+            if (edge.getData() < 0)
+                negative = true;
+        
         graph_view.deselectAll();
         graph_view.repaint();
         window.postMessage("Dijkstra initialized.");
@@ -64,6 +77,22 @@ public class DijkstraPlugin extends BasePlugin implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
+        if (negative) {
+            window.postMessage("Dijkstra does not work with negative edge weights; use Bellman-Ford.");
+            stop();
+            return;
+        }
+        
+        if (paths == null) {
+            paths = window.getShortestPaths(source);
+            
+            if (paths != null && paths.isValid() && paths.getNumUpdates() > 0) {
+                showTree();
+                stop();
+                return;
+            }
+        }
+        
         if (heap.isEmpty()) {
             window.postMessage("Dijkstra finished.");
             stop();
@@ -101,6 +130,31 @@ public class DijkstraPlugin extends BasePlugin implements ActionListener {
         graph_view.repaint();
     }
 
+    /**
+     * Mostra a árvore de caminhos mínimos mantida pela janela,
+     * já consertada depois das edições do grafo.
+     */
+    private void showTree() {
+        for (Vertex<String> v : graph.getVertexSet()) {
+            Edge<String,Integer> edge = paths.getParentEdge(v);
+            
+            if (!paths.isReachable(v))
+                continue;
+            
+            graph_view.getVertexView(v).setSelected(true);
+            
+            if (edge != null) {
+                graph_view.getEdgeView(edge).setSelected(true);
+                setVertexInfo(v,edge.getOposite(v)+"/"+paths.getDistance(v));
+            }
+        }
+        
+        window.postMessage("Shortest paths kept up to date over " + paths.getNumUpdates() + " edits.");
+        window.postMessage("The last edit touched " + paths.getNumAffected() + " vertices.");
+        window.postMessage("Dijkstra finished.");
+        graph_view.repaint();
+    }
+    
     /**
      * Classe de comparação entre dois vértices.
      * Um vértice é considerado menor que outro
@@ -118,6 +172,9 @@ public class DijkstraPlugin extends BasePlugin implements ActionListener {
     
     private HashMap<Vertex<String>,Integer> dist;
     private PriorityQueue<Vertex<String>> heap;
+    private boolean negative;
+    private Vertex<String> source;
+    private DynamicShortestPaths<String> paths;
     
     private final int INF = 1073741824; // 2^30
 }
@@ -1,6 +1,10 @@
 package graphxt.plugins;
 
 import java.util.*;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.MaxFlow;
+import graphxt.algorithms.MinCostFlow;
+import graphxt.algorithms.ResultCache;
 import graphxt.gui.*;
 import graphxt.view.*;
 import graphxt.model.*;
@@ -10,19 +14,44 @@ import javax.swing.Timer;
 public class FordFulkersonPlugin extends BasePlugin implements ActionListener {
   public static final int DFS_PATH = 0;
   public static final int BFS_PATH = 1;
+  public static final int DINIC = 2;
+  public static final int PUSH_RELABEL = 3;
+  public static final int MIN_COST = 4;
 
   public FordFulkersonPlugin(
           int search,
           Vertex<String> s, Vertex<String> t,
           Graph<String,Integer> graph, GraphView graph_view,
           GraphWindow window, Timer timer) {
+      this(search, 1, s, t, graph, graph_view, window, timer);
+  }
+
+  /**
+   * No modo MIN_COST, os pesos das arestas são usados como custos
+   * por unidade de fluxo, e toda aresta tem a capacidade dada.
+   */
+  public FordFulkersonPlugin(
+          int search, int capacity,
+          Vertex<String> s, Vertex<String> t,
+          Graph<String,Integer> graph, GraphView graph_view,
+          GraphWindow window, Timer timer) {
       super(null, graph, graph_view, window, timer);
       source = s;
       destiny = t;
       searchType = search;
+      uniformCapacity = capacity;
   }
 
   public void setInitialVertex(Vertex<String> cur) {
+    flow = null;
+    capacity = null;
+
+    graph_view.deselectAll();
+    graph_view.repaint();
+    window.postMessage("FordFulkerson initialized");
+  }
+
+  private void initMatrices() {
     flow = new HashMap<Vertex<String>,Map<Vertex<String>,Integer>>();
     for (Vertex<String> v1 : graph.getVertexSet()) {
       Map<Vertex<String>,Integer> line = new HashMap<Vertex<String>,Integer>();
@@ -40,10 +69,6 @@ public class FordFulkersonPlugin extends BasePlugin implements ActionListener {
 
       capacity.put(v1, line);
     }
-
-    graph_view.deselectAll();
-    graph_view.repaint();
-    window.postMessage("FordFulkerson initialized");
   }
 
   private int getFlow(Vertex<String> v1, Vertex<String> v2) {
@@ -143,17 +168,112 @@ public class FordFulkersonPlugin extends BasePlugin implements ActionListener {
   }
 
   private EdgeView<String,Integer> getEdgeView(Vertex<String> a, Vertex<String> b) {
-    for (EdgeView<String,Integer> e : graph_view.getEdgeViewSet()) {
-      if (!(e.getEdge().contains(a) && e.getEdge().contains(b)))
+    for (Edge<String,Integer> e : graph.getConnectedEdges(a)) {
+      if (!e.contains(b))
         continue;
-      return e;
+      return graph_view.getEdgeView(e);
     }
     return null;
   }
 
+  private void runEngine() {
+    IndexedGraph<String> indexed = window.getResultCache().getIndexedGraph();
+    int s = indexed.indexOf(source);
+    int t = indexed.indexOf(destiny);
+
+    if (s == -1 || t == -1) {
+      window.postMessage("Unknown source or destiny vertex.");
+      stop();
+      return;
+    }
+
+    try {
+      if (searchType == MIN_COST)
+        runMinCost(indexed, s, t);
+      else
+        runMaxFlow(indexed, s, t);
+    } catch (IllegalArgumentException ex) {
+      window.postMessage(ex.getMessage());
+    }
+
+    graph_view.repaint();
+    stop();
+  }
+
+  private void runMaxFlow(IndexedGraph<String> indexed, final int s, final int t) {
+    final int algorithm = (searchType == DINIC) ? MaxFlow.DINIC : MaxFlow.PUSH_RELABEL;
+
+    MaxFlow engine = window.getResultCache().get("MaxFlow", new int[] {algorithm, s, t},
+      new ResultCache.Computation<String,MaxFlow>() {
+        public MaxFlow compute(IndexedGraph<String> g) {
+          return new MaxFlow(g).run(algorithm, s, t);
+        }
+      });
+
+    for (int ed = 0; ed < indexed.getNumEdges(); ++ed) {
+      EdgeView<String,Integer> ev = graph_view.getEdgeView(indexed.getEdge(ed));
+      long f = engine.getFlow(ed);
+
+      ev.setEdgeInfo("[" + f + " / " + engine.getCapacity(ed) + "]");
+      ev.setSelected(f != 0);
+    }
+
+    for (int v = 0; v < indexed.getNumVertex(); ++v)
+      graph_view.getVertexView(indexed.getVertex(v)).setSelected(engine.isSourceSide(v));
+
+    int[] cut = engine.getMinCut();
+    for (int ed : cut) {
+      EdgeView<String,Integer> ev = graph_view.getEdgeView(indexed.getEdge(ed));
+      ev.setEdgeInfo(ev.getEdgeInfo() + " cut");
+    }
+
+    window.postMessage("Max flow is " + engine.getMaxFlow());
+    window.postMessage("Min cut has " + cut.length + " edges");
+    window.postMessage("FordFulkerson finished.");
+  }
+
+  private void runMinCost(IndexedGraph<String> indexed, final int s, final int t) {
+    final int c = uniformCapacity;
+
+    MinCostFlow engine = window.getResultCache().get("MinCostFlow", new int[] {s, t, c},
+      new ResultCache.Computation<String,MinCostFlow>() {
+        public MinCostFlow compute(IndexedGraph<String> g) {
+          int m = g.getNumEdges();
+          int[] capacity = new int[m], cost = new int[m];
+
+          for (int ed = 0; ed < m; ++ed) {
+            capacity[ed] = c;
+            cost[ed] = g.getEdgeWeight(ed);
+          }
+
+          return new MinCostFlow(g, capacity, cost).run(s, t);
+        }
+      });
+
+    for (int ed = 0; ed < indexed.getNumEdges(); ++ed) {
+      EdgeView<String,Integer> ev = graph_view.getEdgeView(indexed.getEdge(ed));
+      long f = engine.getFlow(ed);
+
+      ev.setEdgeInfo("[" + f + " / " + engine.getCapacity(ed) + "]");
+      ev.setSelected(f != 0);
+    }
+
+    window.postMessage("Max flow is " + engine.getFlowValue() + " (capacity " + uniformCapacity + " per edge)");
+    window.postMessage("Min cost is " + engine.getTotalCost());
+    window.postMessage("FordFulkerson finished.");
+  }
+
   @Override
   public void actionPerformed(ActionEvent e) {
     graph_view.deselectAll();
+
+    if (searchType == DINIC || searchType == PUSH_RELABEL || searchType == MIN_COST) {
+      runEngine();
+      return;
+    }
+
+    if (flow == null)
+      initMatrices();
     
     if (!search(source, destiny)) {
       window.postMessage("FordFulkerson finished.");
@@ -209,7 +329,7 @@ public class FordFulkersonPlugin extends BasePlugin implements ActionListener {
     graph_view.repaint();
   }
 
-  private int searchType;
+  private int searchType, uniformCapacity;
   private Vertex<String> source, destiny;
 
   private Map<Vertex<String>,Vertex<String>> parent;
@@ -0,0 +1,96 @@
+/*
+ * KCorePlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.KCore;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * KCorePlugin
+ *
+ * É o plugin que mostra a decomposição do grafo em k-núcleos,
+ * calculada de uma só vez pelo KCore.
+ *
+ * À cada iteração, o próximo vértice da ordem de remoção mostra o seu
+ * número de núcleo. No fim, o núcleo de ordem máxima é selecionado.
+ *
+ * @author Giuliano Vilela
+ */
+public class KCorePlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public KCorePlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula os números de núcleo. O vértice inicial não é usado.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+        kcore = window.getResultCache().get("KCore", null, new ResultCache.Computation<String,KCore>() {
+            public KCore compute(IndexedGraph<String> g) {
+                return new KCore(g).run();
+            }
+        });
+        order = kcore.getOrder();
+        k = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            clearVertexInfo(indexed.getVertex(v));
+
+        window.postMessage("Plugin initialized.");
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+
+    /**
+     * Mostra o número de núcleo do próximo vértice. Quando todos
+     * já foram mostrados, seleciona o núcleo máximo e para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (k == order.length) {
+            for (int v : kcore.getMaxCoreVertices())
+                graph_view.getVertexView(indexed.getVertex(v)).setSelected(true);
+
+            for (int ed : kcore.getMaxCoreEdges())
+                graph_view.getEdgeView(indexed.getEdge(ed)).setSelected(true);
+
+            window.postMessage("Maximum core is the " + kcore.getMaxCore() + "-core, with "
+                               + kcore.getMaxCoreVertices().length + " vertices.");
+            window.postMessage("K-Core finished.");
+
+            graph_view.repaint();
+            stop();
+            return;
+        }
+
+        int v = order[k++];
+        Vertex<String> vert = indexed.getVertex(v);
+
+        window.postMessage("Vertex<" + vert + "> has core number " + kcore.getCoreNumber(v) + ".");
+
+        setVertexInfo(vert, String.valueOf(kcore.getCoreNumber(v)));
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private KCore kcore;
+    private int[] order;
+    private int k;
+}
@@ -0,0 +1,133 @@
+/*
+ * KShortestPathsPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.KShortestPaths;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.EdgeView;
+import graphxt.view.GraphView;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * KShortestPathsPlugin
+ *
+ * É o plugin que mostra os k caminhos mais curtos entre dois
+ * vértices, calculados de uma só vez pelo KShortestPaths (Yen).
+ *
+ * À cada iteração, as arestas do próximo caminho que ainda não
+ * apareceram em nenhum caminho anterior são pintadas com uma cor
+ * própria dele, e o caminho é descrito no quadro de mensagens.
+ *
+ * @author Giuliano Vilela
+ */
+public class KShortestPathsPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Prepara o plugin para mostrar até k caminhos de source até target.
+     */
+    public KShortestPathsPlugin(Vertex<String> source, Vertex<String> target, int k, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(source,graph,graph_view,window,timer);
+        this.target = target;
+        this.k = k;
+    }
+
+    /**
+     * Limpa a tela. Os caminhos só são calculados no primeiro passo,
+     * quando o destino e o número de caminhos já são conhecidos.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        source = cur;
+        paths = null;
+        i = 0;
+
+        window.postMessage("Plugin initialized.");
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+
+    /**
+     * Mostra o próximo caminho. Quando todos já foram
+     * mostrados, para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (paths == null && !compute())
+            return;
+
+        if (i == paths.getNumPaths()) {
+            window.postMessage("Found " + i + " paths.");
+            window.postMessage("K shortest paths finished.");
+            stop();
+            return;
+        }
+
+        Color color = graph_view.getTheme().getCategoryColor(i);
+        StringBuilder str = new StringBuilder();
+        int[] vertices = paths.getVertices(i);
+
+        for (int edge : paths.getEdges(i)) {
+            EdgeView<String,Integer> view = graph_view.getEdgeView(indexed.getEdge(edge));
+            if (view.getColor() == null)
+                view.setColor(color);
+        }
+
+        for (int v : vertices) {
+            if (str.length() > 0)
+                str.append(" -> ");
+            str.append(indexed.getVertex(v));
+        }
+
+        window.postMessage("Path " + i + " (" + paths.getLength(i) + "): " + str);
+
+        ++i;
+        graph_view.repaint();
+    }
+
+    /**
+     * Calcula os caminhos, ou para o plugin caso
+     * a origem ou o destino não existam.
+     *
+     * O KShortestPaths é mantido pela janela, um por IndexedGraph, e
+     * só roda de novo quando a consulta muda.
+     * @return true caso os caminhos tenham sido calculados.
+     */
+    private boolean compute() {
+        indexed = window.getResultCache().getIndexedGraph();
+
+        int s = indexed.indexOf(source), t = indexed.indexOf(target);
+
+        if (s == -1 || t == -1 || k < 1) {
+            window.postMessage("Invalid source, destiny or number of paths.");
+            stop();
+            return false;
+        }
+
+        paths = window.getKShortestPaths(indexed);
+
+        if (paths == null) {
+            window.postMessage("Negative edge weights are not supported.");
+            stop();
+            return false;
+        }
+
+        if (paths.getK() != k || paths.getSource() != s || paths.getTarget() != t)
+            paths.run(s, t, k);
+
+        return true;
+    }
+
+    private IndexedGraph<String> indexed;
+    private KShortestPaths paths;
+    private Vertex<String> source, target;
+    private int k, i;
+}
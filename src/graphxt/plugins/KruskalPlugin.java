@@ -6,6 +6,9 @@
 
 package graphxt.plugins;
 
+import graphxt.algorithms.FilterKruskal;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
 import graphxt.gui.GraphWindow;
 import graphxt.model.Edge;
 import graphxt.model.Graph;
@@ -14,6 +17,7 @@ import graphxt.view.EdgeView;
 import graphxt.view.GraphView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.PriorityQueue;
@@ -26,31 +30,43 @@ import javax.swing.Timer;
  * achar a árvore de espalhamento mínima para um certo
  * grafo montado pelo usuário.
  * 
+ * No modo FILTER_MODE, a árvore é calculada de uma só vez
+ * pelo FilterKruskal, e o plugin somente mostra as arestas
+ * escolhidas, uma à cada iteração.
+ * 
  * @author Giuliano Vilela
  */
 public class KruskalPlugin extends BasePlugin implements ActionListener {
+    public static final int HEAP_MODE = 0;
+    public static final int FILTER_MODE = 1;
+    
     /**
      * Construtor direto do BasePlugin.
      */
     public KruskalPlugin(Vertex<String> cur,Graph<String,Integer> graph,GraphView graph_view,GraphWindow window,Timer timer) {
+        this(HEAP_MODE,cur,graph,graph_view,window,timer);
+    }
+    
+    /**
+     * Cria o plugin no modo indicado (HEAP_MODE ou FILTER_MODE).
+     */
+    public KruskalPlugin(int mode,Vertex<String> cur,Graph<String,Integer> graph,GraphView graph_view,GraphWindow window,Timer timer) {
         super(cur,graph,graph_view,window,timer);
+        this.mode = mode;
     }
 
     /**
-     * Inicializa as estruturas internas do plugin
+     * Inicializa as estruturas internas do plugin. O heap (ou a
+     * árvore, no FILTER_MODE) só é montado na primeira iteração,
+     * já que o modo ainda não é conhecido durante o construtor.
      * @param cur Não faz uso deste parâmetro
      */
     @Override
     public void setInitialVertex(Vertex<String> cur) {
-        disj_set = new HashMap<Vertex<String>,Integer>();
-        heap = new PriorityQueue<Edge<String,Integer>>(graph.getNumEdges()*2,new Cmp());
-        
-        int i = 0;
-        for (Vertex<String> v : graph.getVertexSet())
-            disj_set.put(v,i++);
-        
-        for (Edge<String,Integer> ed : graph.getEdgeSet())
-            heap.add(ed);
+        disj_set = null;
+        heap = null;
+        tree = null;
+        next_tree = 0;
         
         window.postMessage("Kruskal initialized.");
         graph_view.deselectAll();
@@ -63,6 +79,14 @@ public class KruskalPlugin extends BasePlugin implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
+        if (mode == FILTER_MODE) {
+            filterStep();
+            return;
+        }
+        
+        if (heap == null)
+            initHeap();
+        
         if (heap.isEmpty()) {
             window.postMessage("Kruskal finished.");
             stop();
@@ -97,6 +121,71 @@ public class KruskalPlugin extends BasePlugin implements ActionListener {
         graph_view.repaint();
     }
     
+    /**
+     * Monta os conjuntos disjuntos e o heap de
+     * todas as arestas, usados no HEAP_MODE.
+     */
+    private void initHeap() {
+        disj_set = new HashMap<Vertex<String>,Integer>();
+        heap = new PriorityQueue<Edge<String,Integer>>(Math.max(1,graph.getNumEdges()*2),new Cmp());
+        
+        int i = 0;
+        for (Vertex<String> v : graph.getVertexSet())
+            disj_set.put(v,i++);
+        
+        for (Edge<String,Integer> ed : graph.getEdgeSet())
+            heap.add(ed);
+    }
+    
+    /**
+     * Iteração do modo FILTER_MODE. Na primeira chamada calcula
+     * a árvore inteira, e nas seguintes seleciona uma aresta da
+     * árvore por vez. Ao final, remove as arestas não utilizadas.
+     */
+    private void filterStep() {
+        if (tree == null) {
+            IndexedGraph<String> indexed = window.getResultCache().getIndexedGraph();
+            FilterKruskal mst = window.getResultCache().get("FilterKruskal", null, new ResultCache.Computation<String,FilterKruskal>() {
+                public FilterKruskal compute(IndexedGraph<String> g) {
+                    return new FilterKruskal(g).run();
+                }
+            });
+            
+            tree = new ArrayList<Edge<String,Integer>>();
+            for (int ed : mst.getTreeEdges())
+                tree.add(indexed.getEdge(ed));
+            
+            window.postMessage("Filter-Kruskal found a forest of weight " + mst.getTotalWeight() + ".");
+        }
+        
+        if (next_tree == tree.size()) {
+            window.postMessage("Removing unused edges.");
+            
+            ArrayList<EdgeView<String,Integer>> to_del = new ArrayList<EdgeView<String,Integer>>();
+            
+            for (EdgeView<String,Integer> ed : graph_view.getEdgeViewSet())
+                if (!ed.isSelected())
+                    to_del.add(ed);
+            
+            for (EdgeView<String,Integer> ed : to_del)
+                graph_view.removeEdge(ed);
+            
+            window.postMessage("Kruskal finished.");
+            stop();
+            return;
+        }
+        
+        Edge<String,Integer> cur_ed = tree.get(next_tree++);
+        
+        window.postMessage("- Connecting " + cur_ed.getStart() + " and " + cur_ed.getEnd());
+        
+        graph_view.getEdgeView(cur_ed).setSelected(true);
+        graph_view.getVertexView(cur_ed.getStart()).setSelected(true);
+        graph_view.getVertexView(cur_ed.getEnd()).setSelected(true);
+        
+        graph_view.repaint();
+    }
+    
     /**
      * Classe de comparação entre duas arestas,
      * utilizada para manter a ordenação da fila de prioridade.
@@ -110,4 +199,8 @@ public class KruskalPlugin extends BasePlugin implements ActionListener {
     
     private HashMap<Vertex<String>,Integer> disj_set;
     private PriorityQueue<Edge<String,Integer>> heap;
+    
+    private int mode;
+    private ArrayList<Edge<String,Integer>> tree;
+    private int next_tree;
 }
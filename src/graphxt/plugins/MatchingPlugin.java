@@ -0,0 +1,102 @@
+/*
+ * MatchingPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.BipartiteMatching;
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Edge;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * MatchingPlugin
+ *
+ * É o plugin que mostra um emparelhamento máximo de um grafo
+ * bipartido, calculado de uma só vez pelo BipartiteMatching.
+ *
+ * À cada iteração, uma aresta do emparelhamento é selecionada junto
+ * com os seus extremos, e cada vértice mostra o seu lado (L ou R).
+ *
+ * @author Giuliano Vilela
+ */
+public class MatchingPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public MatchingPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula o emparelhamento. O vértice inicial não é usado.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+        matching = window.getResultCache().get("BipartiteMatching", null, new ResultCache.Computation<String,BipartiteMatching>() {
+            public BipartiteMatching compute(IndexedGraph<String> g) {
+                return new BipartiteMatching(g).run();
+            }
+        });
+        edges = matching.getMatching();
+        k = 0;
+
+        graph_view.deselectAll();
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v) {
+            Vertex<String> vert = indexed.getVertex(v);
+
+            if (matching.isBipartite())
+                setVertexInfo(vert, matching.getSide(v) == 0 ? "L" : "R");
+            else
+                clearVertexInfo(vert);
+        }
+
+        window.postMessage("Plugin initialized.");
+
+        graph_view.repaint();
+    }
+
+    /**
+     * Seleciona a próxima aresta do emparelhamento. Quando todas
+     * já foram mostradas, para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (!matching.isBipartite()) {
+            window.postMessage("The graph is not bipartite.");
+            stop();
+            return;
+        }
+
+        if (k == edges.length) {
+            window.postMessage("Maximum matching has " + edges.length + " edges.");
+            window.postMessage("Matching finished.");
+            stop();
+            return;
+        }
+
+        Edge<String,Integer> ed = indexed.getEdge(edges[k++]);
+
+        window.postMessage("Matching Vertex<" + ed.getStart() + "> and Vertex<" + ed.getEnd() + ">.");
+
+        graph_view.getEdgeView(ed).setSelected(true);
+        graph_view.getVertexView(ed.getStart()).setSelected(true);
+        graph_view.getVertexView(ed.getEnd()).setSelected(true);
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private BipartiteMatching matching;
+    private int[] edges;
+    private int k;
+}
@@ -0,0 +1,97 @@
+/*
+ * PageRankPlugin.java
+ *
+ * @author Giuliano Vilela
+ */
+
+package graphxt.plugins;
+
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.PageRank;
+import graphxt.algorithms.ResultCache;
+import graphxt.gui.GraphWindow;
+import graphxt.model.Graph;
+import graphxt.model.Vertex;
+import graphxt.view.GraphView;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * PageRankPlugin
+ *
+ * É o plugin que mostra o PageRank dos vértices do grafo.
+ *
+ * Os ranks são calculados de uma só vez pelo PageRank, e o plugin
+ * mostra um vértice por iteração, em ordem decrescente de rank, com
+ * o seu valor desenhado ao lado. Caso um vértice inicial seja dado,
+ * o PageRank é personalizado para ele.
+ *
+ * @author Giuliano Vilela
+ */
+public class PageRankPlugin extends BasePlugin implements ActionListener {
+    /**
+     * Construtor direto do BasePlugin.
+     */
+    public PageRankPlugin(Vertex<String> cur, Graph<String,Integer> graph, GraphView graph_view, GraphWindow window, Timer timer) {
+        super(cur,graph,graph_view,window,timer);
+    }
+
+    /**
+     * Calcula os ranks, personalizados para cur caso ele não seja null.
+     */
+    public void setInitialVertex(Vertex<String> cur) {
+        indexed = window.getResultCache().getIndexedGraph();
+
+        final int p = (cur == null) ? -1 : indexed.indexOf(cur);
+
+        pagerank = window.getResultCache().get("PageRank", p, new ResultCache.Computation<String,PageRank>() {
+            public PageRank compute(IndexedGraph<String> g) {
+                PageRank pr = new PageRank(g);
+                if (p != -1)
+                    pr.setPersonalization(p);
+                return pr.run();
+            }
+        });
+
+        ranking = pagerank.getRanking();
+        k = 0;
+
+        for (int v = 0; v < indexed.getNumVertex(); ++v)
+            clearVertexInfo(indexed.getVertex(v));
+
+        window.postMessage("Plugin initialized.");
+        window.postMessage("PageRank took " + pagerank.getNumIterations() + " iterations.");
+
+        graph_view.deselectAll();
+        graph_view.repaint();
+    }
+
+    /**
+     * Mostra o próximo vértice do ranking. Quando todos
+     * já foram mostrados, para o plugin.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (k == ranking.length) {
+            window.postMessage("PageRank finished.");
+            stop();
+            return;
+        }
+
+        int v = ranking[k++];
+        Vertex<String> cur = indexed.getVertex(v);
+        String score = String.format("%.4f", pagerank.getRank(v));
+
+        window.postMessage(k + ": Vertex<" + cur + "> (" + score + ").");
+
+        setVertexInfo(cur, score);
+        graph_view.getVertexView(cur).setSelected(true);
+        graph_view.repaint();
+    }
+
+    private IndexedGraph<String> indexed;
+    private PageRank pagerank;
+    private int[] ranking;
+    private int k;
+}
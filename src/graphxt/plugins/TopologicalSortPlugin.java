@@ -6,16 +6,15 @@
 
 package graphxt.plugins;
 
+import graphxt.algorithms.IndexedGraph;
+import graphxt.algorithms.ResultCache;
+import graphxt.algorithms.TopologicalOrder;
 import graphxt.model.Vertex;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import graphxt.gui.GraphWindow;
-import graphxt.model.Edge;
 import graphxt.model.Graph;
 import graphxt.view.GraphView;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
 import javax.swing.Timer;
 
 /**
@@ -24,6 +23,10 @@ import javax.swing.Timer;
  * Plugin que implementa o algoritmo
  * de ordenaçao topológica de um grafo.
  * 
+ * A ordem é calculada de uma só vez pelo TopologicalOrder,
+ * e o plugin mostra um vértice da ordem à cada iteração.
+ * Caso o grafo tenha um ciclo, ele é mostrado ao final.
+ * 
  * @author Giuliano Vilela
  */
 public class TopologicalSortPlugin extends BasePlugin implements ActionListener {
@@ -41,22 +44,18 @@ public class TopologicalSortPlugin extends BasePlugin implements ActionListener
     @Override
     public void setInitialVertex(Vertex<String> cur) {
         k = 0;
-        queue = new LinkedList<Vertex<String>>();
-        used_ed = new HashSet<Edge<String,Integer>>();
-        used_vert = new HashSet<Vertex<String>>();
+        indexed = window.getResultCache().getIndexedGraph();
+        topo = window.getResultCache().get("TopologicalOrder", null, new ResultCache.Computation<String,TopologicalOrder>() {
+            public TopologicalOrder compute(IndexedGraph<String> g) {
+                return new TopologicalOrder(g).run();
+            }
+        });
+        order = topo.getOrder();
         
         window.postMessage("Topological Sort initialized.");
         
-        for (Vertex<String> v : graph.getVertexSet()) {
-            if (graph.getIncidentEdges(v).size() == 0) {
-                window.postMessage("Putting " + v + " on the queue.");
-                queue.addLast(v);
-                
-                for (Edge<String,Integer> ed : graph.getOutgoingEdges(v))
-                    used_ed.add(ed);
-            }
+        for (Vertex<String> v : graph.getVertexSet())
             clearVertexInfo(v);
-        }
         
         graph_view.deselectAll();
     }
@@ -70,50 +69,49 @@ public class TopologicalSortPlugin extends BasePlugin implements ActionListener
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (queue.isEmpty()) {
+        if (k == order.length) {
+            if (!topo.isAcyclic())
+                postCycle();
+            
             window.postMessage("Topological Sort finished.");
             stop();
             return;
         }
         
-        Vertex<String> cur = queue.poll();
+        int v = order[k];
+        Vertex<String> cur = indexed.getVertex(v);
         
-        for (Edge<String,Integer> ed : graph.getIncidentEdges(cur)) {
-            graph_view.getEdgeView(ed).setSelected(true);
+        for (int i = 0; i < indexed.getInDegree(v); ++i) {
+            graph_view.getEdgeView(indexed.getEdge(indexed.getInEdge(v, i))).setSelected(true);
         }
         
         window.postMessage("Current: Vertex<" + cur + ">.");
         
-        used_vert.add(cur);
         graph_view.getVertexView(cur).setSelected(true);
         setVertexInfo(cur,String.valueOf(++k));
         
-        for (Vertex<String> v : graph.getVertexSet()) {
-            if (used_vert.contains(v) || queue.contains(v))
-                continue;
-            
-            Set<Edge<String,Integer>> set_ed = graph.getIncidentEdges(v);
-            int i = set_ed.size();
-            
-            for (Edge<String,Integer> ed : set_ed)
-                if (used_ed.contains(ed))
-                    --i;
-            
-            if (i != 0) continue;
-            
-            window.postMessage("Putting " + v + " on the queue.");
-            
-            queue.addLast(v);
-                
-            for (Edge<String,Integer> ed : graph.getOutgoingEdges(v))
-                used_ed.add(ed);
-        }
-        
         graph_view.repaint();
     }
+    
+    /**
+     * Avisa ao usuário que a ordenação não pôde ser completada,
+     * mostrando um dos ciclos do grafo.
+     */
+    private void postCycle() {
+        int[] cycle = topo.getCycle();
+        String path = "";
+        
+        for (int v : cycle)
+            path += indexed.getVertex(v) + " -> ";
+        
+        path += indexed.getVertex(cycle[0]);
+        
+        window.postMessage("- The graph has a cycle: " + path);
+        window.postMessage("- " + (indexed.getNumVertex() - order.length) + " vertices could not be sorted.");
+    }
 
     private int k;
-    private LinkedList<Vertex<String>> queue;
-    private HashSet<Edge<String,Integer>> used_ed;
-    private HashSet<Vertex<String>> used_vert;
+    private int[] order;
+    private IndexedGraph<String> indexed;
+    private TopologicalOrder topo;
 }
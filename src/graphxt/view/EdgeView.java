@@ -95,6 +95,22 @@ public class EdgeView<T,V> {
         sel = s;
     }
     
+    /**
+     * Modifica a cor da aresta quando ela não está
+     * selecionada. Com null, a cor do tema é usada.
+     */
+    public void setColor(Color c) {
+        color = c;
+    }
+    
+    /**
+     * Retorna a cor própria da aresta, ou null
+     * caso ela use a cor do tema.
+     */
+    public Color getColor() {
+        return color;
+    }
+    
     /**
      * Modifica o estado de visibilidade desta aresta.
      */
@@ -214,6 +230,8 @@ public class EdgeView<T,V> {
         
         if (sel)
             surface.setPaint(gtheme.getSelectedEdgeColor());
+        else if (color != null)
+            surface.setPaint(color);
         else
             surface.setPaint(gtheme.getEdgeColor());
         
@@ -337,6 +355,7 @@ public class EdgeView<T,V> {
     private VertexView<T> st_view, end_view;
 
     private String edge_info;
+    private Color color;
     
     private static final double EDGE_DATA_INC = 10f;
 }
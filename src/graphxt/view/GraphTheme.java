@@ -160,6 +160,16 @@ public class GraphTheme {
         edge_font_color = c;
     }
     
+    /**
+     * Retorna a k-ésima cor de uma paleta para categorias (por exemplo,
+     * comunidades ou cores de uma coloração). Os matizes andam pela razão
+     * áurea, de modo que índices próximos ficam com cores bem distintas.
+     */
+    public Color getCategoryColor(int k) {
+        float hue = (float)((k * 0.618033988749895) % 1.0);
+        return Color.getHSBColor(hue, 0.65f, 0.75f);
+    }
+    
     private Color background_color;
     
     private Font vertex_font;
@@ -207,6 +207,7 @@ public class GraphView extends JComponent {
     public void deselectAll() {
         for (VertexView<String> v : getVertexViewSet()) {
             v.setSelected(false);
+            v.setFillColor(null);
             
             String inf = v.getViewInfo();
             if (inf.lastIndexOf('[') != -1) {
@@ -214,8 +215,10 @@ public class GraphView extends JComponent {
             }
         }
         
-        for (EdgeView<String,Integer> ed : getEdgeViewSet())
+        for (EdgeView<String,Integer> ed : getEdgeViewSet()) {
             ed.setSelected(false);
+            ed.setColor(null);
+        }
     }
     
     /**
@@ -651,7 +654,7 @@ public class GraphView extends JComponent {
                     
                     if (tmp == null || tmp.isEmpty()) break;
                     
-                    edge_click.getEdge().setData(Integer.valueOf(tmp));
+                    graph.setEdgeData(edge_click.getEdge(), Integer.valueOf(tmp));
                 }
                 else {
                     JOptionPane.showMessageDialog(
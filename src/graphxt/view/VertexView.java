@@ -180,6 +180,22 @@ public class VertexView<T> {
         return view_info;
     }
     
+    /**
+     * Modifica a cor de preenchimento do vértice quando ele
+     * não está selecionado. Com null, a cor do tema é usada.
+     */
+    public void setFillColor(Color c) {
+        fill_color = c;
+    }
+    
+    /**
+     * Retorna a cor de preenchimento própria do vértice,
+     * ou null caso ele use a cor do tema.
+     */
+    public Color getFillColor() {
+        return fill_color;
+    }
+    
     /**
      * Desenha o vértice na tela, na surface
      * determinada pelo Graphics2D g.
@@ -222,6 +238,8 @@ public class VertexView<T> {
         
         if (sel)
             surface.setPaint(gtheme.getSelectedVertexFillColor());
+        else if (fill_color != null)
+            surface.setPaint(fill_color);
         else
             surface.setPaint(gtheme.getVertexFillColor());
         surface.setStroke(new BasicStroke());
@@ -260,4 +278,5 @@ public class VertexView<T> {
     private Vertex<T> vertex;
     private GraphTheme gtheme;
     private String view_info;
+    private Color fill_color;
 }